@@ -0,0 +1,75 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+
+/**
+ * Helpers shared by the benchmarks.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 19:00
+ */
+/*package*/ final class Benchmarks {
+
+	private static final long TIMEOUT_IN_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+	private Benchmarks() {
+	}
+
+	/**
+	 * Spin until the condition holds. The benchmark thread yields, so the threads of the watchers get the CPU.
+	 * @throws IllegalStateException when the condition does not hold within 10 seconds
+	 */
+	/*package*/ static void awaitCondition(final BooleanSupplier condition) {
+		long deadline = System.nanoTime() + TIMEOUT_IN_NANOS;
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() - deadline > 0) {
+				throw new IllegalStateException("The watcher did not notify the change within 10 seconds.");
+			}
+			Thread.yield();
+		}
+	}
+
+	/*package*/ static void deleteTree(final Path root) throws IOException {
+		if (root == null || !Files.exists(root)) {
+			return;
+		}
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(final Path dir, final IOException e) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils.benchmarks;
+
+import name.finsterwalder.fileutils.FileChangeEvent;
+import name.finsterwalder.fileutils.FileChangeEventListener;
+import name.finsterwalder.fileutils.FileWatcher;
+import name.finsterwalder.fileutils.ListenerDispatcher;
+import name.finsterwalder.fileutils.NioFileWatcher;
+import name.finsterwalder.fileutils.PollingFileWatcher;
+import name.finsterwalder.fileutils.PollingInterval;
+import name.finsterwalder.fileutils.WriteCompletionDetector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Time from writing a file to the call of the listener. The watchers have no grace period and call the listener inline on the
+ * thread, that detected the change, so the benchmark measures the detection itself: the WatchService of the operating system
+ * for the NioFileWatcher and the polling interval for the PollingFileWatcher.
+ *
+ * Every write gives the file a new size, so the listener can tell the notification of the current write from late notifications
+ * of earlier writes.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 19:00
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChangeLatencyBenchmark {
+
+	private static final int MAX_SIZE = 1024;
+
+	@Param({"nio", "polling"})
+	public String backend;
+
+	@Param({"10"})
+	public long pollingIntervalInMs;
+
+	private Path directory;
+	private Path file;
+	private FileWatcher watcher;
+	private volatile long notifiedSize = -1;
+	private int writes;
+
+	@Setup(Level.Trial)
+	public void watch() throws IOException {
+		directory = Files.createTempDirectory("fileutils-latency");
+		file = directory.resolve("watched.txt");
+		Files.write(file, new byte[0]);
+		FileChangeEventListener listener = this::fileChanged;
+		if ("nio".equals(backend)) {
+			watcher = new NioFileWatcher(file, listener, WriteCompletionDetector.fixedDelay(0), FileChangeEvent.Kind.all(),
+					PollingFileWatcher.defaultScheduler(), ListenerDispatcher.inline());
+		} else {
+			watcher = new PollingFileWatcher(file, listener, PollingInterval.fixed(pollingIntervalInMs), 0, FileChangeEvent.Kind.all(),
+					PollingFileWatcher.defaultScheduler(), ListenerDispatcher.inline());
+		}
+	}
+
+	private void fileChanged(final FileChangeEvent event) {
+		BasicFileAttributes attributes = event.getAttributes();
+		if (attributes != null) {
+			notifiedSize = attributes.size();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void unwatch() throws IOException {
+		watcher.unwatch();
+		Benchmarks.deleteTree(directory);
+	}
+
+	@Benchmark
+	public long changeToCallback() throws IOException {
+		final int size = 1 + writes++ % MAX_SIZE;
+		Files.write(file, new byte[size]);
+		Benchmarks.awaitCondition(() -> notifiedSize == size);
+		return size;
+	}
+}
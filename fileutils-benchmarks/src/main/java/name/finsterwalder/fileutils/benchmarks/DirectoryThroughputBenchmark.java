@@ -0,0 +1,122 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils.benchmarks;
+
+import name.finsterwalder.fileutils.DirectoryTreeWatcher;
+import name.finsterwalder.fileutils.FileChangeEvent;
+import name.finsterwalder.fileutils.FileWatcher;
+import name.finsterwalder.fileutils.ListenerDispatcher;
+import name.finsterwalder.fileutils.PollingFileWatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+
+/**
+ * Sustainable number of events per second on a single directory. Every invocation appends a byte to each of
+ * {@value #FILES} files and waits until the listener was notified of all of them, so the result is the number of notified
+ * changes per second. Run with {@code -prof gc} to see the bytes allocated per event.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 19:00
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DirectoryThroughputBenchmark {
+
+	private static final int FILES = 1000;
+	private static final byte[] ONE_BYTE = {42};
+
+	private Path directory;
+	private Path[] files;
+	private final Map<Path, Integer> indexByPath = new HashMap<>();
+	private final AtomicIntegerArray notifiedRound = new AtomicIntegerArray(FILES);
+	private final AtomicInteger pending = new AtomicInteger();
+	private volatile int round;
+	private FileWatcher watcher;
+
+	@Setup(Level.Trial)
+	public void watch() throws IOException {
+		directory = Files.createTempDirectory("fileutils-throughput");
+		files = new Path[FILES];
+		for (int i = 0; i < FILES; i++) {
+			files[i] = directory.resolve("file-" + i + ".log");
+			Files.write(files[i], new byte[0]);
+			indexByPath.put(files[i], i);
+		}
+		watcher = new DirectoryTreeWatcher(directory, this::fileChanged, 0, PollingFileWatcher.defaultScheduler(), ListenerDispatcher.inline());
+	}
+
+	/**
+	 * Count a file once per round, when it has the size of the current round. Notifications of intermediate states are ignored.
+	 */
+	private void fileChanged(final FileChangeEvent event) {
+		Integer index = indexByPath.get(event.getPath());
+		BasicFileAttributes attributes = event.getAttributes();
+		if (index == null || attributes == null) {
+			return;
+		}
+		int currentRound = round;
+		if (attributes.size() == currentRound && notifiedRound.getAndSet(index, currentRound) != currentRound) {
+			pending.decrementAndGet();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void unwatch() throws IOException {
+		watcher.unwatch();
+		Benchmarks.deleteTree(directory);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FILES)
+	public int changesOfOneDirectory() throws IOException {
+		pending.set(FILES);
+		round++;
+		for (Path file : files) {
+			Files.write(file, ONE_BYTE, StandardOpenOption.APPEND);
+		}
+		Benchmarks.awaitCondition(() -> pending.get() <= 0);
+		return round;
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils.benchmarks;
+
+import name.finsterwalder.fileutils.FileChangeEvent;
+import name.finsterwalder.fileutils.FileWatcher;
+import name.finsterwalder.fileutils.ListenerDispatcher;
+import name.finsterwalder.fileutils.MetricsRecorder;
+import name.finsterwalder.fileutils.PollingFileWatcher;
+import name.finsterwalder.fileutils.PollingInterval;
+import name.finsterwalder.fileutils.WatcherMetrics;
+import name.finsterwalder.utils.ScheduledExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Cost of one polling tick over all watched files. The PollingFileWatchers are created with a scheduler, that only collects
+ * their polling tasks, and every invocation runs each task once on the benchmark thread. Nothing changes between the ticks,
+ * so this is the steady state cost of watching the files. The files are spread over directories of at most
+ * {@value #FILES_PER_DIRECTORY} files.
+ *
+ * The listing threshold decides, whether a directory with at least that many polled files is listed once per tick or its files
+ * are read one by one. The largest value disables the listing. Between two invocations the benchmark waits for the maximum age
+ * of a listing, just like real ticks are an interval apart, so every tick lists every dense directory and reads the attributes
+ * of every file again. The setup checks this with the counted stat calls, so a cache, that answers polls across invocations,
+ * can not turn the benchmark into a measurement of hash lookups.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 19:00
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PollingTickBenchmark {
+
+	private static final int FILES_PER_DIRECTORY = 1000;
+	private static final String LISTING_THRESHOLD_PROPERTY = "fileutils.polling.listingThreshold";
+	/** Half of it is the maximum age of a listing, it has to be longer than the listing of one directory takes */
+	private static final long POLLING_INTERVAL_IN_MS = 100;
+
+	@Param({"1", "1000", "100000"})
+	public int files;
+
+	@Param({"8", "2147483647"})
+	public int listingThreshold;
+
+	private Path root;
+	private final List<FileWatcher> watchers = new ArrayList<>();
+	private final CollectingScheduler scheduler = new CollectingScheduler();
+
+	@Setup(Level.Trial)
+	public void watch() throws IOException {
+		// read once, when the first PollingFileWatcher of the forked JVM is created
+		System.setProperty(LISTING_THRESHOLD_PROPERTY, String.valueOf(listingThreshold));
+		root = Files.createTempDirectory("fileutils-polling");
+		Path directory = null;
+		for (int i = 0; i < files; i++) {
+			if (i % FILES_PER_DIRECTORY == 0) {
+				directory = Files.createDirectory(root.resolve("dir-" + i / FILES_PER_DIRECTORY));
+			}
+			Path file = Files.write(directory.resolve("file-" + i + ".txt"), new byte[0]);
+			watchers.add(new PollingFileWatcher(file, event -> { }, PollingInterval.fixed(POLLING_INTERVAL_IN_MS), 0, FileChangeEvent.Kind.all(),
+					scheduler, ListenerDispatcher.inline()));
+		}
+		long expectedStatCalls = files;
+		for (int i = 0; i < files; i += FILES_PER_DIRECTORY) {
+			if (Math.min(FILES_PER_DIRECTORY, files - i) >= listingThreshold) {
+				expectedStatCalls++;
+			}
+		}
+		for (int i = 0; i < 2; i++) {
+			waitForTheNextTick();
+			long statCalls = WatcherMetrics.count(MetricsRecorder.Counter.STAT_CALLS);
+			tick();
+			long statCallsPerTick = WatcherMetrics.count(MetricsRecorder.Counter.STAT_CALLS) - statCalls;
+			if (statCallsPerTick != expectedStatCalls) {
+				throw new IllegalStateException("A tick over " + files + " files made " + statCallsPerTick + " stat calls instead of "
+						+ expectedStatCalls + ".");
+			}
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void waitForTheNextTick() {
+		try {
+			Thread.sleep(POLLING_INTERVAL_IN_MS / 2 + 1);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void unwatch() throws IOException {
+		for (FileWatcher watcher : watchers) {
+			watcher.unwatch();
+		}
+		Benchmarks.deleteTree(root);
+	}
+
+	@Benchmark
+	public int tick() {
+		List<Runnable> tasks = scheduler.tasks;
+		for (int i = 0; i < tasks.size(); i++) {
+			tasks.get(i).run();
+		}
+		return tasks.size();
+	}
+
+	/**
+	 * Collects the periodic tasks instead of running them.
+	 */
+	private static final class CollectingScheduler implements ScheduledExecutor {
+		private final List<Runnable> tasks = new ArrayList<>();
+
+		@Override
+		public ScheduledFuture<?> schedule(final Runnable command, final long delay, final TimeUnit unit) {
+			return new CollectedFuture();
+		}
+
+		@Override
+		public synchronized ScheduledFuture<?> scheduleAtFixedRate(final Runnable command, final long initialDelay, final long period, final TimeUnit unit) {
+			tasks.add(command);
+			return new CollectedFuture();
+		}
+	}
+
+	private static final class CollectedFuture implements ScheduledFuture<Object> {
+		@Override
+		public long getDelay(final TimeUnit unit) {
+			return 0;
+		}
+
+		@Override
+		public int compareTo(final Delayed other) {
+			return Long.compare(0, other.getDelay(TimeUnit.NANOSECONDS));
+		}
+
+		@Override
+		public boolean cancel(final boolean mayInterruptIfRunning) {
+			return false;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return false;
+		}
+
+		@Override
+		public boolean isDone() {
+			return false;
+		}
+
+		@Override
+		public Object get() {
+			return null;
+		}
+
+		@Override
+		public Object get(final long timeout, final TimeUnit unit) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,262 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils.benchmarks;
+
+import name.finsterwalder.fileutils.FileChangeEvent;
+import name.finsterwalder.fileutils.FileChangeEventListener;
+import name.finsterwalder.fileutils.FileWatcher;
+import name.finsterwalder.fileutils.InotifyFileWatcher;
+import name.finsterwalder.fileutils.ListenerDispatcher;
+import name.finsterwalder.fileutils.NioFileWatcher;
+import name.finsterwalder.fileutils.PollingFileWatcher;
+import name.finsterwalder.fileutils.PollingInterval;
+import name.finsterwalder.fileutils.WriteCompletionDetector;
+import name.finsterwalder.utils.LatencyHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Soak test of many watchers in one JVM. It creates a tree of files in a temp directory, watches every file with its own watcher
+ * and changes random files at a steady rate. Every few seconds it reports the live threads, the open file descriptors, the heap
+ * and the delay from a change to the notification. Before the churn starts it reports the heap retained per watcher.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar name.finsterwalder.fileutils.benchmarks.SoakTest --watchers 100000 --backend polling
+ * </pre>
+ *
+ * Options (defaults in brackets):
+ * <ul>
+ *   <li>--watchers: number of watched files [10000]</li>
+ *   <li>--backend: nio, polling or inotify [nio]</li>
+ *   <li>--churn: changed files per second [100]</li>
+ *   <li>--duration: seconds to run the churn [60]</li>
+ *   <li>--report: seconds between two reports [5]</li>
+ *   <li>--grace: grace period in ms [0]</li>
+ *   <li>--interval: polling interval in ms [1000]</li>
+ *   <li>--maxThreads, --maxFds, --maxHeapPerWatcher (bytes), --maxP99Delay (ms): limits, that make the soak test fail with exit
+ *   code 1, when they are exceeded. Unlimited by default.</li>
+ * </ul>
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 19:10
+ */
+public final class SoakTest {
+
+	private static final int FILES_PER_DIRECTORY = 1000;
+	private static final byte[] ONE_BYTE = {42};
+
+	private final Map<String, String> options;
+	private final int watcherCount;
+	private final Path root;
+	private final List<Path> files = new ArrayList<>();
+	private final Map<Path, Integer> indexByPath = new HashMap<>();
+	private final List<FileWatcher> watchers = new ArrayList<>();
+	private final AtomicLongArray changedAtNanos;
+	private volatile LatencyHistogram delays = new LatencyHistogram();
+	/** The largest value of every exceeded limit */
+	private final Map<String, Long> violations = new LinkedHashMap<>();
+
+	private SoakTest(final Map<String, String> options) throws IOException {
+		this.options = options;
+		this.watcherCount = intOption("watchers", 10000);
+		this.changedAtNanos = new AtomicLongArray(watcherCount);
+		this.root = Files.createTempDirectory("fileutils-soak");
+	}
+
+	public static void main(final String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if (!args[i].startsWith("--")) {
+				throw new IllegalArgumentException("Expected an option like --watchers, but got " + args[i]);
+			}
+			options.put(args[i].substring(2), args[i + 1]);
+		}
+		SoakTest soakTest = new SoakTest(options);
+		try {
+			soakTest.run();
+		} finally {
+			soakTest.close();
+		}
+		if (!soakTest.violations.isEmpty()) {
+			for (Map.Entry<String, Long> violation : soakTest.violations.entrySet()) {
+				System.out.println("FAILED: " + violation.getKey() + " " + options.get(violation.getKey()) + " exceeded: " + violation.getValue());
+			}
+			System.exit(1);
+		}
+	}
+
+	private void run() throws IOException, InterruptedException {
+		createFiles();
+		print("baseline");
+		long heapBefore = usedHeapAfterGc();
+		long startNanos = System.nanoTime();
+		createWatchers();
+		long setupMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+		long heapPerWatcher = (usedHeapAfterGc() - heapBefore) / watcherCount;
+		System.out.printf("%d %s watchers created in %d ms, retained heap per watcher: %d bytes%n",
+				watcherCount, option("backend", "nio"), setupMs, heapPerWatcher);
+		check("maxHeapPerWatcher", heapPerWatcher);
+		print("watching");
+		churn();
+	}
+
+	private void createFiles() throws IOException {
+		Path directory = null;
+		for (int i = 0; i < watcherCount; i++) {
+			if (i % FILES_PER_DIRECTORY == 0) {
+				directory = Files.createDirectory(root.resolve("dir-" + i / FILES_PER_DIRECTORY));
+			}
+			Path file = Files.write(directory.resolve("file-" + i + ".txt"), new byte[0]);
+			files.add(file);
+			indexByPath.put(file, i);
+		}
+	}
+
+	private void createWatchers() {
+		String backend = option("backend", "nio");
+		long gracePeriodInMs = intOption("grace", 0);
+		FileChangeEventListener listener = this::fileChanged;
+		for (Path file : files) {
+			switch (backend) {
+				case "nio":
+					watchers.add(new NioFileWatcher(file, listener, WriteCompletionDetector.fixedDelay(gracePeriodInMs), FileChangeEvent.Kind.all()));
+					break;
+				case "polling":
+					watchers.add(new PollingFileWatcher(file, listener, PollingInterval.fixed(intOption("interval", 1000)), gracePeriodInMs,
+							FileChangeEvent.Kind.all()));
+					break;
+				case "inotify":
+					watchers.add(new InotifyFileWatcher(file, listener, FileChangeEvent.Kind.all(), ListenerDispatcher.defaultDispatcher()));
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown backend " + backend + ". Use nio, polling or inotify.");
+			}
+		}
+	}
+
+	/**
+	 * Record the delay of the first notification after a change of the file.
+	 */
+	private void fileChanged(final FileChangeEvent event) {
+		Integer index = indexByPath.get(event.getPath());
+		if (index != null) {
+			long changedAt = changedAtNanos.getAndSet(index, 0);
+			if (changedAt != 0) {
+				delays.record(System.nanoTime() - changedAt);
+			}
+		}
+	}
+
+	private void churn() throws IOException, InterruptedException {
+		int changesPerSecond = intOption("churn", 100);
+		long durationInNanos = TimeUnit.SECONDS.toNanos(intOption("duration", 60));
+		long reportEveryInNanos = TimeUnit.SECONDS.toNanos(intOption("report", 5));
+		long pauseInNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, changesPerSecond);
+		long startNanos = System.nanoTime();
+		long nextChange = startNanos;
+		long nextReport = startNanos + reportEveryInNanos;
+		while (System.nanoTime() - startNanos < durationInNanos) {
+			int index = ThreadLocalRandom.current().nextInt(watcherCount);
+			changedAtNanos.compareAndSet(index, 0, System.nanoTime());
+			Files.write(files.get(index), ONE_BYTE, StandardOpenOption.APPEND);
+			nextChange += pauseInNanos;
+			long now = System.nanoTime();
+			if (now - nextReport >= 0) {
+				print("churn");
+				nextReport += reportEveryInNanos;
+			}
+			if (nextChange - now > 0) {
+				TimeUnit.NANOSECONDS.sleep(nextChange - now);
+			}
+		}
+		print("churn");
+	}
+
+	private void print(final String phase) {
+		int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+		long fds = openFileDescriptors();
+		long heapInMb = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20;
+		LatencyHistogram current = delays;
+		delays = new LatencyHistogram();
+		System.out.printf("%-8s threads=%d fds=%d heap=%dMB notifications=%d delay p50=%.1fms p99=%.1fms max=%.1fms%n",
+				phase, threads, fds, heapInMb, current.getCount(), toMs(current.getPercentileInNanos(50)),
+				toMs(current.getPercentileInNanos(99)), toMs(current.getMaxInNanos()));
+		check("maxThreads", threads);
+		check("maxFds", fds);
+		check("maxP99Delay", (long)toMs(current.getPercentileInNanos(99)));
+	}
+
+	private void check(final String limit, final long value) {
+		String maximum = options.get(limit);
+		if (maximum != null && value > Long.parseLong(maximum)) {
+			violations.merge(limit, value, Math::max);
+		}
+	}
+
+	/**
+	 * @return The number of open file descriptors of this process or -1, when /proc/self/fd is not available
+	 */
+	private static long openFileDescriptors() {
+		String[] fds = new File("/proc/self/fd").list();
+		return fds == null ? -1 : fds.length;
+	}
+
+	private static long usedHeapAfterGc() throws InterruptedException {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(100);
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	private static double toMs(final long nanos) {
+		return nanos / 1e6;
+	}
+
+	private String option(final String name, final String defaultValue) {
+		String value = options.get(name);
+		return value == null ? defaultValue : value;
+	}
+
+	private int intOption(final String name, final int defaultValue) {
+		return Integer.parseInt(option(name, String.valueOf(defaultValue)));
+	}
+
+	private void close() throws IOException {
+		for (FileWatcher watcher : watchers) {
+			watcher.unwatch();
+		}
+		Benchmarks.deleteTree(root);
+	}
+}
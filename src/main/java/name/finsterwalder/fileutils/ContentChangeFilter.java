@@ -0,0 +1,126 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Checksums;
+import name.finsterwalder.utils.Ensure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * A FileChangeEventListener, that only passes on changes of the content of a file. Touching a file, changing its permissions or
+ * writing the same bytes again are not passed on.
+ *
+ * The checks are tiered to stay cheap: a file, whose size changed, has changed. A file with the same size and the same last
+ * modified time did not change. Only when the size is the same, but the last modified time or the file key changed, the content
+ * is compared by its checksum (see {@link Checksums}). The checksum of a file, whose size changed, is computed as well, so that
+ * writing the same new content again is recognized, but the change is passed on without waiting for the comparison. The checks
+ * run on the thread of the listener, not on the event loop of the watchers.
+ *
+ * The content of a file is only known after its first change or after it was remembered with {@link #remember(Path)}, so the
+ * first change of a file, that was not remembered, is always passed on. Deletions and changes of directories are always
+ * passed on.
+ *
+ * <pre>
+ * ContentChangeFilter filter = new ContentChangeFilter(listener);
+ * filter.remember(configFile);
+ * new NioFileWatcher(configFile, filter, 1000, FileChangeEvent.Kind.all());
+ * </pre>
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 16:00
+ */
+public final class ContentChangeFilter implements FileChangeEventListener {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ContentChangeFilter.class);
+
+	private final FileChangeEventListener listener;
+	private final Map<Path, Content> contents = new ConcurrentHashMap<>();
+
+	/**
+	 * @param listener Listener to pass changes of the content to
+	 */
+	public ContentChangeFilter(final FileChangeEventListener listener) {
+		Ensure.notNull(listener, "listener");
+		this.listener = listener;
+	}
+
+	/**
+	 * Remember the current content of a file, so that already its first change is only passed on, when the content changed.
+	 * @param file File to remember
+	 * @throws IOException when the file can not be read
+	 */
+	public void remember(final Path file) throws IOException {
+		Path absoluteFile = file.toAbsolutePath();
+		FileState state = FileState.read(absoluteFile);
+		contents.put(absoluteFile, new Content(state, Checksums.contentChecksum(absoluteFile), true));
+	}
+
+	@Override
+	public void fileChanged(final FileChangeEvent event) {
+		if (event.getKind() == FileChangeEvent.Kind.DELETED || event.getAttributes() == null || event.getAttributes().isDirectory()) {
+			contents.remove(event.getPath());
+			listener.fileChanged(event);
+		} else if (isContentChanged(event.getPath(), FileState.of(event.getAttributes()))) {
+			listener.fileChanged(event);
+		}
+	}
+
+	private boolean isContentChanged(final Path file, final FileState state) {
+		Content previous = contents.get(file);
+		boolean sizeChanged = previous == null || previous.state.getSize() != state.getSize();
+		if (!sizeChanged && previous.state.getLastModified().equals(state.getLastModified()) && sameFileKey(previous.state, state)) {
+			return false;
+		}
+		long checksum;
+		try {
+			checksum = Checksums.contentChecksum(file);
+		} catch (IOException e) {
+			LOGGER.debug("Could not compute the checksum of {}.", file, e);
+			contents.put(file, new Content(state, 0, false));
+			return true;
+		}
+		contents.put(file, new Content(state, checksum, true));
+		return sizeChanged || !previous.checksumKnown || previous.checksum != checksum;
+	}
+
+	private static boolean sameFileKey(final FileState previous, final FileState current) {
+		return previous.getFileKey() == null ? current.getFileKey() == null : previous.getFileKey().equals(current.getFileKey());
+	}
+
+	/**
+	 * The last known state and checksum of a file. The checksum is unknown, when the file could not be read.
+	 */
+	private static final class Content {
+		private final FileState state;
+		private final long checksum;
+		private final boolean checksumKnown;
+
+		private Content(final FileState state, final long checksum, final boolean checksumKnown) {
+			this.state = state;
+			this.checksum = checksum;
+			this.checksumKnown = checksumKnown;
+		}
+	}
+}
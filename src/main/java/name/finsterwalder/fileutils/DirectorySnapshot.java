@@ -0,0 +1,325 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import name.finsterwalder.utils.ScheduledExecutor;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+
+/**
+ * The last known state of the files of a watched directory. When the WatchService lost events, because its queue overflowed,
+ * the directory is scanned again and compared to the last known state, to reconstruct the events, that were missed.
+ *
+ * Only the files, that are watched, are tracked. When the whole directory is watched, all of its entries are tracked.
+ * Files are compared by their {@link FileState}. A file, whose file key changed, was replaced and is reported as created,
+ * just like the WatchService reports a file, that is moved onto another one.
+ *
+ * The state of a file is only read, when it is needed. Events of the WatchService do not read any state, they only mark the
+ * file as changed at the current time. After the event was delivered, {@link #settle()} reads the state of the file off the
+ * event loop thread and keeps it as the last delivered state, unless the file was modified after it was marked. Then a rescan
+ * compares the file to the delivered state and does not report the delivered change again.
+ *
+ * The entries of a whole directory are only listed, not read. The state of such a file and of a file, that was not settled,
+ * is unknown until the next rescan, which reports it as modified, when it was modified less than
+ * {@value #TIMESTAMP_GRANULARITY_IN_MS}ms before it was marked or later. So a rescan may report a change again, that was
+ * already reported, but it never misses one.
+ *
+ * The tracked files are changed while holding the lock of the {@link WatchServiceEngine} and events are applied on the event
+ * loop thread. Both only mark the files, the states are read by {@link #takeBaseline()}, {@link #settle()}
+ * and {@link #rescan(ChangeHandler)}.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 15:30
+ */
+/*package*/ final class DirectorySnapshot {
+
+	/**
+	 * The coarsest resolution of the last modified time of common file systems (FAT).
+	 */
+	/*package*/ static final long TIMESTAMP_GRANULARITY_IN_MS = 2000;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DirectorySnapshot.class);
+
+	private final Path directory;
+	private final Set<Path> trackedFileNames = ConcurrentHashMap.newKeySet();
+	private final Set<Path> unreadFileNames = ConcurrentHashMap.newKeySet();
+	private final Map<Path, FileState> states = new ConcurrentHashMap<>();
+	private final Map<Path, Long> markedAt = new ConcurrentHashMap<>();
+	private final Set<Path> deliveredFileNames = ConcurrentHashMap.newKeySet();
+	private final AtomicBoolean settlePending = new AtomicBoolean();
+	private volatile boolean wholeDirectory;
+	private volatile boolean listingPending;
+
+	/*package*/ DirectorySnapshot(final Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Callback for a change, that was detected by a rescan.
+	 */
+	/*package*/ interface ChangeHandler {
+		void changed(WatchEvent.Kind<?> kind, Path fileName);
+	}
+
+	/**
+	 * Start to track a single file of the directory. Its state is read by the next call of {@link #takeBaseline()}.
+	 * @param fileName Name of the file within the directory
+	 */
+	/*package*/ void track(final Path fileName) {
+		if (trackedFileNames.add(fileName) && !wholeDirectory) {
+			unreadFileNames.add(fileName);
+		}
+	}
+
+	/**
+	 * Stop to track a single file of the directory. It is still tracked, while the whole directory is tracked.
+	 * @param fileName Name of the file within the directory
+	 */
+	/*package*/ void untrack(final Path fileName) {
+		if (trackedFileNames.remove(fileName) && !wholeDirectory) {
+			forget(fileName);
+		}
+	}
+
+	/**
+	 * Start or stop to track all entries of the directory. The directory is listed by the next call of {@link #takeBaseline()}.
+	 * @param whole true to track all entries
+	 */
+	/*package*/ void trackWholeDirectory(final boolean whole) {
+		if (wholeDirectory == whole) {
+			return;
+		}
+		wholeDirectory = whole;
+		listingPending = whole;
+		if (!whole) {
+			states.keySet().retainAll(trackedFileNames);
+			markedAt.keySet().retainAll(trackedFileNames);
+		}
+	}
+
+	/**
+	 * Read the states of the newly tracked files and list the directory, when it is tracked as a whole since the last call.
+	 * Called after registering a handler, without holding the lock of the {@link WatchServiceEngine}.
+	 */
+	/*package*/ synchronized void takeBaseline() {
+		if (listingPending) {
+			listingPending = false;
+			long now = System.currentTimeMillis();
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+				for (Path entry : entries) {
+					Path fileName = entry.getFileName();
+					if (!states.containsKey(fileName)) {
+						markedAt.putIfAbsent(fileName, now);
+					}
+				}
+			} catch (NoSuchFileException e) {
+				// the directory was deleted, there is nothing to track
+			} catch (IOException e) {
+				LOGGER.info("Could not list directory {}.", directory, e);
+			}
+		}
+		for (Path fileName : unreadFileNames) {
+			unreadFileNames.remove(fileName);
+			if (trackedFileNames.contains(fileName) && !states.containsKey(fileName) && !markedAt.containsKey(fileName)) {
+				try {
+					states.put(fileName, FileState.read(directory.resolve(fileName)));
+				} catch (NoSuchFileException e) {
+					// the file does not exist yet
+				} catch (IOException e) {
+					LOGGER.debug("Could not read the state of {}.", directory.resolve(fileName), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Apply an event of the WatchService. No state is read, a created or modified file is only marked as changed now.
+	 * @param kind Kind of the event
+	 * @param fileName Name of the file within the directory
+	 */
+	/*package*/ void update(final WatchEvent.Kind<?> kind, final Path fileName) {
+		if (!wholeDirectory && !trackedFileNames.contains(fileName)) {
+			return;
+		}
+		if (kind == ENTRY_DELETE) {
+			forget(fileName);
+		} else {
+			states.remove(fileName);
+			markedAt.put(fileName, System.currentTimeMillis());
+			deliveredFileNames.add(fileName);
+		}
+	}
+
+	/**
+	 * Let the scheduler {@link #settle()} the files, whose events were delivered. Called on the event loop thread after delivering.
+	 * @param scheduler Scheduler to read the states with
+	 */
+	/*package*/ void settleLater(final ScheduledExecutor scheduler) {
+		if (!deliveredFileNames.isEmpty() && settlePending.compareAndSet(false, true)) {
+			scheduler.schedule(this::settle, 0, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Read the states of the files, whose events were delivered, and keep them as their last known states.
+	 * A file, that was modified after its event was marked, stays marked, since the change may not be delivered yet.
+	 */
+	/*package*/ synchronized void settle() {
+		settlePending.set(false);
+		for (Path fileName : deliveredFileNames) {
+			deliveredFileNames.remove(fileName);
+			Long marked = markedAt.get(fileName);
+			if (marked == null) {
+				// deleted or already rescanned
+				continue;
+			}
+			try {
+				FileState state = FileState.read(directory.resolve(fileName));
+				if (state.getLastModified().toMillis() > marked) {
+					continue;
+				}
+				states.put(fileName, state);
+				if (!markedAt.remove(fileName, marked)) {
+					// another event arrived meanwhile
+					states.remove(fileName, state);
+				}
+			} catch (NoSuchFileException e) {
+				// deleted, the event of the deletion follows
+			} catch (IOException e) {
+				LOGGER.debug("Could not read the state of {}.", directory.resolve(fileName), e);
+			}
+		}
+	}
+
+	/**
+	 * Scan the directory again and report every difference to the last known state. The scanned state becomes the last known state.
+	 * @param handler Handler to report the differences to
+	 * @return the number of reported differences
+	 */
+	/*package*/ synchronized int rescan(final ChangeHandler handler) {
+		takeBaseline();
+		Map<Path, FileState> current = scan();
+		if (current == null) {
+			return 0;
+		}
+		int changes = 0;
+		for (Map.Entry<Path, FileState> entry : current.entrySet()) {
+			FileState state = entry.getValue();
+			if (state == null) {
+				// could not be read, so the last known state is kept
+				continue;
+			}
+			FileState previous = states.put(entry.getKey(), state);
+			Long marked = markedAt.remove(entry.getKey());
+			WatchEvent.Kind<?> kind = null;
+			if (previous != null) {
+				if (isReplaced(state, previous)) {
+					kind = ENTRY_CREATE;
+				} else if (state.isChangedFrom(previous)) {
+					kind = ENTRY_MODIFY;
+				}
+			} else if (marked == null) {
+				kind = ENTRY_CREATE;
+			} else if (!state.isDirectory() && state.getLastModified().toMillis() > marked - TIMESTAMP_GRANULARITY_IN_MS) {
+				kind = ENTRY_MODIFY;
+			}
+			if (kind != null) {
+				changes++;
+				handler.changed(kind, entry.getKey());
+			}
+		}
+		changes += reportDeleted(states.keySet(), current, handler);
+		changes += reportDeleted(markedAt.keySet(), current, handler);
+		return changes;
+	}
+
+	private static int reportDeleted(final Set<Path> known, final Map<Path, FileState> current, final ChangeHandler handler) {
+		int changes = 0;
+		for (Path fileName : known) {
+			if (!current.containsKey(fileName)) {
+				known.remove(fileName);
+				changes++;
+				handler.changed(ENTRY_DELETE, fileName);
+			}
+		}
+		return changes;
+	}
+
+	private static boolean isReplaced(final FileState current, final FileState previous) {
+		return current.getFileKey() != null && previous.getFileKey() != null && !current.getFileKey().equals(previous.getFileKey());
+	}
+
+	private void forget(final Path fileName) {
+		states.remove(fileName);
+		markedAt.remove(fileName);
+		deliveredFileNames.remove(fileName);
+	}
+
+	/**
+	 * @return the states of the files, null for files, that could not be read, or null, when the directory could not be listed
+	 */
+	private Map<Path, FileState> scan() {
+		Map<Path, FileState> result = new HashMap<>();
+		if (wholeDirectory) {
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+				for (Path entry : entries) {
+					putState(result, entry.getFileName());
+				}
+			} catch (NoSuchFileException e) {
+				// the directory was deleted, so all of its files are gone
+			} catch (IOException e) {
+				LOGGER.info("Could not scan directory {}.", directory, e);
+				return null;
+			}
+		} else {
+			for (Path fileName : trackedFileNames) {
+				putState(result, fileName);
+			}
+		}
+		return result;
+	}
+
+	private void putState(final Map<Path, FileState> result, final Path fileName) {
+		try {
+			result.put(fileName, FileState.read(directory.resolve(fileName)));
+		} catch (NoSuchFileException e) {
+			// deleted while scanning
+		} catch (IOException e) {
+			result.put(fileName, null);
+		}
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Ensure;
+import name.finsterwalder.utils.ScheduledExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+
+
+/**
+ * Watch a whole directory tree for changes. Uses the Java NIO WatchService like the {@link NioFileWatcher} and shares its
+ * event loop (see {@link WatchServiceEngine}).
+ *
+ * All directories of the tree are registered when the watcher is created. Directories, that are created later, are registered
+ * as soon as their creation is noticed. Since files might be created in a new directory before it is registered, the new
+ * directory is scanned after registering it and all files found are notified as well. Deleted directories are unregistered.
+ * Symbolic links to directories are not followed.
+ *
+ * Like the NioFileWatcher, every change is notified after a grace period, in which the file did not change again.
+ * The grace period is tracked for every file separately. A {@link FileChangeBatchListener} is instead notified once with all
+ * changed files, when the whole tree did not change during the grace period.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 13:05
+ */
+public class DirectoryTreeWatcher implements FileWatcher {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryTreeWatcher.class);
+	public static final int DEFAULT_GRACE_PERIOD_IN_MS = 1000;
+	private static final Set<WatchEvent.Kind<?>> ALL_KINDS = FileChangeEvent.Kind.toWatchEventKinds(FileChangeEvent.Kind.all());
+
+	private final Path root;
+	private final PathChangeNotifier notifier;
+	private final Map<Path, WatchServiceEngine.Registration> registrations = new HashMap<>();
+	private volatile boolean unwatched;
+
+	/**
+	 * Create a DirectoryTreeWatcher with a default grace period of 1000ms.
+	 * @param root Root directory of the tree to watch
+	 * @param listener Listener to notify about changes
+	 */
+	public DirectoryTreeWatcher(final Path root, final FileChangeEventListener listener) {
+		this(root, listener, DEFAULT_GRACE_PERIOD_IN_MS);
+	}
+
+	/**
+	 * Create a DirectoryTreeWatcher with the given grace period.
+	 * @param root Root directory of the tree to watch
+	 * @param listener Listener to notify about changes
+	 * @param gracePeriodInMs Grace period in ms to wait after a change in a file before notifying the listener
+	 */
+	public DirectoryTreeWatcher(final Path root, final FileChangeEventListener listener, final long gracePeriodInMs) {
+		this(root, listener, gracePeriodInMs, WatchServiceEngine.getInstance().debounceTimer(), ListenerDispatcher.defaultDispatcher());
+	}
+
+	/**
+	 * Create a DirectoryTreeWatcher with the given grace period, that is timed with the given ScheduledExecutor and calls the
+	 * listener through the given dispatcher.
+	 * @param root Root directory of the tree to watch
+	 * @param listener Listener to notify about changes
+	 * @param gracePeriodInMs Grace period in ms to wait after a change in a file before notifying the listener
+	 * @param debounceTimer ScheduledExecutor to time the grace period
+	 * @param dispatcher Dispatcher to call the listener with
+	 */
+	public DirectoryTreeWatcher(final Path root, final FileChangeEventListener listener, final long gracePeriodInMs, final ScheduledExecutor debounceTimer,
+	                            final ListenerDispatcher dispatcher) {
+		this(root, new PathChangeNotifier(listener, gracePeriodInMs, debounceTimer, dispatcher));
+	}
+
+	/**
+	 * Create a DirectoryTreeWatcher, that notifies all changes at once, when the grace period passed without any further change
+	 * in the tree.
+	 * @param root Root directory of the tree to watch
+	 * @param batchListener Listener to notify about all changes of a quiet window
+	 * @param gracePeriodInMs Grace period in ms to wait after the last change in the tree before notifying the listener
+	 */
+	public DirectoryTreeWatcher(final Path root, final FileChangeBatchListener batchListener, final long gracePeriodInMs) {
+		this(root, new PathChangeNotifier(batchListener, gracePeriodInMs, WatchServiceEngine.getInstance().debounceTimer(),
+				ListenerDispatcher.defaultDispatcher()));
+	}
+
+	private DirectoryTreeWatcher(final Path root, final PathChangeNotifier notifier) {
+		Ensure.notNull(root, "root");
+		this.root = root.toAbsolutePath();
+		this.notifier = notifier;
+		if (!Files.isDirectory(this.root)) {
+			throw new IllegalArgumentException("Not a directory: " + this.root);
+		}
+		try {
+			registerTree(this.root, false);
+		} catch (IOException e) {
+			unwatch();
+			throw new RuntimeException("Could not initialize directory watcher for " + this.root, e);
+		}
+	}
+
+	@Override
+	protected void finalize() throws Throwable {
+		unwatch();
+		super.finalize();
+	}
+
+	/**
+	 * Register all directories of a tree.
+	 * @param directory root of the tree
+	 * @param notifyContents true, when all directories and files found below the root need to be notified as changed
+	 */
+	private void registerTree(final Path directory, final boolean notifyContents) throws IOException {
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+				// Register before listing the contents, so no file created in between is missed
+				register(dir);
+				if (notifyContents && !dir.equals(directory)) {
+					changed(ENTRY_CREATE, dir);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+				if (notifyContents) {
+					changed(ENTRY_CREATE, file);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(final Path file, final IOException e) {
+				// The file was deleted in the meantime. Its deletion is notified by the WatchService.
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private void register(final Path directory) throws IOException {
+		synchronized (registrations) {
+			if (!unwatched && !registrations.containsKey(directory)) {
+				registrations.put(directory, WatchServiceEngine.getInstance().registerDirectory(directory, ALL_KINDS, this::handle));
+			}
+		}
+	}
+
+	private void unregisterTree(final Path directory) {
+		synchronized (registrations) {
+			if (registrations.containsKey(directory)) {
+				Iterator<Map.Entry<Path, WatchServiceEngine.Registration>> iterator = registrations.entrySet().iterator();
+				while (iterator.hasNext()) {
+					Map.Entry<Path, WatchServiceEngine.Registration> entry = iterator.next();
+					if (entry.getKey().startsWith(directory)) {
+						entry.getValue().cancel();
+						iterator.remove();
+					}
+				}
+			}
+		}
+	}
+
+	/*package*/ int watchedDirectoryCount() {
+		synchronized (registrations) {
+			return registrations.size();
+		}
+	}
+
+	private void handle(final WatchEvent.Kind<?> kind, final Path file) {
+		if (unwatched) {
+			return;
+		}
+		if (kind == ENTRY_CREATE && Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+			try {
+				registerTree(file, true);
+			} catch (IOException e) {
+				LOGGER.warn("Could not watch new directory {}.", file, e);
+			}
+		} else if (kind == ENTRY_DELETE) {
+			unregisterTree(file);
+		}
+		changed(kind, file);
+	}
+
+	private void changed(final WatchEvent.Kind<?> kind, final Path file) {
+		notifier.changed(kind, file);
+	}
+
+	/**
+	 * Stop watching the directory tree. Once stopped, watching can not be started again.
+	 */
+	@Override
+	public void unwatch() {
+		unwatched = true;
+		synchronized (registrations) {
+			for (WatchServiceEngine.Registration registration : registrations.values()) {
+				registration.cancel();
+			}
+			registrations.clear();
+		}
+		notifier.stop();
+	}
+}
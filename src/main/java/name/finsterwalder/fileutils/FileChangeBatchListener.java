@@ -0,0 +1,36 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import java.util.Collection;
+
+/**
+ * Callback interface to be notified once about all files, that changed in a watched directory during a quiet window.
+ * Useful, when every notification triggers an expensive rebuild, e.g. when a deployment replaces hundreds of files at once.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 14:50
+ */
+public interface FileChangeBatchListener {
+
+	/**
+	 * This method is called, when no further changes happened during the grace period after the last change.
+	 * @param events The changes since the last notification. Every file is contained only once.
+	 */
+	void filesChanged(Collection<FileChangeEvent> events);
+}
@@ -0,0 +1,166 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Ensure;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+
+/**
+ * A change to a file, as notified to a {@link FileChangeEventListener}.
+ * It carries the attributes, that the watcher read when it detected the change, so listeners do not need to read them again.
+ * The NioFileWatcher, the InotifyFileWatcher and the directory watchers read them, when the kind or the attributes are requested
+ * for the first time, so listeners, that only need the path, like the adapters of a {@link FileChangeListener}, cost no call to
+ * the file system.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 14:10
+ */
+public final class FileChangeEvent {
+
+	/**
+	 * The kind of a change. Since changes are notified after a grace period, the kind describes the state of the file at the
+	 * end of the grace period compared to its state at the beginning: a file, that is created and deleted again during the
+	 * grace period, is notified as deleted.
+	 */
+	public enum Kind {
+		CREATED(StandardWatchEventKinds.ENTRY_CREATE),
+		MODIFIED(StandardWatchEventKinds.ENTRY_MODIFY),
+		DELETED(StandardWatchEventKinds.ENTRY_DELETE);
+
+		private final WatchEvent.Kind<Path> watchEventKind;
+
+		Kind(final WatchEvent.Kind<Path> watchEventKind) {
+			this.watchEventKind = watchEventKind;
+		}
+
+		/**
+		 * @return all kinds of changes
+		 */
+		public static Set<Kind> all() {
+			return EnumSet.allOf(Kind.class);
+		}
+
+		/*package*/ static Set<WatchEvent.Kind<?>> toWatchEventKinds(final Set<Kind> kinds) {
+			Set<WatchEvent.Kind<?>> result = new HashSet<>();
+			for (Kind kind : kinds) {
+				result.add(kind.watchEventKind);
+			}
+			return Collections.unmodifiableSet(result);
+		}
+	}
+
+	private static final int KIND_COUNT = Kind.values().length;
+
+	private final Path path;
+	private final boolean created;
+	/** null, until the attributes were read */
+	private volatile Kind kind;
+	/** Written before the kind */
+	private BasicFileAttributes attributes;
+
+	/**
+	 * @param kind Kind of the change
+	 * @param path Absolute path of the changed file
+	 * @param attributes Attributes of the file or null, when the file was deleted or its attributes could not be read
+	 */
+	public FileChangeEvent(final Kind kind, final Path path, final BasicFileAttributes attributes) {
+		Ensure.notNull(kind, "kind");
+		Ensure.notNull(path, "path");
+		this.path = path;
+		this.created = kind == Kind.CREATED;
+		this.attributes = attributes;
+		this.kind = kind;
+	}
+
+	private FileChangeEvent(final Path path, final boolean created) {
+		this.path = path;
+		this.created = created;
+	}
+
+	/**
+	 * Create the event of a changed file, that reads the attributes of the file, when the kind or the attributes are
+	 * requested for the first time.
+	 * @param absoluteFile the changed file
+	 * @param created true, when the file did not exist before the change
+	 * @return DELETED when the file does not exist, otherwise CREATED or MODIFIED with the current attributes
+	 */
+	/*package*/ static FileChangeEvent readLazily(final Path absoluteFile, final boolean created) {
+		return new FileChangeEvent(absoluteFile, created);
+	}
+
+	/**
+	 * @param kinds subscribed kinds
+	 * @return true, when the event is of one of the kinds. The attributes are not read, when all kinds are subscribed.
+	 */
+	/*package*/ boolean isOneOf(final Set<Kind> kinds) {
+		return kinds.size() == KIND_COUNT || kinds.contains(getKind());
+	}
+
+	private Kind read() {
+		Kind currentKind = kind;
+		if (currentKind == null) {
+			synchronized (this) {
+				currentKind = kind;
+				if (currentKind == null) {
+					try {
+						attributes = FileState.readAttributes(path);
+						currentKind = created ? Kind.CREATED : Kind.MODIFIED;
+					} catch (NoSuchFileException e) {
+						currentKind = Kind.DELETED;
+					} catch (IOException e) {
+						currentKind = created ? Kind.CREATED : Kind.MODIFIED;
+					}
+					kind = currentKind;
+				}
+			}
+		}
+		return currentKind;
+	}
+
+	public Kind getKind() {
+		return read();
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * @return the attributes of the file or null, when the file was deleted or its attributes could not be read
+	 */
+	public BasicFileAttributes getAttributes() {
+		read();
+		return attributes;
+	}
+
+	@Override
+	public String toString() {
+		return getKind() + " " + path;
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+/**
+ * Callback interface to be notified about file changes together with the kind of the change and the attributes of the file.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 14:10
+ */
+public interface FileChangeEventListener {
+
+	/**
+	 * This method is called whenever a change to a file is detected.
+	 * @param event The change with the absolute path and the attributes of the file, as read by the watcher
+	 */
+	void fileChanged(FileChangeEvent event);
+}
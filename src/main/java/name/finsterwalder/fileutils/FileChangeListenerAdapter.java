@@ -0,0 +1,42 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Ensure;
+
+
+/**
+ * Adapts a {@link FileChangeListener} to the {@link FileChangeEventListener}, that is used by the watchers internally.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 14:10
+ */
+/*package*/ final class FileChangeListenerAdapter implements FileChangeEventListener {
+
+	private final FileChangeListener fileChangeListener;
+
+	/*package*/ FileChangeListenerAdapter(final FileChangeListener fileChangeListener) {
+		Ensure.notNull(fileChangeListener, "fileChangeListener");
+		this.fileChangeListener = fileChangeListener;
+	}
+
+	@Override
+	public void fileChanged(final FileChangeEvent event) {
+		fileChangeListener.fileChanged();
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+
+
+/**
+ * The state of a file, that is compared to detect changes: the last modified time with the full precision of the file system,
+ * the size and the file key, which changes when the file is replaced by another one (e.g. inode and device on Unix).
+ * The file key is null on file systems, that do not provide one.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 15:20
+ */
+/*package*/ final class FileState {
+
+	private final FileTime lastModified;
+	private final long size;
+	private final Object fileKey;
+	private final boolean directory;
+
+	/*package*/ FileState(final FileTime lastModified, final long size, final Object fileKey, final boolean directory) {
+		this.lastModified = lastModified;
+		this.size = size;
+		this.fileKey = fileKey;
+		this.directory = directory;
+	}
+
+	/*package*/ static FileState of(final BasicFileAttributes attributes) {
+		return new FileState(attributes.lastModifiedTime(), attributes.size(), attributes.fileKey(), attributes.isDirectory());
+	}
+
+	/**
+	 * Read the state of a file with a single call to the file system. Symbolic links are not followed.
+	 * @param file File to read
+	 * @return The state of the file
+	 * @throws IOException when the file can not be read, a NoSuchFileException when it does not exist
+	 */
+	/*package*/ static FileState read(final Path file) throws IOException {
+		return of(readAttributes(file, LinkOption.NOFOLLOW_LINKS));
+	}
+
+	/**
+	 * Read the attributes of a file with a single stat call. All attributes, that the watchers read, are read through this method,
+	 * so it counts the {@link MetricsRecorder.Counter#STAT_CALLS}.
+	 * @param file File to read
+	 * @param options Options for symbolic links
+	 * @return The attributes of the file
+	 * @throws IOException when the file can not be read, a NoSuchFileException when it does not exist
+	 */
+	/*package*/ static BasicFileAttributes readAttributes(final Path file, final LinkOption... options) throws IOException {
+		WatcherMetrics.increment(MetricsRecorder.Counter.STAT_CALLS);
+		return Files.readAttributes(file, BasicFileAttributes.class, options);
+	}
+
+	/**
+	 * Check with a single counted stat call, whether a file exists. Symbolic links are followed.
+	 * @param file File to check
+	 * @return true, when the file exists, false, when it does not exist or its existence can not be determined
+	 */
+	/*package*/ static boolean exists(final Path file) {
+		try {
+			readAttributes(file);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/*package*/ FileTime getLastModified() {
+		return lastModified;
+	}
+
+	/*package*/ long getSize() {
+		return size;
+	}
+
+	/*package*/ Object getFileKey() {
+		return fileKey;
+	}
+
+	/*package*/ boolean isDirectory() {
+		return directory;
+	}
+
+	/**
+	 * A directory only counts as changed, when it was replaced. Its last modified time and size change with every entry, that
+	 * is created or deleted in it, which is not a change of the directory itself.
+	 * @param previous The previous state of the same path
+	 * @return true, when the file changed compared to the previous state
+	 */
+	/*package*/ boolean isChangedFrom(final FileState previous) {
+		if (directory && previous.directory) {
+			return !Objects.equals(fileKey, previous.fileKey);
+		}
+		return !equals(previous);
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof FileState)) {
+			return false;
+		}
+		FileState other = (FileState)o;
+		return size == other.size && directory == other.directory && lastModified.equals(other.lastModified)
+				&& Objects.equals(fileKey, other.fileKey);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(lastModified, size, fileKey, directory);
+	}
+
+	@Override
+	public String toString() {
+		return "FileState{lastModified=" + lastModified + ", size=" + size + ", fileKey=" + fileKey + ", directory=" + directory + "}";
+	}
+}
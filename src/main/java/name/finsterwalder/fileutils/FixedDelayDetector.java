@@ -0,0 +1,56 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Ensure;
+
+import java.nio.file.Path;
+
+
+/**
+ * Counts a file as written completely, when the delay passed without a further change.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:40
+ */
+/*package*/ final class FixedDelayDetector implements WriteCompletionDetector {
+
+	private static final Check COMPLETE = () -> true;
+
+	private final long delayInMs;
+
+	/*package*/ FixedDelayDetector(final long delayInMs) {
+		Ensure.that(delayInMs >= 0, "delay >= 0");
+		this.delayInMs = delayInMs;
+	}
+
+	@Override
+	public long delayInMs() {
+		return delayInMs;
+	}
+
+	@Override
+	public Check newCheck(final Path file) {
+		return COMPLETE;
+	}
+
+	@Override
+	public String toString() {
+		return "fixedDelay(" + delayInMs + "ms)";
+	}
+}
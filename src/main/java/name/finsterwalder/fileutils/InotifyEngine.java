@@ -0,0 +1,331 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Inotify;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static name.finsterwalder.utils.Inotify.*;
+
+
+/**
+ * Process wide engine, that serves all InotifyFileWatchers from a single inotify instance and a single event loop thread.
+ *
+ * A file is reported as soon as its writer closes it (IN_CLOSE_WRITE) or another file is moved onto it (IN_MOVED_TO), so no
+ * grace period is needed. A file, that was created (IN_CREATE) and closed, is reported as created. A file, that was deleted or
+ * moved away (IN_DELETE, IN_MOVED_FROM), is reported as deleted. Directories are only watched for the events, that are needed
+ * for the kinds of changes, that the handlers of their files subscribed to, so the kernel does not queue events, that nobody
+ * is interested in. Directory watches are reference counted like in the {@link WatchServiceEngine}.
+ *
+ * The event loop runs on a platform thread, since it blocks in a native read, which would pin the carrier of a virtual thread.
+ * The inotify instance and the thread are kept for the life of the JVM, once the first file was watched.
+ * When the event queue of the kernel overflowed, every watched file is reported as modified, so its watcher reads it again.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:20
+ */
+/*package*/ final class InotifyEngine {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(InotifyEngine.class);
+	private static final InotifyEngine INSTANCE = new InotifyEngine();
+
+	private final Map<Integer, WatchedDirectory> directoriesByDescriptor = new ConcurrentHashMap<>();
+	private final Map<Path, WatchedDirectory> directoriesByRealPath = new HashMap<>();
+	private Inotify inotify;
+
+	/*package*/ static InotifyEngine getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Callback for changes of a watched file. Called on the event loop thread, so it should return quickly.
+	 */
+	/*package*/ interface Handler {
+		void handle(FileChangeEvent.Kind kind);
+	}
+
+	/**
+	 * Register a handler for changes to a single file. The parent directory of the file is watched, unless it is already
+	 * watched for another file. The events of a watched directory are extended, when the handler subscribes to further kinds.
+	 * @param absoluteFile File to watch. Needs to have a parent directory.
+	 * @param kinds Kinds of changes to call the handler for. After an overflow the handler is called for all kinds.
+	 * @param handler Handler to call from the event loop thread
+	 * @return The registration, that needs to be cancelled, when the file should no longer be watched
+	 * @throws IOException when the directory can not be watched
+	 */
+	/*package*/ synchronized Registration register(final Path absoluteFile, final Set<FileChangeEvent.Kind> kinds,
+												   final Handler handler) throws IOException {
+		if (inotify == null) {
+			inotify = Inotify.open();
+			Thread thread = new Thread(this::run, "InotifyFileWatcher");
+			thread.setDaemon(true);
+			thread.start();
+		}
+		Path realDirectory = absoluteFile.getParent().toRealPath();
+		WatchedDirectory directory = directoriesByRealPath.get(realDirectory);
+		int mask = mask(kinds);
+		if (directory == null) {
+			directory = new WatchedDirectory(realDirectory, inotify.addWatch(realDirectory, mask | IN_ONLYDIR), mask);
+			directoriesByRealPath.put(realDirectory, directory);
+			directoriesByDescriptor.put(directory.watchDescriptor, directory);
+		} else if ((directory.mask | mask) != directory.mask) {
+			watch(directory, directory.mask | mask);
+		}
+		String fileName = absoluteFile.getFileName().toString();
+		Subscription subscription = new Subscription(handler, kinds);
+		directory.add(fileName, subscription);
+		return new Registration(directory, fileName, subscription);
+	}
+
+	private synchronized void unregister(final WatchedDirectory directory, final String fileName, final Subscription subscription) {
+		if (directory.remove(fileName, subscription) && directoriesByRealPath.remove(directory.realDirectory, directory)) {
+			directoriesByDescriptor.remove(directory.watchDescriptor, directory);
+			try {
+				inotify.removeWatch(directory.watchDescriptor);
+			} catch (IOException e) {
+				LOGGER.info("Could not stop watching directory {}.", directory.realDirectory, e);
+			}
+		} else if (directoriesByRealPath.get(directory.realDirectory) == directory && directory.subscribedMask() != directory.mask) {
+			try {
+				watch(directory, directory.subscribedMask());
+			} catch (IOException e) {
+				LOGGER.info("Could not reduce the events watched in directory {}.", directory.realDirectory, e);
+			}
+		}
+	}
+
+	/**
+	 * Replace the events, that a directory is watched for.
+	 */
+	private void watch(final WatchedDirectory directory, final int mask) throws IOException {
+		int watchDescriptor = inotify.addWatch(directory.realDirectory, mask | IN_ONLYDIR);
+		if (watchDescriptor != directory.watchDescriptor) {
+			// the path now leads to another directory
+			try {
+				inotify.removeWatch(watchDescriptor);
+			} catch (IOException e) {
+				LOGGER.info("Could not stop watching directory {}.", directory.realDirectory, e);
+			}
+			throw new IOException("Directory " + directory.realDirectory + " was replaced, while it was watched.");
+		}
+		directory.mask = mask;
+	}
+
+	/**
+	 * @return The inotify events, that need to be watched to report the given kinds of changes
+	 */
+	/*package*/ static int mask(final Set<FileChangeEvent.Kind> kinds) {
+		int mask = 0;
+		if (kinds.contains(FileChangeEvent.Kind.CREATED)) {
+			mask |= IN_CREATE | IN_CLOSE_WRITE | IN_MOVED_TO;
+		}
+		if (kinds.contains(FileChangeEvent.Kind.MODIFIED)) {
+			// IN_CREATE tells a created file apart from a modified one, when it is closed
+			mask |= IN_CREATE | IN_CLOSE_WRITE;
+		}
+		if (kinds.contains(FileChangeEvent.Kind.DELETED)) {
+			mask |= IN_DELETE | IN_MOVED_FROM;
+		}
+		return mask;
+	}
+
+	private synchronized void removeDirectory(final int watchDescriptor) {
+		WatchedDirectory directory = directoriesByDescriptor.remove(watchDescriptor);
+		if (directory != null) {
+			directoriesByRealPath.remove(directory.realDirectory, directory);
+			LOGGER.info("Directory {} can no longer be watched.", directory.realDirectory);
+		}
+	}
+
+	/*package*/ synchronized int watchedDirectoryCount() {
+		return directoriesByRealPath.size();
+	}
+
+	private void run() {
+		try {
+			while (inotify.read(this::event)) {
+				// the events were passed to event()
+			}
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Reading inotify events failed. Changes are no longer reported.", e);
+		}
+	}
+
+	private void event(final int watchDescriptor, final int mask, final String name) {
+		WatcherMetrics.increment(MetricsRecorder.Counter.EVENTS_RECEIVED);
+		if ((mask & IN_Q_OVERFLOW) != 0) {
+			WatcherMetrics.increment(MetricsRecorder.Counter.OVERFLOWS);
+			LOGGER.info("inotify events were lost. Reporting all watched files as modified.");
+			for (WatchedDirectory directory : directoriesByDescriptor.values()) {
+				directory.overflowed();
+			}
+		} else if ((mask & IN_IGNORED) != 0) {
+			removeDirectory(watchDescriptor);
+		} else if (name != null) {
+			WatchedDirectory directory = directoriesByDescriptor.get(watchDescriptor);
+			if (directory != null) {
+				directory.event(mask, name);
+			}
+		}
+	}
+
+	/**
+	 * Handle for a registered handler.
+	 */
+	/*package*/ final class Registration {
+		private final WatchedDirectory directory;
+		private final String fileName;
+		private final Subscription subscription;
+		private boolean cancelled;
+
+		private Registration(final WatchedDirectory directory, final String fileName, final Subscription subscription) {
+			this.directory = directory;
+			this.fileName = fileName;
+			this.subscription = subscription;
+		}
+
+		/**
+		 * Stop calling the handler. Calling cancel more than once has no further effect.
+		 */
+		/*package*/ void cancel() {
+			synchronized (InotifyEngine.this) {
+				if (!cancelled) {
+					cancelled = true;
+					unregister(directory, fileName, subscription);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A handler and the kinds of changes it subscribed to.
+	 */
+	private static final class Subscription {
+		private final Handler handler;
+		private final Set<FileChangeEvent.Kind> kinds;
+
+		private Subscription(final Handler handler, final Set<FileChangeEvent.Kind> kinds) {
+			this.handler = handler;
+			this.kinds = EnumSet.copyOf(kinds);
+		}
+	}
+
+	/**
+	 * A watched directory with the subscriptions of the watched files inside of it. The number of subscriptions is the reference
+	 * count of the watch.
+	 */
+	private static final class WatchedDirectory {
+		private final Path realDirectory;
+		private final int watchDescriptor;
+		private final Map<String, List<Subscription>> subscriptionsByFileName = new ConcurrentHashMap<>();
+		private final Set<String> createdFileNames = ConcurrentHashMap.newKeySet();
+		/** The events, the directory is watched for. Guarded by the InotifyEngine. */
+		private int mask;
+
+		private WatchedDirectory(final Path realDirectory, final int watchDescriptor, final int mask) {
+			this.realDirectory = realDirectory;
+			this.watchDescriptor = watchDescriptor;
+			this.mask = mask;
+		}
+
+		private void add(final String fileName, final Subscription subscription) {
+			subscriptionsByFileName.computeIfAbsent(fileName, f -> new CopyOnWriteArrayList<>()).add(subscription);
+		}
+
+		/**
+		 * @return true, when the last subscription was removed
+		 */
+		private boolean remove(final String fileName, final Subscription subscription) {
+			List<Subscription> subscriptions = subscriptionsByFileName.get(fileName);
+			if (subscriptions != null && subscriptions.remove(subscription) && subscriptions.isEmpty()) {
+				subscriptionsByFileName.remove(fileName);
+				createdFileNames.remove(fileName);
+			}
+			return subscriptionsByFileName.isEmpty();
+		}
+
+		/**
+		 * @return The events needed for the kinds of changes of all subscriptions
+		 */
+		private int subscribedMask() {
+			int subscribedMask = 0;
+			for (List<Subscription> subscriptions : subscriptionsByFileName.values()) {
+				for (Subscription subscription : subscriptions) {
+					subscribedMask |= mask(subscription.kinds);
+				}
+			}
+			return subscribedMask;
+		}
+
+		private void event(final int mask, final String fileName) {
+			List<Subscription> subscriptions = subscriptionsByFileName.get(fileName);
+			if (subscriptions == null) {
+				return;
+			}
+			FileChangeEvent.Kind kind;
+			if ((mask & IN_CREATE) != 0) {
+				// reported, when the writer closes the file
+				createdFileNames.add(fileName);
+				return;
+			} else if ((mask & IN_CLOSE_WRITE) != 0) {
+				kind = createdFileNames.remove(fileName) ? FileChangeEvent.Kind.CREATED : FileChangeEvent.Kind.MODIFIED;
+			} else if ((mask & IN_MOVED_TO) != 0) {
+				createdFileNames.remove(fileName);
+				kind = FileChangeEvent.Kind.CREATED;
+			} else if ((mask & (IN_DELETE | IN_MOVED_FROM)) != 0) {
+				createdFileNames.remove(fileName);
+				kind = FileChangeEvent.Kind.DELETED;
+			} else {
+				return;
+			}
+			for (Subscription subscription : subscriptions) {
+				if (subscription.kinds.contains(kind)) {
+					handle(subscription, kind, fileName);
+				}
+			}
+		}
+
+		private void overflowed() {
+			for (Map.Entry<String, List<Subscription>> entry : subscriptionsByFileName.entrySet()) {
+				for (Subscription subscription : entry.getValue()) {
+					// the watcher reads the file again and finds out the actual kind
+					handle(subscription, FileChangeEvent.Kind.MODIFIED, entry.getKey());
+				}
+			}
+		}
+
+		private void handle(final Subscription subscription, final FileChangeEvent.Kind kind, final String fileName) {
+			try {
+				subscription.handler.handle(kind);
+			} catch (RuntimeException e) {
+				LOGGER.warn("Could not handle change of file {}.", realDirectory.resolve(fileName), e);
+			}
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Ensure;
+import name.finsterwalder.utils.Inotify;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Set;
+
+
+/**
+ * Watch a single file for changes with inotify on Linux. Unlike the {@link NioFileWatcher}, which only learns, that a write
+ * happened, and has to wait for a grace period, the InotifyFileWatcher is told, when the writer closed the file
+ * (IN_CLOSE_WRITE) or when another file was moved onto it (IN_MOVED_TO). So a change is reported the moment it is complete,
+ * without a guessed grace period. A file, that is created, is reported, when its writer closes it.
+ *
+ * The watcher needs Java 22 or later on Linux, since it calls inotify through the Foreign Function &amp; Memory API of the
+ * multi-release layer for Java 22. Use {@link #isSupported()} to check, whether it can be used, and fall back to the
+ * NioFileWatcher otherwise. The JVM should be started with {@code --enable-native-access=ALL-UNNAMED} to avoid a warning about
+ * native access. All InotifyFileWatchers share one inotify instance and one event loop thread (see {@link InotifyEngine}).
+ *
+ * Writers, that keep a file open and write to it repeatedly, are only reported when they close it. Use the NioFileWatcher
+ * for such files. The parent directory of the file needs to exist.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:20
+ */
+public class InotifyFileWatcher implements FileWatcher {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(InotifyFileWatcher.class);
+
+	private final Path absoluteFileToWatch;
+	private final FileChangeEventListener listener;
+	private final Set<FileChangeEvent.Kind> kinds;
+	private final ListenerDispatcher.Channel listenerChannel;
+	private final InotifyEngine.Registration registration;
+	private volatile boolean unwatched;
+
+	/**
+	 * @return true, when inotify is available, i.e. when running on Java 22 or later on Linux
+	 */
+	public static boolean isSupported() {
+		return Inotify.isAvailable();
+	}
+
+	/**
+	 * Create an InotifyFileWatcher, that notifies all kinds of changes.
+	 * @param fileToWatch File to watch
+	 * @param listener Listener to notify about changes
+	 */
+	public InotifyFileWatcher(final Path fileToWatch, final FileChangeEventListener listener) {
+		this(fileToWatch, listener, FileChangeEvent.Kind.all(), ListenerDispatcher.defaultDispatcher());
+	}
+
+	/**
+	 * Create an InotifyFileWatcher, that notifies only the given kinds of changes and calls the listener through the given
+	 * dispatcher.
+	 * @param fileToWatch File to watch
+	 * @param listener Listener to notify about changes
+	 * @param kinds Kinds of changes to notify
+	 * @param dispatcher Dispatcher to call the listener with
+	 * @throws UnsupportedOperationException when inotify is not available, see {@link #isSupported()}
+	 */
+	public InotifyFileWatcher(final Path fileToWatch, final FileChangeEventListener listener, final Set<FileChangeEvent.Kind> kinds,
+							  final ListenerDispatcher dispatcher) {
+		Ensure.notNull(fileToWatch, "fileToWatch");
+		Ensure.notNull(listener, "listener");
+		Ensure.notEmpty(kinds, "kinds");
+		Ensure.notNull(dispatcher, "dispatcher");
+		if (!isSupported()) {
+			throw new UnsupportedOperationException("InotifyFileWatcher requires Java 22 or later on Linux");
+		}
+		this.absoluteFileToWatch = fileToWatch.toAbsolutePath();
+		if (absoluteFileToWatch.getParent() == null) {
+			throw new IllegalArgumentException("File does not have a parent directory: " + absoluteFileToWatch);
+		}
+		this.listener = listener;
+		this.kinds = EnumSet.copyOf(kinds);
+		this.listenerChannel = dispatcher.newChannel();
+		try {
+			registration = InotifyEngine.getInstance().register(absoluteFileToWatch, kinds, this::fireFileChanged);
+		} catch (Exception e) {
+			throw new RuntimeException("Could not initialize file watcher for " + absoluteFileToWatch, e);
+		}
+	}
+
+	/**
+	 * Call the listener through the {@link ListenerDispatcher}.
+	 * @param kind The kind of the change reported by inotify
+	 */
+	private void fireFileChanged(final FileChangeEvent.Kind kind) {
+		listenerChannel.dispatch(absoluteFileToWatch, () -> {
+			if (!unwatched) {
+				FileChangeEvent event = kind == FileChangeEvent.Kind.DELETED ? new FileChangeEvent(kind, absoluteFileToWatch, null)
+						: FileChangeEvent.readLazily(absoluteFileToWatch, kind == FileChangeEvent.Kind.CREATED);
+				if (event.isOneOf(kinds)) {
+					try {
+						listener.fileChanged(event);
+					} catch (RuntimeException e) {
+						LOGGER.warn("FileChangeListener for {} failed.", absoluteFileToWatch, e);
+					}
+				}
+			}
+		});
+	}
+
+	@Override
+	public void unwatch() {
+		unwatched = true;
+		registration.cancel();
+	}
+}
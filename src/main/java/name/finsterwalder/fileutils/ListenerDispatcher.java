@@ -0,0 +1,236 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Ensure;
+import name.finsterwalder.utils.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+
+/**
+ * Hands the notifications of the watchers to the listeners. The watchers decide about a notification while holding their locks
+ * and dispatch it after releasing them, so a slow listener never blocks the detection of changes.
+ *
+ * Every watcher gets its own bounded queue (a {@link Channel}), which is drained by tasks on the Executor of the dispatcher.
+ * The listener of a watcher is therefore never called concurrently and always in the order of the notifications. When the queue
+ * of a watcher is full, the {@link OverflowPolicy} decides what happens.
+ *
+ * The default dispatcher uses the listener Executor of {@link Threads}, which has a fixed number of worker threads, a capacity of {@value #DEFAULT_CAPACITY} (system property
+ * {@value #CAPACITY_PROPERTY}) and the policy COALESCE (system property {@value #OVERFLOW_POLICY_PROPERTY}).
+ * The inline dispatcher calls the listeners right away on the thread, that detected the change, which gives the lowest latency.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 15:30
+ */
+public final class ListenerDispatcher {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ListenerDispatcher.class);
+	public static final int DEFAULT_CAPACITY = 1024;
+	public static final String CAPACITY_PROPERTY = "fileutils.dispatch.capacity";
+	public static final String OVERFLOW_POLICY_PROPERTY = "fileutils.dispatch.overflowPolicy";
+	/** Number of notifications a drain task delivers, before it gives other watchers a chance on a shared Executor. */
+	private static final int MAX_NOTIFICATIONS_PER_DRAIN = 64;
+	private static final ListenerDispatcher INLINE = new ListenerDispatcher();
+
+	/**
+	 * What to do, when a notification is dispatched to a full queue.
+	 */
+	public enum OverflowPolicy {
+		/** Wait until the listener took a notification from the queue. This slows down the detection of changes. */
+		BLOCK,
+		/** Drop the oldest notification in the queue. */
+		DROP_OLDEST,
+		/**
+		 * A notification replaces a queued notification for the same path, even when the queue is not full, so a listener
+		 * only sees the latest change of every path. When the queue is full of different paths, the oldest one is dropped.
+		 */
+		COALESCE
+	}
+
+	private final Executor executor;
+	private final int capacity;
+	private final OverflowPolicy overflowPolicy;
+
+	private ListenerDispatcher() {
+		this.executor = null;
+		this.capacity = 0;
+		this.overflowPolicy = null;
+	}
+
+	/**
+	 * @param executor Executor to call the listeners on
+	 * @param capacity Maximum number of queued notifications per watcher
+	 * @param overflowPolicy What to do, when the queue of a watcher is full
+	 */
+	public ListenerDispatcher(final Executor executor, final int capacity, final OverflowPolicy overflowPolicy) {
+		Ensure.notNull(executor, "executor");
+		Ensure.notNull(overflowPolicy, "overflowPolicy");
+		Ensure.that(capacity > 0, "capacity > 0");
+		this.executor = executor;
+		this.capacity = capacity;
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * @return The dispatcher, that calls listeners right away on the thread, that detected a change
+	 */
+	public static ListenerDispatcher inline() {
+		return INLINE;
+	}
+
+	/**
+	 * @return The dispatcher used by all watchers, that are not given a dispatcher explicitly
+	 */
+	public static ListenerDispatcher defaultDispatcher() {
+		return DefaultDispatcher.INSTANCE;
+	}
+
+	/*package*/ Channel newChannel() {
+		return new Channel();
+	}
+
+	/**
+	 * The queue of a single watcher.
+	 */
+	/*package*/ final class Channel {
+		private final Queue<Notification> queue = new ArrayDeque<>();
+		private final Map<Object, Notification> queuedByKey = new HashMap<>();
+		private boolean draining;
+
+		/**
+		 * Dispatch a notification. Must not be called while holding a lock of the watcher.
+		 * @param key Key to coalesce notifications with, usually the path of the changed file
+		 * @param notification Call of the listener
+		 */
+		/*package*/ void dispatch(final Object key, final Runnable notification) {
+			if (executor == null) {
+				deliver(notification);
+				return;
+			}
+			synchronized (this) {
+				if (overflowPolicy == OverflowPolicy.COALESCE) {
+					Notification queued = queuedByKey.get(key);
+					if (queued != null) {
+						queued.runnable = notification;
+						return;
+					}
+				}
+				while (queue.size() >= capacity) {
+					if (overflowPolicy == OverflowPolicy.BLOCK) {
+						try {
+							wait();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							LOGGER.warn("Interrupted while waiting for a full listener queue. Dropping notification for {}.", key);
+							WatcherMetrics.increment(MetricsRecorder.Counter.NOTIFICATIONS_DROPPED);
+							return;
+						}
+					} else {
+						Notification dropped = queue.poll();
+						queuedByKey.remove(dropped.key, dropped);
+						WatcherMetrics.notificationDequeued();
+						WatcherMetrics.increment(MetricsRecorder.Counter.NOTIFICATIONS_DROPPED);
+						LOGGER.warn("Listener queue is full. Dropping notification for {}.", dropped.key);
+					}
+				}
+				Notification queued = new Notification(key, notification);
+				queue.add(queued);
+				WatcherMetrics.notificationQueued();
+				if (overflowPolicy == OverflowPolicy.COALESCE) {
+					queuedByKey.put(key, queued);
+				}
+				if (draining) {
+					return;
+				}
+				draining = true;
+			}
+			startDraining();
+		}
+
+		private void startDraining() {
+			try {
+				executor.execute(this::drain);
+			} catch (RejectedExecutionException e) {
+				synchronized (this) {
+					draining = false;
+				}
+				LOGGER.warn("Could not dispatch notifications to the listener.", e);
+			}
+		}
+
+		private void drain() {
+			for (int i = 0; i < MAX_NOTIFICATIONS_PER_DRAIN; i++) {
+				Runnable notification;
+				synchronized (this) {
+					Notification queued = queue.poll();
+					if (queued == null) {
+						draining = false;
+						return;
+					}
+					queuedByKey.remove(queued.key, queued);
+					WatcherMetrics.notificationDequeued();
+					notification = queued.runnable;
+					notifyAll();
+				}
+				deliver(notification);
+			}
+			startDraining();
+		}
+	}
+
+	/**
+	 * Run a notification and record its duration, which includes reading the attributes of the file for the event.
+	 */
+	private static void deliver(final Runnable notification) {
+		long startNanos = System.nanoTime();
+		try {
+			notification.run();
+		} catch (RuntimeException e) {
+			LOGGER.warn("Listener failed.", e);
+		}
+		WatcherMetrics.recordSince(MetricsRecorder.Timer.LISTENER_DURATION, startNanos);
+		WatcherMetrics.increment(MetricsRecorder.Counter.NOTIFICATIONS);
+	}
+
+	private static final class Notification {
+		private final Object key;
+		private Runnable runnable;
+
+		private Notification(final Object key, final Runnable runnable) {
+			this.key = key;
+			this.runnable = runnable;
+		}
+	}
+
+	/**
+	 * Lazily created dispatcher, that is shared by all watchers by default.
+	 */
+	private static final class DefaultDispatcher {
+		private static final ListenerDispatcher INSTANCE = new ListenerDispatcher(Threads.listenerExecutor(),
+				Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY),
+				OverflowPolicy.valueOf(System.getProperty(OVERFLOW_POLICY_PROPERTY, OverflowPolicy.COALESCE.name())));
+	}
+}
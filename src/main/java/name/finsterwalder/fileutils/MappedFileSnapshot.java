@@ -0,0 +1,132 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Ensure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Keeps the current content of a watched file mapped into memory, so readers can access a large file without copying it onto
+ * the heap on every reload. Register it as the listener of a watcher of the file. On every change the new version of the file
+ * is mapped and swapped in atomically.
+ *
+ * Readers get the current version with a single volatile read and no locking. Every call of {@link #current()} returns a new
+ * read only view with its own position, that keeps the mapping of its version alive. A replaced mapping is released by the
+ * garbage collector, when no reader references it anymore, so it is never unmapped while a reader still uses it.
+ *
+ * The file must be replaced atomically, e.g. by writing a temporary file and renaming it onto the watched file. Then the old
+ * mapping keeps the old content. When the mapped file is modified in place, readers see partial writes and a truncated file
+ * makes readers of the old mapping fail. Files larger than 2GB can not be mapped into a single buffer.
+ *
+ * <pre>
+ * MappedFileSnapshot lookup = new MappedFileSnapshot(lookupFile);
+ * new NioFileWatcher(lookupFile, lookup, 1000, FileChangeEvent.Kind.all());
+ * ...
+ * ByteBuffer data = lookup.current();
+ * </pre>
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 16:40
+ */
+public final class MappedFileSnapshot implements FileChangeEventListener {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MappedFileSnapshot.class);
+
+	private final Path file;
+	private volatile Mapping mapping;
+
+	/**
+	 * Map the current content of the file.
+	 * @param file File to map
+	 */
+	public MappedFileSnapshot(final Path file) {
+		Ensure.notNull(file, "file");
+		this.file = file.toAbsolutePath();
+		try {
+			this.mapping = map();
+		} catch (IOException e) {
+			throw new RuntimeException("Could not map " + this.file, e);
+		}
+	}
+
+	/**
+	 * @return A read only view of the current content of the file. The view stays valid, when the file changes.
+	 */
+	public ByteBuffer current() {
+		return mapping.buffer.duplicate();
+	}
+
+	/**
+	 * @return The number of times the content was mapped again, starting with 0
+	 */
+	public long version() {
+		return mapping.version;
+	}
+
+	/**
+	 * Map the new content of the file. The old content stays mapped, when the new content can not be mapped or the file was
+	 * deleted.
+	 * @param event Change of the file
+	 */
+	@Override
+	public void fileChanged(final FileChangeEvent event) {
+		if (event.getKind() == FileChangeEvent.Kind.DELETED) {
+			LOGGER.info("{} was deleted. Keeping the last mapped content.", file);
+			return;
+		}
+		try {
+			remap();
+		} catch (IOException e) {
+			LOGGER.warn("Could not map {}. Keeping the last mapped content.", file, e);
+		}
+	}
+
+	private synchronized void remap() throws IOException {
+		mapping = map();
+	}
+
+	private Mapping map() throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			Mapping previous = mapping;
+			return new Mapping(buffer.asReadOnlyBuffer(), previous == null ? 0 : previous.version + 1);
+		}
+	}
+
+	/**
+	 * One mapped version of the file.
+	 */
+	private static final class Mapping {
+		private final ByteBuffer buffer;
+		private final long version;
+
+		private Mapping(final ByteBuffer buffer, final long version) {
+			this.buffer = buffer;
+			this.version = version;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+
+/**
+ * Service provider interface to bridge the metrics of the watchers to another metrics system. Recorders are found with the
+ * {@link java.util.ServiceLoader} or added with {@link WatcherMetrics#addRecorder(MetricsRecorder)}.
+ *
+ * The methods are called on the hot paths of the watchers, often on the event loop thread. They should not block and should not
+ * allocate. Counters and timers are identified by enum constants, so recording does not create any objects.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:50
+ */
+public interface MetricsRecorder {
+
+	/**
+	 * Events counted by the watchers.
+	 */
+	enum Counter {
+		/** An event was received from the operating system */
+		EVENTS_RECEIVED,
+		/** A change was merged into a notification, whose grace period was already running */
+		EVENTS_DEBOUNCED,
+		/** The operating system dropped events, because its queue overflowed */
+		OVERFLOWS,
+		/** A PollingFileWatcher polled its file */
+		POLLS,
+		/** The attributes of a file or the entries of a directory were read from the file system */
+		STAT_CALLS,
+		/** A notification was delivered to a listener */
+		NOTIFICATIONS,
+		/** A notification was dropped, because the queue of the listener was full */
+		NOTIFICATIONS_DROPPED
+	}
+
+	/**
+	 * Durations measured by the watchers.
+	 */
+	enum Timer {
+		/** From the first detection of a change to the call of the listener, including the grace period */
+		EVENT_TO_NOTIFICATION,
+		/** Delivery of a single notification to a listener */
+		LISTENER_DURATION,
+		/** A single poll of a PollingFileWatcher */
+		POLL_DURATION
+	}
+
+	/**
+	 * Count an event.
+	 * @param counter The counter to increment
+	 */
+	void increment(Counter counter);
+
+	/**
+	 * Record a duration.
+	 * @param timer The timer to record the duration for
+	 * @param durationInNanos The duration in ns
+	 */
+	void record(Timer timer, long durationInNanos);
+}
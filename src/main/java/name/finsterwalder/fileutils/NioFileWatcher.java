@@ -17,27 +17,26 @@
 
 package name.finsterwalder.fileutils;
 
+import name.finsterwalder.utils.Debouncer;
 import name.finsterwalder.utils.Ensure;
-import name.finsterwalder.utils.SimpleDateTimeProvider;
-import name.finsterwalder.utils.TimeProvider;
+import name.finsterwalder.utils.HashedWheelTimer;
+import name.finsterwalder.utils.ScheduledExecutor;
+import name.finsterwalder.utils.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.FileSystems;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.WatchEvent;
-import java.nio.file.WatchKey;
-import java.nio.file.WatchService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
-import static java.nio.file.StandardWatchEventKinds.*;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
 
 
 /**
@@ -54,6 +53,20 @@ import static java.nio.file.StandardWatchEventKinds.*;
  * The NioFileWatcher allways watches for all changes in the parent directory of the file to watch, since only directories can be
  * monitored. Changes to other files are ignored and not notified of course.
  *
+ * All NioFileWatchers share one WatchService per FileSystem and one event loop thread (see {@link WatchServiceEngine}).
+ * Watching many files therefore does not use up operating system resources like inotify instances. The grace period is timed with
+ * a shared {@link HashedWheelTimer} by default, which copes with bursts of many events. Another ScheduledExecutor can be given
+ * to the constructor. The grace period is debounced without locks: an event only moves the deadline forward and at most one
+ * timer is armed per watched file, so a storm of writes costs the event loop a constant amount of work per event.
+ *
+ * Instead of a fixed grace period a {@link WriteCompletionDetector} can decide, when a changed file is written completely.
+ * Its checks read the file, so they run on the worker threads of the listeners ({@link Threads#listenerExecutor()}) and not
+ * on the shared timer, where a slow file system would delay the grace periods of all other watchers.
+ *
+ * The listener is called through a {@link ListenerDispatcher} outside of any lock of the watcher.
+ * A {@link FileChangeEventListener} receives the kind of the change and the attributes of the file, which are read once after the
+ * grace period, when the listener asks for them. It can subscribe to a subset of the kinds, so the directory is only registered for the events needed.
+ *
  * @author Malte Finsterwalder
  * @since 2013-09-04 18:18
  */
@@ -62,14 +75,21 @@ public class NioFileWatcher implements FileWatcher {
 	private static final Logger LOGGER = LoggerFactory.getLogger(NioFileWatcher.class);
 	private static final int DEFAULT_GRACE_PERIOD = 1000;
 
-	private final Object lock = new Object();
-	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+	private final FileChangeEventListener listener;
+	private final Set<FileChangeEvent.Kind> kinds;
+	private final Debouncer debouncer;
+	private final WriteCompletionDetector writeCompletionDetector;
+	private volatile WriteCompletionDetector.Check writeCompletionCheck;
+	private final Executor writeCompletionCheckExecutor = Threads.listenerExecutor();
+	private final AtomicBoolean checkingWriteCompletion = new AtomicBoolean();
+	private volatile boolean checkWriteCompletionAgain;
+	private final ListenerDispatcher.Channel listenerChannel;
 	private PollingFileWatcher pollingFileWatcher;
-	private WatchService watchService;
+	private volatile WatchServiceEngine.Registration registration;
+	private volatile boolean unwatched;
 	private final Path absoluteFileToWatch;
-	private volatile long lastChanged;
-	private volatile long lastProcessed;
-	private final TimeProvider timeProvider;
+	private final AtomicReference<WatchEvent.Kind<?>> firstKind = new AtomicReference<>();
+	private volatile long firstEventNanos;
 
 	/**
 	 * Create a NioFileWatcher with a default grace period of 1000ms.
@@ -77,7 +97,7 @@ public class NioFileWatcher implements FileWatcher {
 	 * @param fileChangeListener Listener to notify about changes
 	 */
 	public NioFileWatcher(final String filenameOfFileToWatch, final FileChangeListener fileChangeListener) {
-		this(Paths.get(filenameOfFileToWatch), fileChangeListener, DEFAULT_GRACE_PERIOD, new SimpleDateTimeProvider());
+		this(Paths.get(filenameOfFileToWatch), fileChangeListener, DEFAULT_GRACE_PERIOD);
 	}
 
 	/**
@@ -86,7 +106,7 @@ public class NioFileWatcher implements FileWatcher {
 	 * @param fileChangeListener Listener to notify about changes
 	 */
 	public NioFileWatcher(final File fileToWatch, final FileChangeListener fileChangeListener) {
-		this(fileToWatch.toPath(), fileChangeListener, DEFAULT_GRACE_PERIOD, new SimpleDateTimeProvider());
+		this(fileToWatch.toPath(), fileChangeListener, DEFAULT_GRACE_PERIOD);
 	}
 
 	/**
@@ -95,7 +115,7 @@ public class NioFileWatcher implements FileWatcher {
 	 * @param fileChangeListener Listener to notify about changes
 	 */
 	public NioFileWatcher(final Path fileToWatch, final FileChangeListener fileChangeListener) {
-		this(fileToWatch, fileChangeListener, DEFAULT_GRACE_PERIOD, new SimpleDateTimeProvider());
+		this(fileToWatch, fileChangeListener, DEFAULT_GRACE_PERIOD);
 	}
 
 	/**
@@ -104,7 +124,7 @@ public class NioFileWatcher implements FileWatcher {
 	 * @param fileChangeListener Listener to notify about changes
 	 */
 	public NioFileWatcher(final String filenameOfFileToWatch, final FileChangeListener fileChangeListener, long gracePeriodInMs) {
-		this(FileSystems.getDefault().getPath(filenameOfFileToWatch), fileChangeListener, gracePeriodInMs, new SimpleDateTimeProvider());
+		this(FileSystems.getDefault().getPath(filenameOfFileToWatch), fileChangeListener, gracePeriodInMs);
 	}
 
 	/**
@@ -113,7 +133,7 @@ public class NioFileWatcher implements FileWatcher {
 	 * @param fileChangeListener Listener to notify about changes
 	 */
 	public NioFileWatcher(final File fileToWatch, final FileChangeListener fileChangeListener, long gracePeriodInMs) {
-		this(fileToWatch.toPath(), fileChangeListener, gracePeriodInMs, new SimpleDateTimeProvider());
+		this(fileToWatch.toPath(), fileChangeListener, gracePeriodInMs);
 	}
 
 	/**
@@ -122,31 +142,127 @@ public class NioFileWatcher implements FileWatcher {
 	 * @param fileChangeListener Listener to notify about changes
 	 */
 	public NioFileWatcher(final Path fileToWatch, final FileChangeListener fileChangeListener, long gracePeriodInMs) {
-		this(fileToWatch, fileChangeListener, gracePeriodInMs, new SimpleDateTimeProvider());
+		this(fileToWatch, fileChangeListener, gracePeriodInMs, WatchServiceEngine.getInstance().debounceTimer());
+	}
+
+	/**
+	 * Create a NioFileWatcher with the given grace period, that is timed with the given ScheduledExecutor.
+	 * @param fileToWatch File to watch
+	 * @param fileChangeListener Listener to notify about changes
+	 * @param gracePeriodInMs Grace period in ms to wait after a change in the file before sending an update to the FileChangeListener
+	 * @param debounceTimer ScheduledExecutor to time the grace period. It may be shared between many NioFileWatchers.
+	 */
+	public NioFileWatcher(final Path fileToWatch, final FileChangeListener fileChangeListener, long gracePeriodInMs, final ScheduledExecutor debounceTimer) {
+		this(fileToWatch, new FileChangeListenerAdapter(fileChangeListener), gracePeriodInMs, FileChangeEvent.Kind.all(), debounceTimer);
+	}
+
+	/**
+	 * Create a NioFileWatcher with a default grace period of 1000ms, that notifies all kinds of changes.
+	 * @param fileToWatch File to watch
+	 * @param listener Listener to notify about changes
+	 */
+	public NioFileWatcher(final Path fileToWatch, final FileChangeEventListener listener) {
+		this(fileToWatch, listener, DEFAULT_GRACE_PERIOD, FileChangeEvent.Kind.all());
+	}
+
+	/**
+	 * Create a NioFileWatcher with the given grace period, that notifies only the given kinds of changes.
+	 * The WatchService only reports the corresponding events, so other changes do not cause any work. Note that a file, which is
+	 * replaced by moving another file onto it, is reported as CREATED.
+	 * @param fileToWatch File to watch
+	 * @param listener Listener to notify about changes
+	 * @param gracePeriodInMs Grace period in ms to wait after a change in the file before notifying the listener
+	 * @param kinds Kinds of changes to notify
+	 */
+	public NioFileWatcher(final Path fileToWatch, final FileChangeEventListener listener, long gracePeriodInMs, final Set<FileChangeEvent.Kind> kinds) {
+		this(fileToWatch, listener, gracePeriodInMs, kinds, WatchServiceEngine.getInstance().debounceTimer());
+	}
+
+	/**
+	 * Create a NioFileWatcher with the given grace period, that notifies only the given kinds of changes and is timed with the
+	 * given ScheduledExecutor.
+	 * @param fileToWatch File to watch
+	 * @param listener Listener to notify about changes
+	 * @param gracePeriodInMs Grace period in ms to wait after a change in the file before notifying the listener
+	 * @param kinds Kinds of changes to notify
+	 * @param debounceTimer ScheduledExecutor to time the grace period. It may be shared between many NioFileWatchers.
+	 */
+	public NioFileWatcher(final Path fileToWatch, final FileChangeEventListener listener, long gracePeriodInMs, final Set<FileChangeEvent.Kind> kinds,
+						  final ScheduledExecutor debounceTimer) {
+		this(fileToWatch, listener, gracePeriodInMs, kinds, debounceTimer, ListenerDispatcher.defaultDispatcher());
 	}
 
-	/*package*/ NioFileWatcher(final Path fileToWatch, final FileChangeListener fileChangeListener, final long gracePeriodInMs, TimeProvider timeProvider) {
+	/**
+	 * Create a NioFileWatcher with the given grace period, that notifies only the given kinds of changes, is timed with the
+	 * given ScheduledExecutor and calls the listener through the given dispatcher.
+	 * @param fileToWatch File to watch
+	 * @param listener Listener to notify about changes
+	 * @param gracePeriodInMs Grace period in ms to wait after a change in the file before notifying the listener
+	 * @param kinds Kinds of changes to notify
+	 * @param debounceTimer ScheduledExecutor to time the grace period. It may be shared between many NioFileWatchers.
+	 * @param dispatcher Dispatcher to call the listener with
+	 */
+	public NioFileWatcher(final Path fileToWatch, final FileChangeEventListener listener, long gracePeriodInMs, final Set<FileChangeEvent.Kind> kinds,
+						  final ScheduledExecutor debounceTimer, final ListenerDispatcher dispatcher) {
+		this(fileToWatch, listener, WriteCompletionDetector.fixedDelay(Math.max(0, gracePeriodInMs)), kinds, debounceTimer, dispatcher);
+	}
+
+	/**
+	 * Create a NioFileWatcher, that notifies only the given kinds of changes, once the WriteCompletionDetector reports the
+	 * file as written completely.
+	 * @param fileToWatch File to watch
+	 * @param listener Listener to notify about changes
+	 * @param writeCompletionDetector Decides, when a changed file is written completely
+	 * @param kinds Kinds of changes to notify
+	 */
+	public NioFileWatcher(final Path fileToWatch, final FileChangeEventListener listener, final WriteCompletionDetector writeCompletionDetector,
+						  final Set<FileChangeEvent.Kind> kinds) {
+		this(fileToWatch, listener, writeCompletionDetector, kinds, WatchServiceEngine.getInstance().debounceTimer(), ListenerDispatcher.defaultDispatcher());
+	}
+
+	/**
+	 * Create a NioFileWatcher, that notifies only the given kinds of changes, once the WriteCompletionDetector reports the
+	 * file as written completely. The delays of the detector are timed with the given ScheduledExecutor and the listener is
+	 * called through the given dispatcher.
+	 * @param fileToWatch File to watch
+	 * @param listener Listener to notify about changes
+	 * @param writeCompletionDetector Decides, when a changed file is written completely
+	 * @param kinds Kinds of changes to notify
+	 * @param debounceTimer ScheduledExecutor to time the delays. It may be shared between many NioFileWatchers.
+	 * @param dispatcher Dispatcher to call the listener with
+	 */
+	public NioFileWatcher(final Path fileToWatch, final FileChangeEventListener listener, final WriteCompletionDetector writeCompletionDetector,
+						  final Set<FileChangeEvent.Kind> kinds, final ScheduledExecutor debounceTimer, final ListenerDispatcher dispatcher) {
 		Ensure.notNull(fileToWatch, "fileToWatch");
-		Ensure.notNull(fileChangeListener, "fileChangeListener");
-		Ensure.notNull(timeProvider, "timeProvider");
-		this.timeProvider = timeProvider;
+		Ensure.notNull(listener, "listener");
+		Ensure.notEmpty(kinds, "kinds");
+		Ensure.notNull(debounceTimer, "debounceTimer");
+		Ensure.notNull(dispatcher, "dispatcher");
+		Ensure.notNull(writeCompletionDetector, "writeCompletionDetector");
+		this.listener = listener;
+		this.listenerChannel = dispatcher.newChannel();
+		this.kinds = EnumSet.copyOf(kinds);
+		this.writeCompletionDetector = writeCompletionDetector;
+		this.debouncer = new Debouncer(debounceTimer, writeCompletionDetector.delayInMs(), this::gracePeriodPassed);
 		absoluteFileToWatch = fileToWatch.toAbsolutePath();
 		final Path directoryPath = absoluteFileToWatch.getParent();
 		if (directoryPath == null) {
 			throw new IllegalArgumentException("File does not have a parent directory: " + absoluteFileToWatch);
 		}
-		if (Files.exists(directoryPath)) {
-			initWatcher(directoryPath, fileChangeListener, gracePeriodInMs);
+		if (FileState.exists(directoryPath)) {
+			initWatcher();
 		} else {
 			pollingFileWatcher = new PollingFileWatcher(absoluteFileToWatch, new FileChangeListener() {
 				@Override
 				public void fileChanged() {
 					pollingFileWatcher.unwatch();
 					pollingFileWatcher = null;
-					initWatcher(directoryPath, fileChangeListener, gracePeriodInMs);
-					fileChangeListener.fileChanged();
+					if (!unwatched) {
+						initWatcher();
+						fireFileChanged(ENTRY_CREATE, System.nanoTime());
+					}
 				}
-			}, PollingFileWatcher.DEFAULT_RELOAD_INTERVAL_IN_MS, gracePeriodInMs);
+			}, PollingFileWatcher.DEFAULT_RELOAD_INTERVAL_IN_MS, writeCompletionDetector.delayInMs());
 		}
 	}
 
@@ -156,77 +272,123 @@ public class NioFileWatcher implements FileWatcher {
 		super.finalize();
 	}
 
-	private void initWatcher(final Path directoryPath, final FileChangeListener fileChangeListener, final long gracePeriod) {
-		final Path filenamePath = absoluteFileToWatch.getFileName();
+	private void initWatcher() {
 		try {
-			watchService = directoryPath.getFileSystem().newWatchService();
-			directoryPath.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
-			new Thread() {
-				@Override
-				public void run() {
-					boolean valid = true;
-					try {
-						while (valid && !isInterrupted()) {
-							WatchKey takenWatchKey = watchService.take();
-							for (WatchEvent<?> event : takenWatchKey.pollEvents()) {
-								if (OVERFLOW != event.kind()) {
-									Path context = (Path)event.context();
-									if (filenamePath.equals(context)) {
-										notifyChangeListener(fileChangeListener, gracePeriod);
-									}
-								}
-							}
-							valid = takenWatchKey.reset();
-						}
-					} catch (InterruptedException e) {
-						Thread.currentThread().interrupt();
-					} catch (ClosedWatchServiceException e) {
-						// nothing to do, since polling loop is already cancelled
-					} finally {
-						close(watchService, absoluteFileToWatch);
-					}
+			registration = WatchServiceEngine.getInstance().register(absoluteFileToWatch, FileChangeEvent.Kind.toWatchEventKinds(kinds),
+					(kind, file) -> notifyChangeListener(kind));
+		} catch (Exception e) {
+			throw new RuntimeException("Could not initialize file watcher for " + absoluteFileToWatch.toAbsolutePath(), e);
+		}
+		if (unwatched) {
+			registration.cancel();
+		}
+	}
+
+	private void notifyChangeListener(final WatchEvent.Kind<?> kind) {
+		if (firstKind.get() == null && firstKind.compareAndSet(null, kind)) {
+			firstEventNanos = System.nanoTime();
+		} else {
+			WatcherMetrics.increment(MetricsRecorder.Counter.EVENTS_DEBOUNCED);
+		}
+		debouncer.trigger();
+	}
+
+	/**
+	 * Called on the timer thread. A check, that reads the file, is passed to a worker.
+	 */
+	private void gracePeriodPassed() {
+		if (unwatched || writeCompletionDetector.delayInMs() <= 0 || writeCompletionDetector instanceof FixedDelayDetector) {
+			writeCompleted();
+		} else if (checkingWriteCompletion.compareAndSet(false, true)) {
+			writeCompletionCheckExecutor.execute(this::checkWriteCompletion);
+		} else {
+			// A check is still running. Its result is outdated and it checks again.
+			checkWriteCompletionAgain = true;
+		}
+	}
+
+	/**
+	 * Called on a worker. The Check is never called concurrently, since only one worker checks at a time.
+	 */
+	private void checkWriteCompletion() {
+		while (true) {
+			checkWriteCompletionAgain = false;
+			boolean complete = unwatched || isWriteComplete();
+			checkingWriteCompletion.set(false);
+			if (!checkWriteCompletionAgain) {
+				if (complete) {
+					writeCompleted();
+				} else {
+					// Check again after the delay
+					debouncer.trigger();
 				}
+				return;
+			}
+			if (!checkingWriteCompletion.compareAndSet(false, true)) {
+				// the timer started another check in the meantime
+				return;
+			}
+		}
+	}
 
-				private void notifyChangeListener(final FileChangeListener fileChangeListener, final long gracePeriod) {
-					if (gracePeriod > 0) {
-						final long changeTimestamp = timeProvider.getTime();
-						synchronized (lock) {
-							lastChanged = changeTimestamp;
-						}
-						scheduler.schedule(() -> {
-                            synchronized (lock) {
-                                if (changeTimestamp == lastChanged && lastProcessed < lastChanged) {
-                                    lastProcessed = lastChanged;
-                                    fileChangeListener.fileChanged();
-                                }
-                            }
-                        }, gracePeriod, TimeUnit.MILLISECONDS);
-					} else {
-						fileChangeListener.fileChanged();
+	private boolean isWriteComplete() {
+		WriteCompletionDetector.Check check = writeCompletionCheck;
+		if (check == null) {
+			check = writeCompletionCheck = writeCompletionDetector.newCheck(absoluteFileToWatch);
+		}
+		boolean complete;
+		try {
+			complete = check.isComplete();
+		} catch (RuntimeException e) {
+			LOGGER.warn("Checking the write of {} failed. The change is notified.", absoluteFileToWatch, e);
+			complete = true;
+		}
+		if (complete) {
+			writeCompletionCheck = null;
+		}
+		return complete;
+	}
+
+	private void writeCompleted() {
+		long eventNanos = firstEventNanos;
+		WatchEvent.Kind<?> kind = firstKind.getAndSet(null);
+		if (!unwatched) {
+			fireFileChanged(kind, eventNanos);
+		}
+	}
+
+	/**
+	 * Call the listener through the {@link ListenerDispatcher}.
+	 * @param firstKind the kind of the first event since the last notification
+	 * @param eventNanos the time of the first event since the last notification
+	 */
+	private void fireFileChanged(final WatchEvent.Kind<?> firstKind, final long eventNanos) {
+		listenerChannel.dispatch(absoluteFileToWatch, () -> {
+			if (!unwatched) {
+				WatcherMetrics.recordSince(MetricsRecorder.Timer.EVENT_TO_NOTIFICATION, eventNanos);
+				FileChangeEvent event = FileChangeEvent.readLazily(absoluteFileToWatch, firstKind == ENTRY_CREATE);
+				if (event.isOneOf(kinds)) {
+					try {
+						listener.fileChanged(event);
+					} catch (RuntimeException e) {
+						LOGGER.warn("FileChangeListener for {} failed.", absoluteFileToWatch, e);
 					}
 				}
-			}.start();
-		} catch (Exception e) {
-			throw new RuntimeException("Could not initialize file watcher for " + absoluteFileToWatch.toAbsolutePath(), e);
-		}
+			}
+		});
 	}
 
 	@Override
 	public void unwatch() {
-		close(watchService, absoluteFileToWatch);
+		unwatched = true;
+		debouncer.cancel();
+		WatchServiceEngine.Registration currentRegistration = registration;
+		if (currentRegistration != null) {
+			currentRegistration.cancel();
+		}
 		if (pollingFileWatcher != null) {
 			pollingFileWatcher.unwatch();
 			pollingFileWatcher = null;
 		}
 	}
-
-	private static void close(final WatchService watchService, final Path fileToWatch) {
-		if (watchService != null) {
-			try {
-				watchService.close();
-			} catch (IOException e) {
-				LOGGER.info("Could not close file watcher for {}", fileToWatch.toAbsolutePath(), e);
-			}
-		}
-	}
 }
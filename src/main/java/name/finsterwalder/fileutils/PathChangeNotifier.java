@@ -0,0 +1,204 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Debouncer;
+import name.finsterwalder.utils.Ensure;
+import name.finsterwalder.utils.ScheduledExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+
+
+/**
+ * Notifies a FileChangeEventListener about changed files of the directory watchers. Every file is notified after a grace period,
+ * in which it did not change again. The grace period is tracked for every file separately with its own lock-free {@link Debouncer}. The kind of the change is derived
+ * from the first event of the grace period and the existence of the file at its end.
+ *
+ * A FileChangeBatchListener is notified once, when the grace period passed without any change in the whole watcher, with all
+ * files changed since the last notification. Every file is contained only once.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 13:40
+ */
+/*package*/ final class PathChangeNotifier {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PathChangeNotifier.class);
+
+	private static final Change CREATED = new Change(true);
+	private static final Change MODIFIED = new Change(false);
+
+	private final FileChangeEventListener listener;
+	private final FileChangeBatchListener batchListener;
+	private final Debouncer batchDebouncer;
+	private final long gracePeriodInMs;
+	private final ScheduledExecutor debounceTimer;
+	private final ListenerDispatcher.Channel listenerChannel;
+	private final Map<Path, Change> pendingChanges = new ConcurrentHashMap<>();
+	private final Map<Path, PendingFile> pendingFiles = new ConcurrentHashMap<>();
+	private volatile boolean stopped;
+
+	/*package*/ PathChangeNotifier(final FileChangeEventListener listener, final long gracePeriodInMs, final ScheduledExecutor debounceTimer,
+	                               final ListenerDispatcher dispatcher) {
+		Ensure.notNull(listener, "listener");
+		Ensure.notNull(dispatcher, "dispatcher");
+		Ensure.notNull(debounceTimer, "debounceTimer");
+		Ensure.that(gracePeriodInMs >= 0, "grace period >= 0");
+		this.listener = listener;
+		this.batchListener = null;
+		this.batchDebouncer = null;
+		this.gracePeriodInMs = gracePeriodInMs;
+		this.debounceTimer = debounceTimer;
+		this.listenerChannel = dispatcher.newChannel();
+	}
+
+	/*package*/ PathChangeNotifier(final FileChangeBatchListener batchListener, final long gracePeriodInMs, final ScheduledExecutor debounceTimer,
+	                               final ListenerDispatcher dispatcher) {
+		Ensure.notNull(batchListener, "batchListener");
+		Ensure.notNull(dispatcher, "dispatcher");
+		this.listener = null;
+		this.batchListener = batchListener;
+		this.batchDebouncer = new Debouncer(debounceTimer, gracePeriodInMs, this::fireBatch);
+		this.gracePeriodInMs = gracePeriodInMs;
+		this.debounceTimer = debounceTimer;
+		this.listenerChannel = dispatcher.newChannel();
+	}
+
+	/**
+	 * Announce a change to a file. The listener is notified, when the file does not change again during the grace period.
+	 * @param kind kind of the WatchEvent
+	 * @param file absolute path of the changed file
+	 */
+	/*package*/ void changed(final WatchEvent.Kind<?> kind, final Path file) {
+		if (stopped) {
+			return;
+		}
+		if (batchDebouncer != null) {
+			pendingChanges.putIfAbsent(file, kind == ENTRY_CREATE ? CREATED : MODIFIED);
+			batchDebouncer.trigger();
+			return;
+		}
+		if (gracePeriodInMs <= 0) {
+			fireFileChanged(file, kind == ENTRY_CREATE);
+			return;
+		}
+		PendingFile pending = pendingFiles.get(file);
+		if (pending == null) {
+			pending = pendingFiles.computeIfAbsent(file, f -> new PendingFile(f, kind == ENTRY_CREATE));
+		}
+		pending.debouncer.trigger();
+	}
+
+	private void fireFileChanged(final Path file, final boolean created) {
+		listenerChannel.dispatch(file, () -> {
+			if (!stopped) {
+				try {
+					listener.fileChanged(FileChangeEvent.readLazily(file, created));
+				} catch (RuntimeException e) {
+					LOGGER.warn("FileChangeEventListener for {} failed.", file, e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Take all pending changes and notify them to the batch listener.
+	 */
+	private void fireBatch() {
+		final Map<Path, Boolean> changes = new HashMap<>();
+		for (Map.Entry<Path, Change> entry : pendingChanges.entrySet()) {
+			if (pendingChanges.remove(entry.getKey(), entry.getValue())) {
+				changes.put(entry.getKey(), entry.getValue().created);
+			}
+		}
+		if (changes.isEmpty()) {
+			return;
+		}
+		// Batches contain different files, so every batch gets its own key and is never coalesced
+		listenerChannel.dispatch(new Object(), () -> {
+			if (!stopped) {
+				List<FileChangeEvent> events = new ArrayList<>(changes.size());
+				for (Map.Entry<Path, Boolean> change : changes.entrySet()) {
+					events.add(FileChangeEvent.readLazily(change.getKey(), change.getValue()));
+				}
+				try {
+					batchListener.filesChanged(Collections.unmodifiableList(events));
+				} catch (RuntimeException e) {
+					LOGGER.warn("FileChangeBatchListener for {} changed files failed.", events.size(), e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Drop all pending changes and do not notify the listener anymore.
+	 */
+	/*package*/ void stop() {
+		stopped = true;
+		if (batchDebouncer != null) {
+			batchDebouncer.cancel();
+		}
+		for (PendingFile pending : pendingFiles.values()) {
+			pending.debouncer.cancel();
+		}
+		pendingFiles.clear();
+		pendingChanges.clear();
+	}
+
+	/**
+	 * A pending change in batch mode. The first change of a file is kept.
+	 */
+	private static final class Change {
+		private final boolean created;
+
+		private Change(final boolean created) {
+			this.created = created;
+		}
+	}
+
+	/**
+	 * The grace period of a single file. Further events only move the deadline of its Debouncer, so there is at most one
+	 * pending timer task per file. Whether the file was created is taken from the first event.
+	 */
+	private final class PendingFile {
+		private final Path file;
+		private final boolean created;
+		private final Debouncer debouncer;
+
+		private PendingFile(final Path file, final boolean created) {
+			this.file = file;
+			this.created = created;
+			this.debouncer = new Debouncer(debounceTimer, gracePeriodInMs, this::gracePeriodPassed);
+		}
+
+		private void gracePeriodPassed() {
+			pendingFiles.remove(file, this);
+			fireFileChanged(file, created);
+		}
+	}
+}
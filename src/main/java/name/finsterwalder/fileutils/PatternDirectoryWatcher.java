@@ -0,0 +1,165 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Ensure;
+import name.finsterwalder.utils.ScheduledExecutor;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.WatchEvent;
+import java.util.Set;
+
+
+/**
+ * Watch the files in a directory, whose names match at least one of the given patterns. Files in subdirectories are not watched.
+ *
+ * The patterns use the syntax of {@link FileSystem#getPathMatcher(String)}, e.g. "glob:*.conf" or "regex:.*\\.pem".
+ * Patterns without the prefix "glob:" or "regex:" are treated as globs. They are matched against the file name only.
+ *
+ * The patterns are compiled once, when the watcher is created. The {@link WatchServiceEngine} applies them to the file name of
+ * an event on its event loop thread, before the path is resolved or the event is debounced, so events of ignored files are
+ * dropped right away.
+ * Every matching file is notified after a grace period, in which it did not change again.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 13:40
+ */
+public class PatternDirectoryWatcher implements FileWatcher {
+
+	public static final int DEFAULT_GRACE_PERIOD_IN_MS = 1000;
+	private static final String GLOB_SYNTAX = "glob:";
+	private static final String REGEX_SYNTAX = "regex:";
+	private static final Set<WatchEvent.Kind<?>> ALL_KINDS = FileChangeEvent.Kind.toWatchEventKinds(FileChangeEvent.Kind.all());
+
+	private final Path directory;
+	private final PathMatcher[] matchers;
+	private final PathChangeNotifier notifier;
+	private final WatchServiceEngine.Registration registration;
+
+	/**
+	 * Create a PatternDirectoryWatcher with a default grace period of 1000ms.
+	 * @param directory Directory to watch
+	 * @param listener Listener to notify about changes
+	 * @param patterns Patterns of the file names to watch
+	 */
+	public PatternDirectoryWatcher(final Path directory, final FileChangeEventListener listener, final String... patterns) {
+		this(directory, listener, DEFAULT_GRACE_PERIOD_IN_MS, patterns);
+	}
+
+	/**
+	 * Create a PatternDirectoryWatcher with the given grace period.
+	 * @param directory Directory to watch
+	 * @param listener Listener to notify about changes
+	 * @param gracePeriodInMs Grace period in ms to wait after a change in a file before notifying the listener
+	 * @param patterns Patterns of the file names to watch
+	 */
+	public PatternDirectoryWatcher(final Path directory, final FileChangeEventListener listener, final long gracePeriodInMs, final String... patterns) {
+		this(directory, listener, gracePeriodInMs, WatchServiceEngine.getInstance().debounceTimer(), ListenerDispatcher.defaultDispatcher(), patterns);
+	}
+
+	/**
+	 * Create a PatternDirectoryWatcher with the given grace period, that is timed with the given ScheduledExecutor and calls the
+	 * listener through the given dispatcher.
+	 * @param directory Directory to watch
+	 * @param listener Listener to notify about changes
+	 * @param gracePeriodInMs Grace period in ms to wait after a change in a file before notifying the listener
+	 * @param debounceTimer ScheduledExecutor to time the grace period
+	 * @param dispatcher Dispatcher to call the listener with
+	 * @param patterns Patterns of the file names to watch
+	 */
+	public PatternDirectoryWatcher(final Path directory, final FileChangeEventListener listener, final long gracePeriodInMs,
+	                               final ScheduledExecutor debounceTimer, final ListenerDispatcher dispatcher, final String... patterns) {
+		this(directory, new PathChangeNotifier(listener, gracePeriodInMs, debounceTimer, dispatcher), patterns);
+	}
+
+	/**
+	 * Create a PatternDirectoryWatcher, that notifies all changes of matching files at once, when the grace period passed without
+	 * any further change.
+	 * @param directory Directory to watch
+	 * @param batchListener Listener to notify about all changes of a quiet window
+	 * @param gracePeriodInMs Grace period in ms to wait after the last change before notifying the listener
+	 * @param patterns Patterns of the file names to watch
+	 */
+	public PatternDirectoryWatcher(final Path directory, final FileChangeBatchListener batchListener, final long gracePeriodInMs, final String... patterns) {
+		this(directory, new PathChangeNotifier(batchListener, gracePeriodInMs, WatchServiceEngine.getInstance().debounceTimer(),
+				ListenerDispatcher.defaultDispatcher()), patterns);
+	}
+
+	private PatternDirectoryWatcher(final Path directory, final PathChangeNotifier notifier, final String... patterns) {
+		Ensure.notNull(directory, "directory");
+		Ensure.notNull(patterns, "patterns");
+		Ensure.that(patterns.length > 0, "patterns.length > 0");
+		this.directory = directory.toAbsolutePath();
+		this.notifier = notifier;
+		if (!Files.isDirectory(this.directory)) {
+			throw new IllegalArgumentException("Not a directory: " + this.directory);
+		}
+		this.matchers = compile(this.directory.getFileSystem(), patterns);
+		try {
+			registration = WatchServiceEngine.getInstance().registerDirectory(this.directory, ALL_KINDS, this::matches, notifier::changed);
+		} catch (IOException e) {
+			throw new RuntimeException("Could not initialize directory watcher for " + this.directory, e);
+		}
+	}
+
+	private static PathMatcher[] compile(final FileSystem fileSystem, final String[] patterns) {
+		PathMatcher[] result = new PathMatcher[patterns.length];
+		for (int i = 0; i < patterns.length; i++) {
+			Ensure.notEmpty(patterns[i], "pattern");
+			String pattern = patterns[i];
+			if (!pattern.startsWith(GLOB_SYNTAX) && !pattern.startsWith(REGEX_SYNTAX)) {
+				pattern = GLOB_SYNTAX + pattern;
+			}
+			result[i] = fileSystem.getPathMatcher(pattern);
+		}
+		return result;
+	}
+
+	@Override
+	protected void finalize() throws Throwable {
+		unwatch();
+		super.finalize();
+	}
+
+	/*package*/ boolean matches(final Path fileName) {
+		for (PathMatcher matcher : matchers) {
+			if (matcher.matches(fileName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Stop watching the directory. Once stopped, watching can not be started again.
+	 */
+	@Override
+	public void unwatch() {
+		if (notifier != null) {
+			notifier.stop();
+		}
+		if (registration != null) {
+			// null, when the constructor failed
+			registration.cancel();
+		}
+	}
+}
@@ -18,31 +18,53 @@
 package name.finsterwalder.fileutils;
 
 import name.finsterwalder.utils.Ensure;
+import name.finsterwalder.utils.ScheduledExecutor;
+import name.finsterwalder.utils.ScheduledExecutorDefaultImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.attribute.FileTime;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 
 /**
- * Watch a single file for changes. Uses a polling approach, that checks the modified timestamp of the file in a regular interval.
- * Whenever a change in the modified timestamp is detected, a delayed notification is triggered. This ensures a grace period
+ * Watch a single file for changes. Uses a polling approach, that reads the attributes of the file in a regular interval.
+ * The modified timestamp with the full precision of the file system, the size and the file key are read with a single call and
+ * any difference to the last poll counts as a change. So a write, that does not change the timestamp within its granularity,
+ * is detected by the size, and an older file, that is renamed into place, is detected by its timestamp and file key.
+ * Whenever a change is detected, a delayed notification is triggered. This ensures a grace period
  * which allows the file to be written completely, before the notification about the change is issued.
  *
  * File modifications often first truncate a file and then write the file new. Without a grace period, a notified
  * FileChangeListener with unfortunate timing might see the empty file. When the write is fast and the timestamp granularity
- * is rather low, the writing of the file does not even change the modified timestamp of the file again and the completely
+ * is rather low, the writing of the file might not change the modified timestamp nor the size of the file again and the completely
  * written file is never notified. The grace period should be at least as large as the timestamp granularity of the underlying
  * file system.
  *
+ * The file is polled in a fixed interval by default. With an adaptive {@link PollingInterval} the interval backs off
+ * exponentially while the file does not change and snaps back to its minimum after a change, so files, that rarely change,
+ * cause only few stat calls. The {@link TickAlignment} of the interval aligns the polls of all watchers to a shared tick or
+ * spreads them evenly over the interval.
+ *
+ * By default all PollingFileWatchers share one scheduler with a fixed number of daemon threads, so the number of threads does not
+ * grow with the number of watched files. The number of threads defaults to {@value #DEFAULT_POLLING_THREADS} and can be
+ * configured with the system property {@value #POLLING_THREADS_PROPERTY}. Alternatively a custom {@link ScheduledExecutor}
+ * can be given to the constructor, for example a {@link name.finsterwalder.utils.HashedWheelTimer} with a task Executor,
+ * which also times the grace period of many watchers cheaply.
+ *
+ * Instead of a fixed grace period a {@link WriteCompletionDetector} can decide, when a changed file is written completely.
+ * It is asked after the grace period, when the file did not change again, and is asked again after another grace period until
+ * it reports the file as complete.
+ *
+ * A {@link FileChangeEventListener} receives the kind of the change together with the attributes, that were read by the last poll.
+ *
  * @author Malte Finsterwalder
  * @since 2013-09-04 18:18
  */
@@ -51,20 +73,30 @@ public class PollingFileWatcher implements FileWatcher {
 	private static final Logger LOGGER = LoggerFactory.getLogger(PollingFileWatcher.class);
 	public static final int DEFAULT_RELOAD_INTERVAL_IN_MS = 500;
 	public static final int DEFAULT_GRACE_PERIOD_IN_MS = 1000;
+	public static final int DEFAULT_POLLING_THREADS = 2;
+	public static final String POLLING_THREADS_PROPERTY = "fileutils.polling.threads";
 
-	private final ScheduledExecutorService executorService;
+	private final ScheduledExecutor scheduledExecutor;
 	private final Path path;
-	private final FileChangeListener fileChangeListener;
+	private final Path absolutePath;
+	private final FileChangeEventListener listener;
+	private final Set<FileChangeEvent.Kind> kinds;
 	private final long gracePeriodInMs;
-	private volatile FileTime lastSeen;
+	private final WriteCompletionDetector writeCompletionDetector;
+	private WriteCompletionDetector.Check writeCompletionCheck;
+	private final long maxStatAgeInNanos;
+	private final ListenerDispatcher.Channel listenerChannel;
+	private final PollingInterval pollingInterval;
+	private volatile long currentIntervalInMs;
+	private final double tickPhase;
+	private volatile ScheduledFuture<?> pollingFuture;
+	private volatile ScheduledFuture<?> notifierFuture;
+	private volatile FileState lastSeen;
+	private volatile BasicFileAttributes lastAttributes;
+	private boolean existedAtLastNotification;
 	private volatile boolean changed = false;
-
-	private final Thread shutdownHook = new Thread() {
-		@Override
-		public void run() {
-			executorService.shutdownNow();
-		}
-	};
+	private volatile long changeDetectedNanos;
+	private volatile boolean unwatched = false;
 
 	/**
 	 * Create a PollingFileWatcher with a default reload interval of 500ms and a default grace period of 1000ms.
@@ -72,7 +104,7 @@ public class PollingFileWatcher implements FileWatcher {
 	 * @param fileChangeListener Listener to notify about changes
 	 */
 	public PollingFileWatcher(final String filenameOfFileToWatch, final FileChangeListener fileChangeListener) {
-		this(Paths.get(filenameOfFileToWatch), fileChangeListener, DEFAULT_RELOAD_INTERVAL_IN_MS, DEFAULT_GRACE_PERIOD_IN_MS, Executors.newSingleThreadScheduledExecutor());
+		this(Paths.get(filenameOfFileToWatch), fileChangeListener, DEFAULT_RELOAD_INTERVAL_IN_MS, DEFAULT_GRACE_PERIOD_IN_MS, defaultScheduler());
 	}
 
 	/**
@@ -81,7 +113,7 @@ public class PollingFileWatcher implements FileWatcher {
 	 * @param fileChangeListener Listener to notify about changes
 	 */
 	public PollingFileWatcher(final File fileToWatch, final FileChangeListener fileChangeListener) {
-		this(fileToWatch.toPath(), fileChangeListener, DEFAULT_RELOAD_INTERVAL_IN_MS, DEFAULT_GRACE_PERIOD_IN_MS, Executors.newSingleThreadScheduledExecutor());
+		this(fileToWatch.toPath(), fileChangeListener, DEFAULT_RELOAD_INTERVAL_IN_MS, DEFAULT_GRACE_PERIOD_IN_MS, defaultScheduler());
 	}
 
 	/**
@@ -90,7 +122,7 @@ public class PollingFileWatcher implements FileWatcher {
 	 * @param fileChangeListener Listener to notify about changes
 	 */
 	public PollingFileWatcher(final Path fileToWatch, final FileChangeListener fileChangeListener) {
-		this(fileToWatch, fileChangeListener, DEFAULT_RELOAD_INTERVAL_IN_MS, DEFAULT_GRACE_PERIOD_IN_MS, Executors.newSingleThreadScheduledExecutor());
+		this(fileToWatch, fileChangeListener, DEFAULT_RELOAD_INTERVAL_IN_MS, DEFAULT_GRACE_PERIOD_IN_MS, defaultScheduler());
 	}
 
 	/**
@@ -100,7 +132,7 @@ public class PollingFileWatcher implements FileWatcher {
 	 * @param reloadIntervalInMs Reload interval in ms
 	 */
 	public PollingFileWatcher(final String filenameOfFileToWatch, final FileChangeListener fileChangeListener, final long reloadIntervalInMs) {
-		this(Paths.get(filenameOfFileToWatch), fileChangeListener, reloadIntervalInMs, DEFAULT_GRACE_PERIOD_IN_MS, Executors.newSingleThreadScheduledExecutor());
+		this(Paths.get(filenameOfFileToWatch), fileChangeListener, reloadIntervalInMs, DEFAULT_GRACE_PERIOD_IN_MS, defaultScheduler());
 	}
 
 	/**
@@ -110,7 +142,7 @@ public class PollingFileWatcher implements FileWatcher {
 	 * @param reloadIntervalInMs Reload interval in ms
 	 */
 	public PollingFileWatcher(final File fileToWatch, final FileChangeListener fileChangeListener, long reloadIntervalInMs) {
-		this(fileToWatch.toPath(), fileChangeListener, reloadIntervalInMs, DEFAULT_GRACE_PERIOD_IN_MS, Executors.newSingleThreadScheduledExecutor());
+		this(fileToWatch.toPath(), fileChangeListener, reloadIntervalInMs, DEFAULT_GRACE_PERIOD_IN_MS, defaultScheduler());
 	}
 
 	/**
@@ -120,11 +152,11 @@ public class PollingFileWatcher implements FileWatcher {
 	 * @param reloadIntervalInMs Reload interval in ms
 	 */
 	public PollingFileWatcher(final Path fileToWatch, final FileChangeListener fileChangeListener, long reloadIntervalInMs) {
-		this(fileToWatch, fileChangeListener, reloadIntervalInMs, DEFAULT_GRACE_PERIOD_IN_MS, Executors.newSingleThreadScheduledExecutor());
+		this(fileToWatch, fileChangeListener, reloadIntervalInMs, DEFAULT_GRACE_PERIOD_IN_MS, defaultScheduler());
 	}
 
 	public PollingFileWatcher(final String filename, final FileChangeListener fileChangeListener, final long reloadIntervalInMs, final long gracePeriodInMs) {
-		this(Paths.get(filename), fileChangeListener, reloadIntervalInMs, gracePeriodInMs, Executors.newSingleThreadScheduledExecutor());
+		this(Paths.get(filename), fileChangeListener, reloadIntervalInMs, gracePeriodInMs, defaultScheduler());
 	}
 
 	/**
@@ -135,7 +167,7 @@ public class PollingFileWatcher implements FileWatcher {
 	 * @param gracePeriodInMs Grace period in ms to wait after a change in the file before sending an update to the FileChangeListener
 	 */
 	public PollingFileWatcher(final File fileToWatch, final FileChangeListener fileChangeListener, long reloadIntervalInMs, final long gracePeriodInMs) {
-		this(fileToWatch.toPath(), fileChangeListener, reloadIntervalInMs, gracePeriodInMs, Executors.newSingleThreadScheduledExecutor());
+		this(fileToWatch.toPath(), fileChangeListener, reloadIntervalInMs, gracePeriodInMs, defaultScheduler());
 	}
 
 	/**
@@ -146,30 +178,215 @@ public class PollingFileWatcher implements FileWatcher {
 	 * @param gracePeriodInMs Grace period in ms to wait after a change in the file before sending an update to the FileChangeListener
 	 */
 	public PollingFileWatcher(final Path fileToWatch, final FileChangeListener fileChangeListener, long reloadIntervalInMs, final long gracePeriodInMs) {
-		this(fileToWatch, fileChangeListener, reloadIntervalInMs, gracePeriodInMs, Executors.newSingleThreadScheduledExecutor());
+		this(fileToWatch, fileChangeListener, reloadIntervalInMs, gracePeriodInMs, defaultScheduler());
+	}
+
+	/**
+	 * Create a PollingFileWatcher with the given reload interval and the given grace period, that uses the given ScheduledExecutor
+	 * for polling and for the grace period.
+	 * @param path File to watch
+	 * @param fileChangeListener Listener to notify about changes
+	 * @param reloadIntervalInMs Reload interval in ms
+	 * @param gracePeriodInMs Grace period in ms to wait after a change in the file before sending an update to the FileChangeListener
+	 * @param scheduledExecutor ScheduledExecutor to run the polling on. It may be shared between many PollingFileWatchers.
+	 */
+	public PollingFileWatcher(final Path path, final FileChangeListener fileChangeListener, final long reloadIntervalInMs, final long gracePeriodInMs,
+							  final ScheduledExecutor scheduledExecutor) {
+		this(path, new FileChangeListenerAdapter(fileChangeListener), reloadIntervalInMs, gracePeriodInMs, FileChangeEvent.Kind.all(), scheduledExecutor);
+	}
+
+	/**
+	 * Create a PollingFileWatcher with a default reload interval of 500ms and a default grace period of 1000ms, that notifies all
+	 * kinds of changes.
+	 * @param fileToWatch File to watch
+	 * @param listener Listener to notify about changes
+	 */
+	public PollingFileWatcher(final Path fileToWatch, final FileChangeEventListener listener) {
+		this(fileToWatch, listener, DEFAULT_RELOAD_INTERVAL_IN_MS, DEFAULT_GRACE_PERIOD_IN_MS, FileChangeEvent.Kind.all(), defaultScheduler());
+	}
+
+	/**
+	 * Create a PollingFileWatcher with the given reload interval and the given grace period, that notifies only the given kinds
+	 * of changes.
+	 * @param fileToWatch File to watch
+	 * @param listener Listener to notify about changes
+	 * @param reloadIntervalInMs Reload interval in ms
+	 * @param gracePeriodInMs Grace period in ms to wait after a change in the file before notifying the listener
+	 * @param kinds Kinds of changes to notify
+	 */
+	public PollingFileWatcher(final Path fileToWatch, final FileChangeEventListener listener, final long reloadIntervalInMs, final long gracePeriodInMs,
+							  final Set<FileChangeEvent.Kind> kinds) {
+		this(fileToWatch, listener, reloadIntervalInMs, gracePeriodInMs, kinds, defaultScheduler());
 	}
 
-	/*package*/ PollingFileWatcher(final Path path, final FileChangeListener fileChangeListener, final long reloadIntervalInMs, final long gracePeriodInMs,
-								   ScheduledExecutorService executorService) {
+	/**
+	 * Create a PollingFileWatcher with the given reload interval and the given grace period, that notifies only the given kinds
+	 * of changes and uses the given ScheduledExecutor for polling and for the grace period.
+	 * @param path File to watch
+	 * @param listener Listener to notify about changes
+	 * @param reloadIntervalInMs Reload interval in ms
+	 * @param gracePeriodInMs Grace period in ms to wait after a change in the file before notifying the listener
+	 * @param kinds Kinds of changes to notify
+	 * @param scheduledExecutor ScheduledExecutor to run the polling on. It may be shared between many PollingFileWatchers.
+	 */
+	public PollingFileWatcher(final Path path, final FileChangeEventListener listener, final long reloadIntervalInMs, final long gracePeriodInMs,
+							  final Set<FileChangeEvent.Kind> kinds, final ScheduledExecutor scheduledExecutor) {
+		this(path, listener, reloadIntervalInMs, gracePeriodInMs, kinds, scheduledExecutor, ListenerDispatcher.defaultDispatcher());
+	}
+
+	/**
+	 * Create a PollingFileWatcher with the given reload interval and the given grace period, that notifies only the given kinds
+	 * of changes, uses the given ScheduledExecutor for polling and for the grace period and calls the listener through the
+	 * given dispatcher.
+	 * @param path File to watch
+	 * @param listener Listener to notify about changes
+	 * @param reloadIntervalInMs Reload interval in ms
+	 * @param gracePeriodInMs Grace period in ms to wait after a change in the file before notifying the listener
+	 * @param kinds Kinds of changes to notify
+	 * @param scheduledExecutor ScheduledExecutor to run the polling on. It may be shared between many PollingFileWatchers.
+	 * @param dispatcher Dispatcher to call the listener with
+	 */
+	public PollingFileWatcher(final Path path, final FileChangeEventListener listener, final long reloadIntervalInMs, final long gracePeriodInMs,
+							  final Set<FileChangeEvent.Kind> kinds, final ScheduledExecutor scheduledExecutor, final ListenerDispatcher dispatcher) {
+		this(path, listener, PollingInterval.fixed(reloadIntervalInMs), gracePeriodInMs, kinds, scheduledExecutor, dispatcher);
+	}
+
+	/**
+	 * Create a PollingFileWatcher with the given polling interval and the given grace period, that notifies only the given kinds
+	 * of changes.
+	 * @param path File to watch
+	 * @param listener Listener to notify about changes
+	 * @param pollingInterval Fixed or adaptive interval to poll the file in
+	 * @param gracePeriodInMs Grace period in ms to wait after a change in the file before notifying the listener
+	 * @param kinds Kinds of changes to notify
+	 */
+	public PollingFileWatcher(final Path path, final FileChangeEventListener listener, final PollingInterval pollingInterval, final long gracePeriodInMs,
+							  final Set<FileChangeEvent.Kind> kinds) {
+		this(path, listener, pollingInterval, gracePeriodInMs, kinds, defaultScheduler(), ListenerDispatcher.defaultDispatcher());
+	}
+
+	/**
+	 * Create a PollingFileWatcher with the given polling interval and the given grace period, that notifies only the given kinds
+	 * of changes, uses the given ScheduledExecutor for polling and for the grace period and calls the listener through the
+	 * given dispatcher.
+	 * @param path File to watch
+	 * @param listener Listener to notify about changes
+	 * @param pollingInterval Fixed or adaptive interval to poll the file in
+	 * @param gracePeriodInMs Grace period in ms to wait after a change in the file before notifying the listener
+	 * @param kinds Kinds of changes to notify
+	 * @param scheduledExecutor ScheduledExecutor to run the polling on. It may be shared between many PollingFileWatchers.
+	 * @param dispatcher Dispatcher to call the listener with
+	 */
+	public PollingFileWatcher(final Path path, final FileChangeEventListener listener, final PollingInterval pollingInterval, final long gracePeriodInMs,
+							  final Set<FileChangeEvent.Kind> kinds, final ScheduledExecutor scheduledExecutor, final ListenerDispatcher dispatcher) {
+		this(path, listener, pollingInterval, WriteCompletionDetector.fixedDelay(gracePeriodInMs), kinds, scheduledExecutor, dispatcher);
+	}
+
+	/**
+	 * Create a PollingFileWatcher with the given polling interval, that notifies only the given kinds of changes, once the
+	 * WriteCompletionDetector reports the file as written completely.
+	 * @param path File to watch
+	 * @param listener Listener to notify about changes
+	 * @param pollingInterval Fixed or adaptive interval to poll the file in
+	 * @param writeCompletionDetector Decides, when a changed file is written completely
+	 * @param kinds Kinds of changes to notify
+	 */
+	public PollingFileWatcher(final Path path, final FileChangeEventListener listener, final PollingInterval pollingInterval,
+							  final WriteCompletionDetector writeCompletionDetector, final Set<FileChangeEvent.Kind> kinds) {
+		this(path, listener, pollingInterval, writeCompletionDetector, kinds, defaultScheduler(), ListenerDispatcher.defaultDispatcher());
+	}
+
+	/**
+	 * Create a PollingFileWatcher with the given polling interval, that notifies only the given kinds of changes, once the
+	 * WriteCompletionDetector reports the file as written completely. It uses the given ScheduledExecutor for polling and for the
+	 * delays of the detector and calls the listener through the given dispatcher.
+	 * @param path File to watch
+	 * @param listener Listener to notify about changes
+	 * @param pollingInterval Fixed or adaptive interval to poll the file in
+	 * @param writeCompletionDetector Decides, when a changed file is written completely
+	 * @param kinds Kinds of changes to notify
+	 * @param scheduledExecutor ScheduledExecutor to run the polling on. It may be shared between many PollingFileWatchers.
+	 * @param dispatcher Dispatcher to call the listener with
+	 */
+	public PollingFileWatcher(final Path path, final FileChangeEventListener listener, final PollingInterval pollingInterval,
+							  final WriteCompletionDetector writeCompletionDetector, final Set<FileChangeEvent.Kind> kinds,
+							  final ScheduledExecutor scheduledExecutor, final ListenerDispatcher dispatcher) {
 		Ensure.notNull(path, "path");
-		Ensure.notNull(fileChangeListener, "fileChangeListener");
-		Ensure.notNull(executorService, "executorService");
-		Ensure.that(reloadIntervalInMs > 0, "reload interval > 0");
-		Ensure.that(gracePeriodInMs >= 0, "grace period >= 0");
-		this.executorService = executorService;
+		Ensure.notNull(listener, "listener");
+		Ensure.notEmpty(kinds, "kinds");
+		Ensure.notNull(scheduledExecutor, "scheduledExecutor");
+		Ensure.notNull(dispatcher, "dispatcher");
+		Ensure.notNull(pollingInterval, "pollingInterval");
+		Ensure.notNull(writeCompletionDetector, "writeCompletionDetector");
+		this.scheduledExecutor = scheduledExecutor;
 		this.path = path;
-		this.gracePeriodInMs = gracePeriodInMs;
-		this.fileChangeListener = fileChangeListener;
-		changed(); //initiate lastSeen timestamp
-		Runtime.getRuntime().addShutdownHook(shutdownHook);
-		this.executorService.scheduleAtFixedRate(new ChangeWatcher(this), reloadIntervalInMs, reloadIntervalInMs, TimeUnit.MILLISECONDS);
+		this.absolutePath = path.toAbsolutePath();
+		this.writeCompletionDetector = writeCompletionDetector;
+		this.gracePeriodInMs = writeCompletionDetector.delayInMs();
+		this.listener = listener;
+		this.kinds = EnumSet.copyOf(kinds);
+		this.listenerChannel = dispatcher.newChannel();
+		this.pollingInterval = pollingInterval;
+		this.currentIntervalInMs = pollingInterval.getMinInMs();
+		this.tickPhase = pollingInterval.getTickAlignment().newPhase();
+		// Polls of the same file or of a densely polled directory within half an interval share one read
+		this.maxStatAgeInNanos = TimeUnit.MILLISECONDS.toNanos(pollingInterval.getMinInMs()) / 2;
+		StatCache.getInstance().register(absolutePath);
+		changed(); //initiate lastSeen state
+		existedAtLastNotification = lastAttributes != null;
+		long intervalInMs = pollingInterval.getMinInMs();
+		long initialDelayInMs = pollingInterval.getTickAlignment().delayInMs(intervalInMs, tickPhase);
+		if (pollingInterval.isAdaptive()) {
+			pollingFuture = this.scheduledExecutor.schedule(new ChangeWatcher(this), initialDelayInMs, TimeUnit.MILLISECONDS);
+		} else {
+			pollingFuture = this.scheduledExecutor.scheduleAtFixedRate(new ChangeWatcher(this), initialDelayInMs, intervalInMs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Schedule the next poll of an adaptive interval. Needs to be called while holding the lock of the watcher.
+	 * @param changing true, when a change was detected or its grace period did not pass yet
+	 */
+	private void scheduleNextPoll(final ChangeWatcher changeWatcher, final boolean changing) {
+		currentIntervalInMs = pollingInterval.next(currentIntervalInMs, changing);
+		long delayInMs = pollingInterval.getTickAlignment().delayInMs(currentIntervalInMs, tickPhase);
+		pollingFuture = scheduledExecutor.schedule(changeWatcher, delayInMs, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return The interval until the next poll in ms
+	 */
+	/*package*/ long currentIntervalInMs() {
+		return currentIntervalInMs;
+	}
+
+	/**
+	 * @return The scheduler shared by all PollingFileWatchers, that are not given a ScheduledExecutor explicitly
+	 */
+	public static ScheduledExecutor defaultScheduler() {
+		return DefaultScheduler.INSTANCE;
+	}
+
+	/**
+	 * @return The number of tasks waiting in the shared scheduler of the PollingFileWatchers
+	 */
+	/*package*/ static long defaultSchedulerQueueSize() {
+		return DefaultScheduler.INSTANCE.getQueueSize();
 	}
 
 	synchronized private boolean changed() {
 		try {
-			FileTime lastModified = Files.getLastModifiedTime(path);
-			if (lastSeen == null || lastModified.compareTo(lastSeen) > 0) {
-				lastSeen = lastModified;
+			BasicFileAttributes attributes = StatCache.getInstance().readAttributes(absolutePath, maxStatAgeInNanos);
+			lastAttributes = attributes;
+			if (attributes == null) {
+				boolean deleted = lastSeen != null;
+				lastSeen = null;
+				return deleted;
+			}
+			// Any difference is a change: an older timestamp may be a rolled back file, that was renamed into place
+			FileState state = FileState.of(attributes);
+			if (!state.equals(lastSeen)) {
+				lastSeen = state;
 				return true;
 			}
 			return false;
@@ -184,8 +401,77 @@ public class PollingFileWatcher implements FileWatcher {
 	 */
 	@Override
 	public void unwatch() {
-		Runtime.getRuntime().removeShutdownHook(shutdownHook);
-		executorService.shutdownNow();
+		synchronized (this) {
+			if (unwatched) {
+				return;
+			}
+			unwatched = true;
+		}
+		cancel(pollingFuture);
+		cancel(notifierFuture);
+		StatCache.getInstance().unregister(absolutePath);
+	}
+
+	/**
+	 * Ask the check of the WriteCompletionDetector, whether the file is written completely. Needs to be called while holding the
+	 * lock of the watcher. A check, that fails, counts as complete, so the file is watched again after the notification.
+	 */
+	private boolean isWriteComplete() {
+		if (writeCompletionCheck == null) {
+			writeCompletionCheck = writeCompletionDetector.newCheck(absolutePath);
+		}
+		boolean complete;
+		try {
+			complete = writeCompletionCheck.isComplete();
+		} catch (RuntimeException e) {
+			LOGGER.warn("Checking the write of {} failed. The change is notified.", path, e);
+			complete = true;
+		}
+		if (complete) {
+			writeCompletionCheck = null;
+		}
+		return complete;
+	}
+
+	/**
+	 * Create the event for the listener from the attributes read last. Needs to be called while holding the lock of the watcher.
+	 */
+	private FileChangeEvent createEvent() {
+		BasicFileAttributes attributes = lastAttributes;
+		FileChangeEvent.Kind kind;
+		if (attributes == null) {
+			kind = FileChangeEvent.Kind.DELETED;
+		} else {
+			kind = existedAtLastNotification ? FileChangeEvent.Kind.MODIFIED : FileChangeEvent.Kind.CREATED;
+		}
+		existedAtLastNotification = attributes != null;
+		return new FileChangeEvent(kind, absolutePath, attributes);
+	}
+
+	/**
+	 * Call the listener through the {@link ListenerDispatcher}. Must not be called while holding the lock of the watcher.
+	 */
+	private void fireFileChanged(final FileChangeEvent event) {
+		if (event == null || !kinds.contains(event.getKind())) {
+			return;
+		}
+		final long detectedNanos = changeDetectedNanos;
+		listenerChannel.dispatch(absolutePath, () -> {
+			if (!unwatched) {
+				WatcherMetrics.recordSince(MetricsRecorder.Timer.EVENT_TO_NOTIFICATION, detectedNanos);
+				try {
+					listener.fileChanged(event);
+				} catch (RuntimeException e) {
+					LOGGER.warn("FileChangeListener for {} failed.", path, e);
+				}
+			}
+		});
+	}
+
+	private static void cancel(final ScheduledFuture<?> future) {
+		if (future != null) {
+			future.cancel(false);
+		}
 	}
 
 	@Override
@@ -204,20 +490,40 @@ public class PollingFileWatcher implements FileWatcher {
 
 		@Override
 		public void run() {
+			long startNanos = System.nanoTime();
+			boolean detected = false;
 			try {
+				FileChangeEvent event = null;
 				synchronized (watcher) {
-					if (!watcher.changed && (watcher.changed = watcher.changed())) {
+					if (!watcher.unwatched && !watcher.changed) {
+						WatcherMetrics.increment(MetricsRecorder.Counter.POLLS);
+						detected = watcher.changed = watcher.changed();
+					}
+					if (detected) {
+						watcher.changeDetectedNanos = startNanos;
 						if (watcher.gracePeriodInMs > 0) {
 							// Schedule a delayed notify after the grace period
-							watcher.executorService.schedule(new DelayedNotifier(watcher), watcher.gracePeriodInMs, TimeUnit.MILLISECONDS);
+							watcher.notifierFuture = watcher.scheduledExecutor.schedule(new DelayedNotifier(watcher), watcher.gracePeriodInMs, TimeUnit.MILLISECONDS);
 						} else {
-							watcher.fileChangeListener.fileChanged();
+							watcher.changed = false;
+							event = watcher.createEvent();
 						}
 					}
 				}
+				watcher.fireFileChanged(event);
 			} catch (Exception e) {
 				LOGGER.warn("PollingFileWatcher could not check file {}.", watcher.path, e);
+			} finally {
+				if (watcher.pollingInterval.isAdaptive()) {
+					// Also after a failure, since an adaptive interval is not repeated by the scheduler
+					synchronized (watcher) {
+						if (!watcher.unwatched) {
+							watcher.scheduleNextPoll(this, detected || watcher.changed);
+						}
+					}
+				}
 			}
+			WatcherMetrics.recordSince(MetricsRecorder.Timer.POLL_DURATION, startNanos);
 		}
 	}
 
@@ -232,19 +538,36 @@ public class PollingFileWatcher implements FileWatcher {
 		@Override
 		public void run() {
 			try {
+				FileChangeEvent event = null;
 				synchronized (watcher) {
-					if (watcher.changed()) {
-						// File changed again. Schedule another grace period
-						watcher.executorService.schedule(this, watcher.gracePeriodInMs, TimeUnit.MILLISECONDS);
+					if (watcher.unwatched) {
+						return;
+					}
+					boolean changedAgain = watcher.changed();
+					if (changedAgain) {
+						WatcherMetrics.increment(MetricsRecorder.Counter.EVENTS_DEBOUNCED);
+					}
+					if (changedAgain || !watcher.isWriteComplete()) {
+						// File changed again or is not written completely. Schedule another grace period
+						watcher.notifierFuture = watcher.scheduledExecutor.schedule(this, watcher.gracePeriodInMs, TimeUnit.MILLISECONDS);
 					} else {
 						// File didn't change again. Notify!
 						watcher.changed = false;
-						watcher.fileChangeListener.fileChanged();
+						event = watcher.createEvent();
 					}
 				}
+				watcher.fireFileChanged(event);
 			} catch (Exception e) {
 				LOGGER.warn("PollingFileWatcher could not check file {}.", watcher.path, e);
 			}
 		}
 	}
+
+	/**
+	 * Lazily created scheduler, that is shared by all PollingFileWatchers by default.
+	 */
+	private static final class DefaultScheduler {
+		private static final ScheduledExecutorDefaultImpl INSTANCE =
+				new ScheduledExecutorDefaultImpl(Integer.getInteger(POLLING_THREADS_PROPERTY, DEFAULT_POLLING_THREADS), "PollingFileWatcher");
+	}
 }
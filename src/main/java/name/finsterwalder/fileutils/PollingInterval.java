@@ -0,0 +1,120 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Ensure;
+
+
+/**
+ * The interval, in which a {@link PollingFileWatcher} polls its file.
+ *
+ * A fixed interval polls at the same rate for the whole life of the watcher. An adaptive interval starts with its minimum and
+ * doubles after every poll, that did not detect a change, up to its maximum. After a change it snaps back to the minimum.
+ * Files, that rarely change, are polled at the maximum interval, so the number of stat calls drops with the number of cold files,
+ * while changes to hot files are still detected quickly.
+ *
+ * The {@link TickAlignment} decides, when in the interval the polls happen: on a tick shared by all watchers, to reduce wakeups,
+ * or spread evenly over the interval, to smooth the I/O.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 17:40
+ */
+public final class PollingInterval {
+
+	private final long minInMs;
+	private final long maxInMs;
+	private final TickAlignment tickAlignment;
+
+	private PollingInterval(final long minInMs, final long maxInMs, final TickAlignment tickAlignment) {
+		Ensure.that(minInMs > 0, "minimum interval > 0");
+		Ensure.that(maxInMs >= minInMs, "maximum interval >= minimum interval");
+		Ensure.notNull(tickAlignment, "tickAlignment");
+		this.minInMs = minInMs;
+		this.maxInMs = maxInMs;
+		this.tickAlignment = tickAlignment;
+	}
+
+	/**
+	 * @param intervalInMs Interval in ms
+	 * @return A fixed interval, that starts when the watcher is created
+	 */
+	public static PollingInterval fixed(final long intervalInMs) {
+		return fixed(intervalInMs, TickAlignment.NONE);
+	}
+
+	/**
+	 * @param intervalInMs Interval in ms
+	 * @param tickAlignment When in the interval the file is polled
+	 * @return A fixed interval
+	 */
+	public static PollingInterval fixed(final long intervalInMs, final TickAlignment tickAlignment) {
+		return new PollingInterval(intervalInMs, intervalInMs, tickAlignment);
+	}
+
+	/**
+	 * @param minInMs Interval in ms after a change
+	 * @param maxInMs Largest interval in ms for a file, that does not change
+	 * @return An interval, that backs off exponentially from the minimum to the maximum while the file does not change
+	 */
+	public static PollingInterval adaptive(final long minInMs, final long maxInMs) {
+		return adaptive(minInMs, maxInMs, TickAlignment.NONE);
+	}
+
+	/**
+	 * @param minInMs Interval in ms after a change
+	 * @param maxInMs Largest interval in ms for a file, that does not change
+	 * @param tickAlignment When in the interval the file is polled
+	 * @return An interval, that backs off exponentially from the minimum to the maximum while the file does not change
+	 */
+	public static PollingInterval adaptive(final long minInMs, final long maxInMs, final TickAlignment tickAlignment) {
+		return new PollingInterval(minInMs, maxInMs, tickAlignment);
+	}
+
+	public long getMinInMs() {
+		return minInMs;
+	}
+
+	public long getMaxInMs() {
+		return maxInMs;
+	}
+
+	public TickAlignment getTickAlignment() {
+		return tickAlignment;
+	}
+
+	public boolean isAdaptive() {
+		return minInMs != maxInMs;
+	}
+
+	/**
+	 * @param currentInMs The current interval
+	 * @param changed true, when the last poll detected a change
+	 * @return The interval until the next poll
+	 */
+	/*package*/ long next(final long currentInMs, final boolean changed) {
+		if (changed) {
+			return minInMs;
+		}
+		return currentInMs >= maxInMs / 2 ? maxInMs : currentInMs * 2;
+	}
+
+	@Override
+	public String toString() {
+		return (isAdaptive() ? "adaptive " + minInMs + "ms to " + maxInMs + "ms" : "fixed " + minInMs + "ms") + ", " + tickAlignment;
+	}
+}
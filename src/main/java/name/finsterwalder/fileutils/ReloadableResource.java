@@ -0,0 +1,189 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Ensure;
+import name.finsterwalder.utils.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * A value parsed from a file, that is parsed again whenever the file changes. Register it as the listener of a watcher of the
+ * file and read the current value with {@link #get()}.
+ *
+ * The file is parsed on a worker pool, so a slow parser does not delay the detection of other changes. A new value is published
+ * through a single atomic reference. When parsing fails, the last value, that was parsed successfully, is kept. Changes, that
+ * arrive while the file is parsed, are coalesced into a single parse, that starts when the running one finished.
+ * When the parser throws an Error or the workers reject the parse, the change is dropped and the next change parses the file again.
+ *
+ * By default all ReloadableResources share a pool with {@value #DEFAULT_RELOAD_THREADS} threads, which can be configured with the
+ * system property {@value #RELOAD_THREADS_PROPERTY}.
+ *
+ * <pre>
+ * ReloadableResource&lt;Properties&gt; config = new ReloadableResource&lt;&gt;(configFile, PropertiesLoader::load);
+ * new NioFileWatcher(configFile, config, 1000, FileChangeEvent.Kind.all());
+ * ...
+ * config.get().getProperty("timeout");
+ * </pre>
+ *
+ * @param <T> Type of the parsed value
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 17:00
+ */
+public final class ReloadableResource<T> implements FileChangeEventListener {
+
+	public static final int DEFAULT_RELOAD_THREADS = 2;
+	public static final String RELOAD_THREADS_PROPERTY = "fileutils.reload.threads";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReloadableResource.class);
+
+	private static final int IDLE = 0;
+	private static final int PARSING = 1;
+	private static final int PARSING_AND_CHANGED = 2;
+
+	private final Path file;
+	private final Parser<T> parser;
+	private final Executor workers;
+	private final AtomicReference<T> value = new AtomicReference<>();
+	private final AtomicInteger state = new AtomicInteger(IDLE);
+	private final Runnable parseTask = this::parseUntilUnchanged;
+
+	/**
+	 * Parses a file into a value.
+	 * @param <T> Type of the parsed value
+	 */
+	public interface Parser<T> {
+		/**
+		 * @param file File to parse
+		 * @return The parsed value, must not be null
+		 * @throws Exception when the file can not be parsed
+		 */
+		T parse(Path file) throws Exception;
+	}
+
+	/**
+	 * Create a ReloadableResource, that parses the file on the shared worker pool. The file is parsed for the first time right
+	 * away on the calling thread.
+	 * @param file File to parse
+	 * @param parser Parser to parse the file with
+	 */
+	public ReloadableResource(final Path file, final Parser<T> parser) {
+		this(file, parser, DefaultWorkers.INSTANCE);
+	}
+
+	/**
+	 * Create a ReloadableResource, that parses the file on the given Executor. The file is parsed for the first time right
+	 * away on the calling thread.
+	 * @param file File to parse
+	 * @param parser Parser to parse the file with
+	 * @param workers Executor to parse the file on, when it changed
+	 */
+	public ReloadableResource(final Path file, final Parser<T> parser, final Executor workers) {
+		Ensure.notNull(file, "file");
+		Ensure.notNull(parser, "parser");
+		Ensure.notNull(workers, "workers");
+		this.file = file.toAbsolutePath();
+		this.parser = parser;
+		this.workers = workers;
+		try {
+			value.set(parse());
+		} catch (Exception e) {
+			throw new RuntimeException("Could not parse " + this.file, e);
+		}
+	}
+
+	/**
+	 * @return The value, that was parsed last successfully
+	 */
+	public T get() {
+		return value.get();
+	}
+
+	/**
+	 * Parse the file again on the worker pool. When a parse is running, the file is parsed once more after it finished.
+	 * @param event Change of the file
+	 */
+	@Override
+	public void fileChanged(final FileChangeEvent event) {
+		while (true) {
+			int current = state.get();
+			if (current == PARSING_AND_CHANGED) {
+				return;
+			}
+			if (state.compareAndSet(current, current == IDLE ? PARSING : PARSING_AND_CHANGED)) {
+				if (current == IDLE) {
+					execute();
+				}
+				return;
+			}
+		}
+	}
+
+	private void execute() {
+		try {
+			workers.execute(parseTask);
+		} catch (RejectedExecutionException e) {
+			state.set(IDLE);
+			LOGGER.warn("Could not parse {} again, the workers rejected it. Keeping the last value.", file, e);
+		}
+	}
+
+	private void parseUntilUnchanged() {
+		boolean finished = false;
+		try {
+			do {
+				try {
+					value.set(parse());
+				} catch (Exception e) {
+					LOGGER.warn("Could not parse {}. Keeping the last value.", file, e);
+				}
+			} while (!state.compareAndSet(PARSING, IDLE) && state.compareAndSet(PARSING_AND_CHANGED, PARSING));
+			finished = true;
+		} finally {
+			if (!finished) {
+				// an Error ended the parse, so the next change needs to start a new one
+				state.set(IDLE);
+			}
+		}
+	}
+
+	private T parse() throws Exception {
+		T parsed = parser.parse(file);
+		if (parsed == null) {
+			throw new IllegalStateException("The parser returned null for " + file);
+		}
+		return parsed;
+	}
+
+	/**
+	 * Lazily created worker pool, that is shared by all ReloadableResources by default.
+	 */
+	private static final class DefaultWorkers {
+		private static final Executor INSTANCE =
+				Executors.newFixedThreadPool(Math.max(1, Integer.getInteger(RELOAD_THREADS_PROPERTY, DEFAULT_RELOAD_THREADS)),
+						Threads.threadFactory("ReloadableResource"));
+	}
+}
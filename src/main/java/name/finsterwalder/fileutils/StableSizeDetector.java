@@ -0,0 +1,86 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Ensure;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+
+/**
+ * Counts a file as written completely, when the same size and timestamp were read in a number of consecutive samples.
+ * A file, that can not be read anymore, counts as complete, so its deletion is notified.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:40
+ */
+/*package*/ final class StableSizeDetector implements WriteCompletionDetector {
+
+	private final long sampleIntervalInMs;
+	private final int samples;
+
+	/*package*/ StableSizeDetector(final long sampleIntervalInMs, final int samples) {
+		Ensure.that(sampleIntervalInMs > 0, "sample interval > 0");
+		Ensure.that(samples > 0, "samples > 0");
+		this.sampleIntervalInMs = sampleIntervalInMs;
+		this.samples = samples;
+	}
+
+	@Override
+	public long delayInMs() {
+		return sampleIntervalInMs;
+	}
+
+	@Override
+	public Check newCheck(final Path file) {
+		return new StableSizeCheck(file);
+	}
+
+	@Override
+	public String toString() {
+		return "stableSize(" + sampleIntervalInMs + "ms, " + samples + " samples)";
+	}
+
+	private final class StableSizeCheck implements Check {
+		private final Path file;
+		private FileState lastSample;
+		private int stableSamples;
+
+		private StableSizeCheck(final Path file) {
+			this.file = file;
+		}
+
+		@Override
+		public boolean isComplete() {
+			FileState sample;
+			try {
+				sample = FileState.read(file);
+			} catch (IOException e) {
+				return true;
+			}
+			if (lastSample != null && sample.getSize() == lastSample.getSize() && sample.getLastModified().equals(lastSample.getLastModified())) {
+				stableSamples++;
+			} else {
+				stableSamples = 1;
+			}
+			lastSample = sample;
+			return stableSamples >= samples;
+		}
+	}
+}
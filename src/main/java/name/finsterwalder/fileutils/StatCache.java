@@ -0,0 +1,228 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Ensure;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Reads the attributes of polled files and removes duplicate reads. When several PollingFileWatchers poll the same file, a poll
+ * within the maximum age of the last read is answered from that read instead of reading the attributes again. A file, that is
+ * polled by a single watcher, is read every time, since its polls are at least an interval apart anyway.
+ *
+ * Once at least {@value #DEFAULT_LISTING_THRESHOLD} different files of the same directory are polled (configurable with the
+ * system property {@value #LISTING_THRESHOLD_PROPERTY}), the directory is listed once with a DirectoryStream and all polls of
+ * its files within the maximum age of the listing are answered from it. Only the attributes of the listed, watched entries are
+ * read, through the paths of the listing, so a watched file, that does not exist, costs nothing. On Windows the listing already
+ * carries the attributes of its entries. On NFS the listing is a READDIRPLUS, which fills the attribute cache of the client,
+ * so the attributes are read without another round trip to the server. Directories with fewer polled files are read file by file.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 10:05
+ */
+/*package*/ final class StatCache {
+
+	/*package*/ static final int DEFAULT_LISTING_THRESHOLD = 8;
+	/*package*/ static final String LISTING_THRESHOLD_PROPERTY = "fileutils.polling.listingThreshold";
+
+	private static final StatCache INSTANCE = new StatCache(Math.max(1, Integer.getInteger(LISTING_THRESHOLD_PROPERTY, DEFAULT_LISTING_THRESHOLD)));
+
+	private final int listingThreshold;
+	private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+	private final Map<Path, Directory> directories = new ConcurrentHashMap<>();
+
+	/*package*/ StatCache() {
+		this(DEFAULT_LISTING_THRESHOLD);
+	}
+
+	/*package*/ StatCache(final int listingThreshold) {
+		Ensure.that(listingThreshold > 0, "listingThreshold > 0");
+		this.listingThreshold = listingThreshold;
+	}
+
+	/*package*/ static StatCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Announce, that the given file is polled from now on.
+	 * @param absoluteFile absolute path of the polled file
+	 */
+	/*package*/ synchronized void register(final Path absoluteFile) {
+		Entry entry = entries.get(absoluteFile);
+		if (entry == null) {
+			entry = new Entry(absoluteFile);
+			entries.put(absoluteFile, entry);
+			Path directoryPath = absoluteFile.getParent();
+			if (directoryPath != null) {
+				Directory directory = directories.get(directoryPath);
+				if (directory == null) {
+					directory = new Directory(directoryPath);
+					directories.put(directoryPath, directory);
+				}
+				directory.add(absoluteFile.getFileName());
+			}
+		}
+		entry.watcherCount++;
+	}
+
+	/**
+	 * Announce, that the given file is no longer polled.
+	 * @param absoluteFile absolute path of the polled file
+	 */
+	/*package*/ synchronized void unregister(final Path absoluteFile) {
+		Entry entry = entries.get(absoluteFile);
+		if (entry != null && --entry.watcherCount == 0) {
+			entries.remove(absoluteFile);
+			Path directoryPath = absoluteFile.getParent();
+			Directory directory = directoryPath == null ? null : directories.get(directoryPath);
+			if (directory != null && directory.remove(absoluteFile.getFileName())) {
+				directories.remove(directoryPath);
+			}
+		}
+	}
+
+	/**
+	 * Read the attributes of a polled file.
+	 * @param absoluteFile absolute path of the polled file
+	 * @param maxAgeInNanos maximum age of a previous read, that may be used to answer the request
+	 * @return the attributes of the file or null, when the file does not exist
+	 * @throws IOException when the attributes can not be read
+	 */
+	/*package*/ BasicFileAttributes readAttributes(final Path absoluteFile, final long maxAgeInNanos) throws IOException {
+		Path directoryPath = absoluteFile.getParent();
+		Directory directory = directoryPath == null ? null : directories.get(directoryPath);
+		if (directory != null && directory.fileCount() >= listingThreshold) {
+			return directory.readAttributes(absoluteFile.getFileName(), maxAgeInNanos);
+		}
+		Entry entry = entries.get(absoluteFile);
+		if (entry == null || !entry.isShared()) {
+			return read(absoluteFile);
+		}
+		return entry.readAttributes(maxAgeInNanos);
+	}
+
+	private static BasicFileAttributes read(final Path file) throws IOException {
+		try {
+			return FileState.readAttributes(file);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * A polled file together with its last read attributes.
+	 */
+	private static final class Entry {
+		private final Path file;
+		private BasicFileAttributes attributes;
+		private long readAtNanos;
+		private boolean read;
+		private volatile int watcherCount;
+
+		private Entry(final Path file) {
+			this.file = file;
+		}
+
+		private boolean isShared() {
+			return watcherCount > 1;
+		}
+
+		private synchronized BasicFileAttributes readAttributes(final long maxAgeInNanos) throws IOException {
+			long now = System.nanoTime();
+			if (!read || now - readAtNanos > maxAgeInNanos) {
+				attributes = read(file);
+				readAtNanos = now;
+				read = true;
+			}
+			return attributes;
+		}
+	}
+
+	/**
+	 * The polled files of one directory together with its last listing.
+	 */
+	private static final class Directory {
+		private final Path path;
+		private final Set<Path> fileNames = ConcurrentHashMap.newKeySet();
+		private Map<Path, BasicFileAttributes> listing;
+		private long listedAtNanos;
+
+		private Directory(final Path path) {
+			this.path = path;
+		}
+
+		private int fileCount() {
+			return fileNames.size();
+		}
+
+		private synchronized void add(final Path fileName) {
+			fileNames.add(fileName);
+			// the new file is not part of the last listing
+			listing = null;
+		}
+
+		/**
+		 * @return true, when the last polled file of the directory was removed
+		 */
+		private synchronized boolean remove(final Path fileName) {
+			fileNames.remove(fileName);
+			return fileNames.isEmpty();
+		}
+
+		private synchronized BasicFileAttributes readAttributes(final Path fileName, final long maxAgeInNanos) throws IOException {
+			long now = System.nanoTime();
+			if (listing == null || now - listedAtNanos > maxAgeInNanos) {
+				listing = list();
+				listedAtNanos = now;
+			}
+			return listing.get(fileName);
+		}
+
+		private Map<Path, BasicFileAttributes> list() throws IOException {
+			Map<Path, BasicFileAttributes> result = new HashMap<>();
+			WatcherMetrics.increment(MetricsRecorder.Counter.STAT_CALLS);
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(path)) {
+				for (Path entry : entries) {
+					Path fileName = entry.getFileName();
+					if (fileNames.contains(fileName)) {
+						// read through the path of the listing, that carries or cached the attributes
+						BasicFileAttributes attributes = read(entry);
+						if (attributes != null) {
+							result.put(fileName, attributes);
+						}
+					}
+				}
+			} catch (NoSuchFileException e) {
+				// the directory does not exist, so none of the polled files exist
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,213 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.DirectBuffers;
+import name.finsterwalder.utils.Ensure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * A FileChangeEventListener, that follows append only files like logs or journals. It remembers how far every file was read and
+ * on every change passes on only the data, that was appended since, instead of the whole file.
+ *
+ * The appended data is either passed to a {@link TailListener} as a read only ByteBuffer, or it is transferred to a
+ * WritableByteChannel with {@link FileChannel#transferTo(long, long, WritableByteChannel)}. In both cases the data is not
+ * copied into the heap. The TailListener receives the data in chunks of at most {@value DirectBuffers#BUFFER_SIZE} bytes, that
+ * are read with {@link FileChannel#read(ByteBuffer, long)} into a direct buffer, which belongs to the TailFollower. The file is
+ * not memory mapped, since the access to a mapped region of a file, that is truncated concurrently, crashes the reading thread.
+ *
+ * Rotation is detected in both common styles: when the file was renamed and a new file was created in its place, the file key
+ * of the file changes. When the file was copied and truncated, it is shorter than the data already read. In both cases the file
+ * is read again from its start. A truncated file, that grew beyond the read position again before the change was notified, can
+ * not be told apart from a file, that was appended to.
+ *
+ * Files, that were not followed with {@link #follow(Path)} before their first change, are read from their start.
+ *
+ * <pre>
+ * TailFollower tail = new TailFollower((file, appended) -&gt; parse(appended));
+ * tail.follow(logFile);
+ * new NioFileWatcher(logFile, tail, 100, FileChangeEvent.Kind.all());
+ * </pre>
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 16:20
+ */
+public final class TailFollower implements FileChangeEventListener {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TailFollower.class);
+	private static final int MAX_OPEN_ATTEMPTS = 3;
+
+	private final TailListener listener;
+	private final WritableByteChannel target;
+	private final Map<Path, Position> positions = new ConcurrentHashMap<>();
+
+	/**
+	 * Create a TailFollower, that passes the appended data to the given listener.
+	 * @param listener Listener to pass the appended data to
+	 */
+	public TailFollower(final TailListener listener) {
+		Ensure.notNull(listener, "listener");
+		this.listener = listener;
+		this.target = null;
+	}
+
+	/**
+	 * Create a TailFollower, that transfers the appended data to the given channel. A rotation is not signalled to the channel.
+	 * @param target Channel to transfer the appended data to
+	 */
+	public TailFollower(final WritableByteChannel target) {
+		Ensure.notNull(target, "target");
+		this.listener = null;
+		this.target = target;
+	}
+
+	/**
+	 * Start to follow a file at its current end. Only data, that is appended later, is passed on.
+	 * @param file File to follow
+	 * @throws IOException when the attributes of the file can not be read
+	 */
+	public void follow(final Path file) throws IOException {
+		Path absoluteFile = file.toAbsolutePath();
+		BasicFileAttributes attributes = FileState.readAttributes(absoluteFile);
+		positions.put(absoluteFile, new Position(attributes.fileKey(), attributes.size()));
+	}
+
+	/**
+	 * @param file File to get the position of
+	 * @return The number of bytes of the file, that were passed on, or -1, when the file is not followed
+	 */
+	public long position(final Path file) {
+		Position position = positions.get(file.toAbsolutePath());
+		return position == null ? -1 : position.offset;
+	}
+
+	@Override
+	public void fileChanged(final FileChangeEvent event) {
+		Path file = event.getPath();
+		if (event.getKind() == FileChangeEvent.Kind.DELETED) {
+			positions.remove(file);
+			return;
+		}
+		if (event.getAttributes() != null && event.getAttributes().isDirectory()) {
+			return;
+		}
+		Position position = positions.computeIfAbsent(file, f -> new Position(null, 0));
+		synchronized (position) {
+			try {
+				readAppended(file, position);
+			} catch (NoSuchFileException e) {
+				positions.remove(file, position);
+			} catch (IOException e) {
+				LOGGER.warn("Could not read the appended data of {}.", file, e);
+			}
+		}
+	}
+
+	private void readAppended(final Path file, final Position position) throws IOException {
+		for (int attempt = 1; ; attempt++) {
+			Object fileKey = FileState.readAttributes(file).fileKey();
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				// Java can not read the file key of an open channel. When the key did not change while the channel was opened,
+				// the channel belongs to the file with that key.
+				if (Objects.equals(fileKey, FileState.readAttributes(file).fileKey())) {
+					readAppended(file, channel, fileKey, position);
+					return;
+				}
+			}
+			if (attempt == MAX_OPEN_ATTEMPTS) {
+				throw new IOException(file + " was replaced while it was opened " + attempt + " times in a row");
+			}
+		}
+	}
+
+	private void readAppended(final Path file, final FileChannel channel, final Object fileKey, final Position position) throws IOException {
+		long size = channel.size();
+		boolean replaced = position.fileKey != null && !Objects.equals(position.fileKey, fileKey);
+		if (replaced || size < position.offset) {
+			LOGGER.debug("{} was rotated.", file);
+			position.offset = 0;
+			if (listener != null) {
+				listener.rotated(file);
+			}
+		}
+		position.fileKey = fileKey;
+		if (listener != null) {
+			passAppended(file, channel, size, position);
+		} else {
+			transferAppended(channel, size, position);
+		}
+	}
+
+	private void passAppended(final Path file, final FileChannel channel, final long size, final Position position) throws IOException {
+		ByteBuffer buffer = DirectBuffers.take();
+		try {
+			while (position.offset < size) {
+				buffer.clear();
+				buffer.limit((int)Math.min(buffer.capacity(), size - position.offset));
+				int length = channel.read(buffer, position.offset);
+				if (length <= 0) {
+					// the file was truncated while it was read, which is detected with the next change
+					return;
+				}
+				buffer.flip();
+				listener.appended(file, buffer.asReadOnlyBuffer());
+				position.offset += length;
+			}
+		} finally {
+			DirectBuffers.release(buffer);
+		}
+	}
+
+	private void transferAppended(final FileChannel channel, final long size, final Position position) throws IOException {
+		while (position.offset < size) {
+			long length = channel.transferTo(position.offset, size - position.offset, target);
+			if (length <= 0) {
+				// the target does not accept more data right now, the rest is transferred with the next change
+				return;
+			}
+			position.offset += length;
+		}
+	}
+
+	/**
+	 * How far a file was read and the file key of the file, that was read.
+	 */
+	private static final class Position {
+		private Object fileKey;
+		private volatile long offset;
+
+		private Position(final Object fileKey, final long offset) {
+			this.fileKey = fileKey;
+			this.offset = offset;
+		}
+	}
+}
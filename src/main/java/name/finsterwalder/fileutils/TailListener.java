@@ -0,0 +1,46 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Callback interface of the {@link TailFollower} to receive the data, that was appended to a file.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 16:20
+ */
+public interface TailListener {
+
+	/**
+	 * This method is called with the data, that was appended to a file since the last call. Large appends are passed on in
+	 * several calls.
+	 * @param file The absolute path of the file
+	 * @param appended A read only buffer with the appended data. It is reused after the call, so it must not be kept.
+	 */
+	void appended(Path file, ByteBuffer appended);
+
+	/**
+	 * This method is called, when the file was rotated, before the content of the new file is passed to
+	 * {@link #appended(Path, ByteBuffer)} from its start.
+	 * @param file The absolute path of the file
+	 */
+	default void rotated(Path file) {
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Decides, when in its interval a {@link PollingFileWatcher} polls its file.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 17:50
+ */
+public enum TickAlignment {
+
+	/**
+	 * Polls start when the watcher is created, so they happen at random phases of the interval.
+	 */
+	NONE,
+
+	/**
+	 * All polls with the same interval happen on a shared tick. A host with many idle watchers wakes up only once per interval.
+	 */
+	ALIGNED,
+
+	/**
+	 * The polls of all watchers are spread evenly over the interval, so a file server does not get the stat calls of all
+	 * watchers in the same millisecond. The phases follow the golden ratio sequence, which stays evenly distributed no matter
+	 * how many watchers are created.
+	 */
+	SPREAD;
+
+	private static final double GOLDEN_RATIO_FRACTION = 0.6180339887498949;
+	private static final long EPOCH_IN_NANOS = System.nanoTime();
+	private static final AtomicLong SPREAD_SEQUENCE = new AtomicLong();
+
+	/**
+	 * @return The phase of a new watcher as fraction of the interval, that is 0 for the start of the interval and less than 1
+	 */
+	/*package*/ double newPhase() {
+		if (this == SPREAD) {
+			double phase = SPREAD_SEQUENCE.incrementAndGet() * GOLDEN_RATIO_FRACTION;
+			return phase - Math.floor(phase);
+		}
+		return 0;
+	}
+
+	/**
+	 * @param intervalInMs The interval
+	 * @param phase The phase of the watcher, see {@link #newPhase()}
+	 * @return The delay until the next poll
+	 */
+	/*package*/ long delayInMs(final long intervalInMs, final double phase) {
+		return delayInMs(intervalInMs, phase, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - EPOCH_IN_NANOS));
+	}
+
+	/*package*/ long delayInMs(final long intervalInMs, final double phase, final long elapsedInMs) {
+		if (this == NONE) {
+			return intervalInMs;
+		}
+		long offsetInMs = Math.round(phase * intervalInMs);
+		long delay = Math.floorMod(offsetInMs - elapsedInMs, intervalInMs);
+		// A poll, that runs a little early, must not poll again right away
+		if (delay < intervalInMs / 4) {
+			delay += intervalInMs;
+		}
+		return delay;
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Ensure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Counts a file as written completely, when a shared lock on the whole file can be acquired without blocking. The lock is released
+ * right away. A file, that does not exist anymore or may not be read, counts as complete, so the change is not delayed forever.
+ * Other errors count as locked, since on Windows a file can not be opened, while its writer still has it open. After
+ * {@value #MAX_FAILED_PROBES} failed probes in a row the file counts as complete as well.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:40
+ */
+/*package*/ final class UnlockedFileDetector implements WriteCompletionDetector {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(UnlockedFileDetector.class);
+	/*package*/ static final int MAX_FAILED_PROBES = 100;
+
+	private final long probeIntervalInMs;
+
+	/*package*/ UnlockedFileDetector(final long probeIntervalInMs) {
+		Ensure.that(probeIntervalInMs > 0, "probe interval > 0");
+		this.probeIntervalInMs = probeIntervalInMs;
+	}
+
+	@Override
+	public long delayInMs() {
+		return probeIntervalInMs;
+	}
+
+	@Override
+	public Check newCheck(final Path file) {
+		return new Check() {
+			private int failedProbes;
+
+			@Override
+			public boolean isComplete() {
+				try {
+					boolean unlocked = isUnlocked(file);
+					failedProbes = 0;
+					return unlocked;
+				} catch (IOException e) {
+					if (++failedProbes >= MAX_FAILED_PROBES) {
+						LOGGER.warn("Could not lock {} in {} tries. It counts as written completely.", file, failedProbes, e);
+						return true;
+					}
+					// On Windows a file, that is still opened by its writer, can not be opened
+					LOGGER.debug("Could not lock {}.", file, e);
+					return false;
+				}
+			}
+		};
+	}
+
+	/**
+	 * @throws IOException when the file could not be opened or locked for another reason than a missing file or permission
+	 */
+	/*package*/ static boolean isUnlocked(final Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			FileLock lock = channel.tryLock(0, Long.MAX_VALUE, true);
+			if (lock == null) {
+				return false;
+			}
+			lock.release();
+			return true;
+		} catch (OverlappingFileLockException e) {
+			// Locked by this JVM
+			return false;
+		} catch (NoSuchFileException | AccessDeniedException e) {
+			return true;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "unlocked(" + probeIntervalInMs + "ms)";
+	}
+}
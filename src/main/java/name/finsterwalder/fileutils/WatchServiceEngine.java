@@ -0,0 +1,603 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Ensure;
+import name.finsterwalder.utils.HashedWheelTimer;
+import name.finsterwalder.utils.ScheduledExecutor;
+import name.finsterwalder.utils.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+
+/**
+ * Process wide engine, that multiplexes all NioFileWatchers onto a single WatchService per FileSystem.
+ *
+ * On Linux every WatchService is an inotify instance and the number of instances per user is limited (128 by default).
+ * The engine therefore opens only one WatchService per FileSystem and serves all watchers from a single event loop thread.
+ * Directory registrations are reference counted, so all watchers of files in the same directory share one WatchKey.
+ * Events are routed to the interested handlers with a hash lookup on the file name. Handlers can also be registered for a whole
+ * directory, they receive the events of all files in it. Every handler subscribes to a set of event kinds and a directory is
+ * registered only for the kinds, that at least one of its handlers is interested in.
+ *
+ * The engine keeps the last known state of the watched files (see {@link DirectorySnapshot}). When the queue of the WatchService
+ * overflows and events are lost, the directory is scanned again and the missed changes are delivered as if they were reported.
+ *
+ * When a watched directory is deleted, its WatchKey becomes invalid. The handlers stay registered and the directory is registered
+ * again every {@value #REATTACH_INTERVAL_IN_MS}ms on the shared scheduler of the PollingFileWatchers, until it exists again,
+ * or right away, when another handler is registered for it. The changes since the last known state are delivered then.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 09:12
+ */
+/*package*/ final class WatchServiceEngine {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(WatchServiceEngine.class);
+	private static final WatchServiceEngine INSTANCE = new WatchServiceEngine();
+	/*package*/ static final long REATTACH_INTERVAL_IN_MS = 1000;
+
+	private final Map<FileSystem, FileSystemWatch> fileSystemWatches = new HashMap<>();
+	private volatile ScheduledExecutor debounceTimer;
+
+	/*package*/ static WatchServiceEngine getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Register a handler for changes to a single file. The parent directory of the file is registered with the WatchService of its
+	 * FileSystem, unless it is already registered for another file.
+	 *
+	 * @param absoluteFile File to watch. Needs to have a parent directory.
+	 * @param kinds Kinds of events the handler is interested in
+	 * @param handler Handler to call from the event loop thread for every event concerning the file
+	 * @return The registration, that needs to be cancelled, when the file should no longer be watched
+	 * @throws IOException when the directory can not be registered
+	 */
+	/*package*/ Registration register(final Path absoluteFile, final Set<WatchEvent.Kind<?>> kinds, final WatchEventHandler handler)
+			throws IOException {
+		Ensure.notNull(absoluteFile, "absoluteFile");
+		Ensure.notNull(handler, "handler");
+		final Path directory = absoluteFile.getParent();
+		Ensure.notNull(directory, "parent directory");
+		return register(directory, absoluteFile.getFileName(), new Subscription(kinds, null, handler));
+	}
+
+	/**
+	 * Register a handler for changes to all files in a directory. Files in subdirectories are not included.
+	 *
+	 * @param absoluteDirectory Directory to watch
+	 * @param kinds Kinds of events the handler is interested in
+	 * @param handler Handler to call from the event loop thread for every event in the directory
+	 * @return The registration, that needs to be cancelled, when the directory should no longer be watched
+	 * @throws IOException when the directory can not be registered
+	 */
+	/*package*/ Registration registerDirectory(final Path absoluteDirectory, final Set<WatchEvent.Kind<?>> kinds,
+	                                                        final WatchEventHandler handler) throws IOException {
+		return registerDirectory(absoluteDirectory, kinds, null, handler);
+	}
+
+	/**
+	 * Register a handler for changes to the files in a directory, whose names are accepted by the filter. Files in subdirectories
+	 * are not included. The filter is applied to the file name of an event on the event loop thread, before any other work is done.
+	 *
+	 * @param absoluteDirectory Directory to watch
+	 * @param kinds Kinds of events the handler is interested in
+	 * @param fileNameFilter Filter of the file names, null for all files
+	 * @param handler Handler to call from the event loop thread for every accepted event in the directory
+	 * @return The registration, that needs to be cancelled, when the directory should no longer be watched
+	 * @throws IOException when the directory can not be registered
+	 */
+	/*package*/ Registration registerDirectory(final Path absoluteDirectory, final Set<WatchEvent.Kind<?>> kinds,
+	                                           final PathMatcher fileNameFilter, final WatchEventHandler handler) throws IOException {
+		Ensure.notNull(absoluteDirectory, "absoluteDirectory");
+		Ensure.notNull(handler, "handler");
+		return register(absoluteDirectory, null, new Subscription(kinds, fileNameFilter, handler));
+	}
+
+	/**
+	 * The directory is registered while holding the lock of the engine. The state of the files is read afterwards, so
+	 * registrations of other watchers and the event loop are not held up by the file system.
+	 */
+	private Registration register(final Path directory, final Path fileName, final Subscription subscription) throws IOException {
+		Registration registration = registerLocked(directory, fileName, subscription);
+		registration.directoryWatch.snapshot.takeBaseline();
+		return registration;
+	}
+
+	private synchronized Registration registerLocked(final Path directory, final Path fileName, final Subscription subscription)
+			throws IOException {
+		Ensure.notEmpty(subscription.kinds, "kinds");
+		final FileSystem fileSystem = directory.getFileSystem();
+		FileSystemWatch fileSystemWatch = fileSystemWatches.get(fileSystem);
+		if (fileSystemWatch == null) {
+			fileSystemWatch = new FileSystemWatch(fileSystem);
+			fileSystemWatches.put(fileSystem, fileSystemWatch);
+		}
+		try {
+			return fileSystemWatch.register(directory, fileName, subscription);
+		} finally {
+			closeIfUnused(fileSystemWatch);
+		}
+	}
+
+	/**
+	 * The timer, that is shared by all NioFileWatchers by default to delay notifications for the grace period.
+	 * It is a timing wheel, since bursts of events schedule and supersede many timers.
+	 */
+	/*package*/ ScheduledExecutor debounceTimer() {
+		ScheduledExecutor result = debounceTimer;
+		if (result == null) {
+			synchronized (this) {
+				result = debounceTimer;
+				if (result == null) {
+					debounceTimer = result = new HashedWheelTimer(HashedWheelTimer.DEFAULT_TICK_DURATION_IN_MS, TimeUnit.MILLISECONDS,
+							HashedWheelTimer.DEFAULT_TICKS_PER_WHEEL, "NioFileWatcher-debounce");
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return The number of grace periods waiting in the shared timer. The timer is not created by this method.
+	 */
+	/*package*/ long pendingGracePeriods() {
+		ScheduledExecutor result = debounceTimer;
+		return result instanceof HashedWheelTimer ? ((HashedWheelTimer)result).pendingTimeouts() : 0;
+	}
+
+	private synchronized void unregister(final FileSystemWatch fileSystemWatch, final DirectoryWatch directoryWatch, final Path fileName,
+	                                     final Subscription subscription) {
+		fileSystemWatch.unregister(directoryWatch, fileName, subscription);
+		closeIfUnused(fileSystemWatch);
+	}
+
+	private void closeIfUnused(final FileSystemWatch fileSystemWatch) {
+		if (fileSystemWatch.isUnused()) {
+			fileSystemWatches.remove(fileSystemWatch.fileSystem);
+			fileSystemWatch.close();
+		}
+	}
+
+	/*package*/ synchronized int registeredDirectoryCount() {
+		int count = 0;
+		for (FileSystemWatch fileSystemWatch : fileSystemWatches.values()) {
+			count += fileSystemWatch.directoriesByRealPath.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Callback for events concerning a watched file or a file in a watched directory. Called on the event loop thread,
+	 * so it should return quickly.
+	 */
+	/*package*/ interface WatchEventHandler {
+		void handle(WatchEvent.Kind<?> kind, Path absoluteFile);
+	}
+
+	/**
+	 * Handle for a registered handler.
+	 */
+	/*package*/ final class Registration {
+		private final FileSystemWatch fileSystemWatch;
+		private final DirectoryWatch directoryWatch;
+		private final Path fileName;
+		private final Subscription subscription;
+		private boolean cancelled;
+
+		private Registration(final FileSystemWatch fileSystemWatch, final DirectoryWatch directoryWatch, final Path fileName,
+		                     final Subscription subscription) {
+			this.fileSystemWatch = fileSystemWatch;
+			this.directoryWatch = directoryWatch;
+			this.fileName = fileName;
+			this.subscription = subscription;
+		}
+
+		/**
+		 * Stop delivering events to the handler. The directory is unregistered, when no other handler needs it anymore.
+		 * Calling cancel more than once has no further effect.
+		 */
+		/*package*/ void cancel() {
+			synchronized (WatchServiceEngine.this) {
+				if (!cancelled) {
+					cancelled = true;
+					unregister(fileSystemWatch, directoryWatch, fileName, subscription);
+				}
+			}
+		}
+	}
+
+	/**
+	 * One WatchService with its event loop thread. All mutations happen while holding the lock of the engine,
+	 * the event loop only reads the concurrent maps.
+	 */
+	private final class FileSystemWatch implements Runnable {
+		private final FileSystem fileSystem;
+		private final WatchService watchService;
+		private final Map<WatchKey, DirectoryWatch> directories = new ConcurrentHashMap<>();
+		private final Map<Path, DirectoryWatch> directoriesByRealPath = new HashMap<>();
+		/** Directories, whose WatchKey became invalid, while they were still watched */
+		private final Set<DirectoryWatch> detached = new HashSet<>();
+		private ScheduledFuture<?> reattachFuture;
+
+		private FileSystemWatch(final FileSystem fileSystem) throws IOException {
+			this.fileSystem = fileSystem;
+			this.watchService = fileSystem.newWatchService();
+			Threads.newThread("NioFileWatcher-" + fileSystem, this).start();
+		}
+
+		private Registration register(final Path directory, final Path fileName, final Subscription subscription) throws IOException {
+			// The same directory may be reached through different paths, e.g. symbolic links
+			Path realDirectory = directory.toRealPath();
+			DirectoryWatch directoryWatch = directoriesByRealPath.get(realDirectory);
+			if (directoryWatch == null) {
+				directoryWatch = new DirectoryWatch(directory, realDirectory, directory.register(watchService, toArray(subscription.kinds)));
+				directories.put(directoryWatch.watchKey, directoryWatch);
+				directoriesByRealPath.put(realDirectory, directoryWatch);
+			} else if (!directoryWatch.watchKey.isValid()) {
+				// a directory, that was deleted and created again, needs a new WatchKey. Its handlers move to the new key.
+				reattach(directoryWatch);
+				detached.remove(directoryWatch);
+				recoverLater(directoryWatch);
+			}
+			if (directoryWatch.add(fileName, subscription)) {
+				// Registering a directory again changes the kinds of the existing WatchKey
+				try {
+					directoryWatch.directory.register(watchService, toArray(directoryWatch.kinds()));
+				} catch (IOException | RuntimeException e) {
+					directoryWatch.remove(fileName, subscription);
+					throw e;
+				}
+			}
+			return new Registration(this, directoryWatch, fileName, subscription);
+		}
+
+		private void unregister(final DirectoryWatch directoryWatch, final Path fileName, final Subscription subscription) {
+			if (!directoryWatch.remove(fileName, subscription)) {
+				return;
+			}
+			if (directoryWatch.isUnused()) {
+				directories.remove(directoryWatch.watchKey, directoryWatch);
+				directoriesByRealPath.remove(directoryWatch.realDirectory, directoryWatch);
+				detached.remove(directoryWatch);
+				directoryWatch.watchKey.cancel();
+			} else if (directoryWatch.watchKey.isValid()) {
+				try {
+					directoryWatch.directory.register(watchService, toArray(directoryWatch.kinds()));
+				} catch (IOException e) {
+					LOGGER.info("Could not reduce the watched events of directory {}.", directoryWatch.directory, e);
+				}
+			}
+		}
+
+		private boolean isUnused() {
+			return directoriesByRealPath.isEmpty();
+		}
+
+		/**
+		 * Register a directory, whose WatchKey became invalid, again. Needs to be called while holding the lock of the engine.
+		 * @throws IOException when the directory does not exist or is another directory now
+		 */
+		private void reattach(final DirectoryWatch directoryWatch) throws IOException {
+			if (!directoryWatch.directory.toRealPath().equals(directoryWatch.realDirectory)) {
+				throw new IOException(directoryWatch.directory + " leads to another directory now");
+			}
+			WatchKey watchKey = directoryWatch.directory.register(watchService, toArray(directoryWatch.kinds()));
+			directories.remove(directoryWatch.watchKey, directoryWatch);
+			directoryWatch.watchKey = watchKey;
+			directories.put(watchKey, directoryWatch);
+		}
+
+		/**
+		 * Called on the event loop thread, when a WatchKey could not be reset.
+		 */
+		private void invalidated(final WatchKey watchKey, final DirectoryWatch directoryWatch) {
+			synchronized (WatchServiceEngine.this) {
+				if (directoryWatch == null) {
+					directories.remove(watchKey);
+					return;
+				}
+				if (directoryWatch.watchKey != watchKey || directoryWatch.isUnused()) {
+					// already registered again or no longer watched
+					return;
+				}
+				directories.remove(watchKey, directoryWatch);
+				detached.add(directoryWatch);
+				scheduleReattach();
+			}
+			LOGGER.info("Directory {} can no longer be watched. It is watched again, once it exists again.", directoryWatch.directory);
+		}
+
+		/**
+		 * Needs to be called while holding the lock of the engine.
+		 */
+		private void scheduleReattach() {
+			if (reattachFuture == null && !detached.isEmpty()) {
+				reattachFuture = PollingFileWatcher.defaultScheduler().schedule(this::reattachDetached, REATTACH_INTERVAL_IN_MS, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		private void reattachDetached() {
+			List<DirectoryWatch> reattached = new ArrayList<>();
+			synchronized (WatchServiceEngine.this) {
+				reattachFuture = null;
+				for (Iterator<DirectoryWatch> iterator = detached.iterator(); iterator.hasNext(); ) {
+					DirectoryWatch directoryWatch = iterator.next();
+					try {
+						reattach(directoryWatch);
+						iterator.remove();
+						reattached.add(directoryWatch);
+					} catch (IOException | ClosedWatchServiceException e) {
+						LOGGER.debug("Directory {} can not be watched yet.", directoryWatch.directory, e);
+					}
+				}
+				scheduleReattach();
+			}
+			for (DirectoryWatch directoryWatch : reattached) {
+				recover(directoryWatch);
+			}
+		}
+
+		/**
+		 * Deliver the changes, that happened while the directory was not watched, without holding the lock of the engine.
+		 */
+		private void recoverLater(final DirectoryWatch directoryWatch) {
+			PollingFileWatcher.defaultScheduler().schedule(() -> recover(directoryWatch), 0, TimeUnit.MILLISECONDS);
+		}
+
+		private void recover(final DirectoryWatch directoryWatch) {
+			LOGGER.info("Directory {} is watched again.", directoryWatch.directory);
+			directoryWatch.recover(directoryWatch.directory);
+		}
+
+		private void close() {
+			if (reattachFuture != null) {
+				reattachFuture.cancel(false);
+				reattachFuture = null;
+			}
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				LOGGER.info("Could not close WatchService for {}", fileSystem, e);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					WatchKey watchKey = watchService.take();
+					Path directory = (Path)watchKey.watchable();
+					DirectoryWatch directoryWatch = directories.get(watchKey);
+					boolean overflow = false;
+					for (WatchEvent<?> event : watchKey.pollEvents()) {
+						WatcherMetrics.increment(MetricsRecorder.Counter.EVENTS_RECEIVED);
+						if (OVERFLOW == event.kind()) {
+							overflow = true;
+						} else if (directoryWatch != null) {
+							directoryWatch.dispatch(directory, event.kind(), (Path)event.context());
+						}
+					}
+					if (overflow) {
+						WatcherMetrics.increment(MetricsRecorder.Counter.OVERFLOWS);
+					}
+					if (overflow && directoryWatch != null) {
+						directoryWatch.recover(directory);
+					}
+					if (!watchKey.reset()) {
+						invalidated(watchKey, directoryWatch);
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ClosedWatchServiceException e) {
+				// nothing to do, the last directory of this FileSystem was unregistered
+			}
+		}
+	}
+
+	private static WatchEvent.Kind<?>[] toArray(final Set<WatchEvent.Kind<?>> kinds) {
+		return kinds.toArray(new WatchEvent.Kind<?>[kinds.size()]);
+	}
+
+	/**
+	 * A handler together with the kinds of events it is interested in.
+	 */
+	private static final class Subscription {
+		private final Set<WatchEvent.Kind<?>> kinds;
+		private final PathMatcher fileNameFilter;
+		private final WatchEventHandler handler;
+
+		private Subscription(final Set<WatchEvent.Kind<?>> kinds, final PathMatcher fileNameFilter, final WatchEventHandler handler) {
+			this.kinds = kinds;
+			this.fileNameFilter = fileNameFilter;
+			this.handler = handler;
+		}
+
+		private boolean accepts(final Path fileName) {
+			return fileNameFilter == null || fileNameFilter.matches(fileName);
+		}
+	}
+
+	/**
+	 * A registered directory with the handlers of all watched files inside of it and the handlers for the whole directory.
+	 * The number of handlers is the reference count of the WatchKey. The WatchKey is registered for the union of the kinds
+	 * of all handlers.
+	 */
+	private static final class DirectoryWatch {
+		private final Path directory;
+		private final Path realDirectory;
+		/** Replaced, when the directory is registered again after its WatchKey became invalid */
+		private volatile WatchKey watchKey;
+		private final Map<Path, List<Subscription>> subscriptionsByFileName = new ConcurrentHashMap<>();
+		private final List<Subscription> directorySubscriptions = new CopyOnWriteArrayList<>();
+		private final Map<WatchEvent.Kind<?>, Integer> kindCounts = new HashMap<>();
+		private final DirectorySnapshot snapshot;
+		private int handlerCount;
+
+		private DirectoryWatch(final Path directory, final Path realDirectory, final WatchKey watchKey) {
+			this.directory = directory;
+			this.realDirectory = realDirectory;
+			this.watchKey = watchKey;
+			this.snapshot = new DirectorySnapshot(directory);
+		}
+
+		private boolean isUnused() {
+			return handlerCount == 0;
+		}
+
+		private Set<WatchEvent.Kind<?>> kinds() {
+			return kindCounts.keySet();
+		}
+
+		/**
+		 * @return true, when the kinds of the directory changed
+		 */
+		private boolean add(final Path fileName, final Subscription subscription) {
+			handlerCount++;
+			if (fileName == null) {
+				directorySubscriptions.add(subscription);
+				snapshot.trackWholeDirectory(true);
+			} else {
+				List<Subscription> subscriptions = subscriptionsByFileName.get(fileName);
+				if (subscriptions == null) {
+					subscriptions = new CopyOnWriteArrayList<>();
+					subscriptionsByFileName.put(fileName, subscriptions);
+					snapshot.track(fileName);
+				}
+				subscriptions.add(subscription);
+			}
+			boolean kindsChanged = false;
+			for (WatchEvent.Kind<?> kind : subscription.kinds) {
+				Integer count = kindCounts.get(kind);
+				kindCounts.put(kind, count == null ? 1 : count + 1);
+				kindsChanged |= count == null;
+			}
+			return kindsChanged && handlerCount > 1;
+		}
+
+		/**
+		 * @return true, when the kinds of the directory changed, e.g. because the last handler was removed
+		 */
+		private boolean remove(final Path fileName, final Subscription subscription) {
+			boolean removed;
+			if (fileName == null) {
+				removed = directorySubscriptions.remove(subscription);
+				if (removed && directorySubscriptions.isEmpty()) {
+					snapshot.trackWholeDirectory(false);
+				}
+			} else {
+				List<Subscription> subscriptions = subscriptionsByFileName.get(fileName);
+				removed = subscriptions != null && subscriptions.remove(subscription);
+				if (removed && subscriptions.isEmpty()) {
+					subscriptionsByFileName.remove(fileName);
+					snapshot.untrack(fileName);
+				}
+			}
+			if (!removed) {
+				return false;
+			}
+			handlerCount--;
+			boolean kindsChanged = false;
+			for (WatchEvent.Kind<?> kind : subscription.kinds) {
+				int count = kindCounts.get(kind);
+				if (count == 1) {
+					kindCounts.remove(kind);
+					kindsChanged = true;
+				} else {
+					kindCounts.put(kind, count - 1);
+				}
+			}
+			return kindsChanged;
+		}
+
+		private void dispatch(final Path directory, final WatchEvent.Kind<?> kind, final Path fileName) {
+			if (!subscriptionsByFileName.containsKey(fileName) && !acceptedByDirectorySubscriptions(fileName)) {
+				// nobody is interested, so neither the snapshot nor the path is touched
+				return;
+			}
+			snapshot.update(kind, fileName);
+			deliver(directory, kind, fileName);
+			snapshot.settleLater(PollingFileWatcher.defaultScheduler());
+		}
+
+		/**
+		 * Events were lost, because the queue of the WatchService overflowed. Scan the directory and deliver the changes, that
+		 * happened since the last known state.
+		 */
+		private void recover(final Path directory) {
+			int changes = snapshot.rescan((kind, fileName) -> deliver(directory, kind, fileName));
+			LOGGER.info("Events of directory {} were lost. Rescanning found {} missed changes.", directory, changes);
+		}
+
+		private boolean acceptedByDirectorySubscriptions(final Path fileName) {
+			for (Subscription subscription : directorySubscriptions) {
+				if (subscription.accepts(fileName)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void deliver(final Path directory, final WatchEvent.Kind<?> kind, final Path fileName) {
+			List<Subscription> subscriptions = subscriptionsByFileName.get(fileName);
+			if (subscriptions != null || acceptedByDirectorySubscriptions(fileName)) {
+				Path absoluteFile = directory.resolve(fileName);
+				if (subscriptions != null) {
+					dispatch(subscriptions, kind, fileName, absoluteFile);
+				}
+				dispatch(directorySubscriptions, kind, fileName, absoluteFile);
+			}
+		}
+
+		private static void dispatch(final List<Subscription> subscriptions, final WatchEvent.Kind<?> kind, final Path fileName,
+		                             final Path absoluteFile) {
+			for (Subscription subscription : subscriptions) {
+				if (subscription.kinds.contains(kind) && subscription.accepts(fileName)) {
+					try {
+						subscription.handler.handle(kind, absoluteFile);
+					} catch (RuntimeException e) {
+						LOGGER.warn("Could not handle change of file {}.", absoluteFile, e);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,333 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Checksums;
+import name.finsterwalder.utils.Ensure;
+import name.finsterwalder.utils.ScheduledExecutor;
+import name.finsterwalder.utils.ScheduledExecutorDefaultImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Persists the state of watched files (last modified time, size, file key and optionally a checksum of the content) to a
+ * compact local file, so changes, that were made while the JVM was not running, can be reported at startup.
+ *
+ * A file is tracked with {@link #track(Path, FileChangeEventListener)}. It compares the current state of the file to the stored
+ * state and reports a change right away on the calling thread, when they differ. It returns a listener to register with the
+ * watcher of the file, that records the state of every notified change.
+ * A file without a stored state is reported as created.
+ *
+ * Changed states are not written right away. The first change after a write schedules the next write after the flush delay
+ * ({@value #DEFAULT_FLUSH_DELAY_IN_MS}ms by default), so tracking many files at startup or a burst of changes writes the store
+ * only once. {@link #flush()} writes the changed states right away and {@link #close()} writes them before the store is closed.
+ * Changes, that were not written yet, are lost, when the JVM crashes, and are reported again at the next startup.
+ *
+ * With checksums a file, whose attributes differ but whose content is the same, e.g. because it was touched, is not reported.
+ * The store file contains the name of the checksum algorithm. Checksums of another algorithm are ignored.
+ *
+ * <pre>
+ * WatchStateStore store = new WatchStateStore(Paths.get("watch-state.bin"), true);
+ * new NioFileWatcher(configFile, store.track(configFile, listener), 1000, FileChangeEvent.Kind.all());
+ * </pre>
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 17:20
+ */
+public final class WatchStateStore implements Closeable {
+
+	public static final long DEFAULT_FLUSH_DELAY_IN_MS = 1000;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(WatchStateStore.class);
+	private static final int MAGIC = 0x46575332;
+
+	private final Path storeFile;
+	private final boolean withChecksums;
+	private final long flushDelayInMs;
+	private final ScheduledExecutor flushScheduler;
+	private final Map<Path, StoredState> states = new HashMap<>();
+	private final Object writeLock = new Object();
+	private long version;
+	private long writtenVersion;
+	private ScheduledFuture<?> scheduledFlush;
+
+	/**
+	 * Load the stored states from the given file. A missing or unreadable file is treated as empty.
+	 * Changes are written after {@value #DEFAULT_FLUSH_DELAY_IN_MS}ms by a thread, that all stores share.
+	 * @param storeFile File to store the states in
+	 * @param withChecksums true to compare the content of files by a checksum, when their attributes differ
+	 */
+	public WatchStateStore(final Path storeFile, final boolean withChecksums) {
+		this(storeFile, withChecksums, DEFAULT_FLUSH_DELAY_IN_MS, FlushScheduler.INSTANCE);
+	}
+
+	/**
+	 * Load the stored states from the given file. A missing or unreadable file is treated as empty.
+	 * @param storeFile File to store the states in
+	 * @param withChecksums true to compare the content of files by a checksum, when their attributes differ
+	 * @param flushDelayInMs Time from the first change to the write of the store
+	 * @param flushScheduler ScheduledExecutor to write the store on
+	 */
+	public WatchStateStore(final Path storeFile, final boolean withChecksums, final long flushDelayInMs, final ScheduledExecutor flushScheduler) {
+		Ensure.notNull(storeFile, "storeFile");
+		Ensure.that(flushDelayInMs >= 0, "flushDelayInMs >= 0");
+		Ensure.notNull(flushScheduler, "flushScheduler");
+		this.storeFile = storeFile.toAbsolutePath();
+		this.withChecksums = withChecksums;
+		this.flushDelayInMs = flushDelayInMs;
+		this.flushScheduler = flushScheduler;
+		load();
+	}
+
+	/**
+	 * Report the change of the file since the stored state to the listener and return a listener for the watcher of the file,
+	 * that records the state of later changes.
+	 * @param file File to track
+	 * @param listener Listener to notify about changes
+	 * @return The listener to register with the watcher of the file
+	 */
+	public FileChangeEventListener track(final Path file, final FileChangeEventListener listener) {
+		Ensure.notNull(file, "file");
+		Ensure.notNull(listener, "listener");
+		FileChangeEvent offlineChange = offlineChange(file.toAbsolutePath());
+		if (offlineChange != null) {
+			listener.fileChanged(offlineChange);
+		}
+		return event -> {
+			record(event.getPath(), event.getKind() == FileChangeEvent.Kind.DELETED ? null : event.getAttributes());
+			listener.fileChanged(event);
+		};
+	}
+
+	/**
+	 * Compare the current state of a file to the stored one and store the current state.
+	 * @param absoluteFile File to compare
+	 * @return The change of the file or null, when it did not change
+	 */
+	private synchronized FileChangeEvent offlineChange(final Path absoluteFile) {
+		StoredState stored = states.get(absoluteFile);
+		BasicFileAttributes attributes;
+		try {
+			attributes = FileState.readAttributes(absoluteFile);
+		} catch (NoSuchFileException e) {
+			attributes = null;
+		} catch (IOException e) {
+			LOGGER.info("Could not read the state of {}.", absoluteFile, e);
+			return null;
+		}
+		if (attributes == null) {
+			if (stored == null) {
+				return null;
+			}
+			record(absoluteFile, null);
+			return new FileChangeEvent(FileChangeEvent.Kind.DELETED, absoluteFile, null);
+		}
+		StoredState current = read(absoluteFile, attributes, stored);
+		if (stored != null && (stored.hasSameAttributes(current) || stored.hasSameContent(current))) {
+			if (!stored.hasSameAttributes(current)) {
+				updateState(absoluteFile, current);
+			}
+			return null;
+		}
+		updateState(absoluteFile, current);
+		return new FileChangeEvent(stored == null ? FileChangeEvent.Kind.CREATED : FileChangeEvent.Kind.MODIFIED, absoluteFile, attributes);
+	}
+
+	private synchronized void record(final Path absoluteFile, final BasicFileAttributes attributes) {
+		if (attributes == null) {
+			if (states.remove(absoluteFile) != null) {
+				changed();
+			}
+		} else {
+			// the checksum is only computed, when the size stayed the same
+			updateState(absoluteFile, read(absoluteFile, attributes, states.get(absoluteFile)));
+		}
+	}
+
+	private void updateState(final Path absoluteFile, final StoredState state) {
+		states.put(absoluteFile, state);
+		changed();
+	}
+
+	private synchronized void changed() {
+		version++;
+		if (scheduledFlush == null) {
+			scheduledFlush = flushScheduler.schedule(this::flush, flushDelayInMs, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Write the states, that changed since the last write, to the store file right away.
+	 */
+	public void flush() {
+		Map<Path, StoredState> snapshot;
+		long snapshotVersion;
+		synchronized (this) {
+			if (scheduledFlush != null) {
+				scheduledFlush.cancel(false);
+				scheduledFlush = null;
+			}
+			snapshot = new HashMap<>(states);
+			snapshotVersion = version;
+		}
+		synchronized (writeLock) {
+			// a concurrent flush may already have written a newer snapshot
+			if (snapshotVersion > writtenVersion && save(snapshot)) {
+				writtenVersion = snapshotVersion;
+			}
+		}
+	}
+
+	/**
+	 * Write the states, that changed since the last write, to the store file. Changes, that are recorded afterwards, are
+	 * written again after the flush delay.
+	 */
+	@Override
+	public void close() {
+		flush();
+	}
+
+	private StoredState read(final Path file, final BasicFileAttributes attributes, final StoredState stored) {
+		long lastModified = attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+		String fileKey = attributes.fileKey() == null ? "" : attributes.fileKey().toString();
+		boolean checksumNeeded = withChecksums && !attributes.isDirectory()
+				&& (stored == null || stored.size == attributes.size());
+		if (checksumNeeded) {
+			try {
+				return new StoredState(lastModified, attributes.size(), fileKey, true, Checksums.contentChecksum(file));
+			} catch (IOException e) {
+				LOGGER.debug("Could not compute the checksum of {}.", file, e);
+			}
+		}
+		return new StoredState(lastModified, attributes.size(), fileKey, false, 0);
+	}
+
+	/**
+	 * Write the stored states to the store file. A temporary file is written and renamed, so the store is never left half written.
+	 * @return true, when the store file was written
+	 */
+	private boolean save(final Map<Path, StoredState> states) {
+		Path temp = storeFile.resolveSibling(storeFile.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+			out.writeInt(MAGIC);
+			out.writeUTF(Checksums.ALGORITHM);
+			out.writeInt(states.size());
+			for (Map.Entry<Path, StoredState> entry : states.entrySet()) {
+				StoredState state = entry.getValue();
+				out.writeUTF(entry.getKey().toString());
+				out.writeLong(state.lastModified);
+				out.writeLong(state.size);
+				out.writeUTF(state.fileKey);
+				out.writeBoolean(state.hasChecksum);
+				out.writeLong(state.checksum);
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Could not write watch state to {}.", temp, e);
+			return false;
+		}
+		try {
+			Files.move(temp, storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (IOException e) {
+			LOGGER.warn("Could not replace watch state {}.", storeFile, e);
+			return false;
+		}
+	}
+
+	private void load() {
+		if (!Files.exists(storeFile)) {
+			return;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(storeFile)))) {
+			if (in.readInt() != MAGIC) {
+				LOGGER.warn("{} is no watch state file. Starting without stored states.", storeFile);
+				return;
+			}
+			String algorithm = in.readUTF();
+			boolean sameAlgorithm = Checksums.ALGORITHM.equals(algorithm);
+			if (!sameAlgorithm) {
+				LOGGER.info("{} contains checksums of {} instead of {}. They are ignored.", storeFile, algorithm, Checksums.ALGORITHM);
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				Path file = storeFile.getFileSystem().getPath(in.readUTF());
+				long lastModified = in.readLong();
+				long size = in.readLong();
+				String fileKey = in.readUTF();
+				boolean hasChecksum = in.readBoolean() && sameAlgorithm;
+				long checksum = in.readLong();
+				states.put(file, new StoredState(lastModified, size, fileKey, hasChecksum, checksum));
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Could not read watch state from {}. Starting without stored states.", storeFile, e);
+			states.clear();
+		}
+	}
+
+	/**
+	 * The ScheduledExecutor, that writes all stores by default. It is only created, when a store uses it.
+	 */
+	private static final class FlushScheduler {
+		private static final ScheduledExecutor INSTANCE = new ScheduledExecutorDefaultImpl(1, "WatchStateStore-flush");
+	}
+
+	/**
+	 * The stored state of a file. The file key is stored as string, since file keys can not be serialized in general.
+	 */
+	private static final class StoredState {
+		private final long lastModified;
+		private final long size;
+		private final String fileKey;
+		private final boolean hasChecksum;
+		private final long checksum;
+
+		private StoredState(final long lastModified, final long size, final String fileKey, final boolean hasChecksum, final long checksum) {
+			this.lastModified = lastModified;
+			this.size = size;
+			this.fileKey = fileKey;
+			this.hasChecksum = hasChecksum;
+			this.checksum = checksum;
+		}
+
+		private boolean hasSameAttributes(final StoredState other) {
+			return lastModified == other.lastModified && size == other.size && Objects.equals(fileKey, other.fileKey);
+		}
+
+		private boolean hasSameContent(final StoredState other) {
+			return hasChecksum && other.hasChecksum && size == other.size && checksum == other.checksum;
+		}
+	}
+}
@@ -0,0 +1,340 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import name.finsterwalder.utils.Ensure;
+import name.finsterwalder.utils.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Counters and latency histograms of all watchers in the JVM. The watchers record into {@link LongAdder}s and
+ * {@link LatencyHistogram}s indexed by the enum constants of {@link MetricsRecorder}, so recording is lock-free and does not
+ * allocate. Every recording is passed on to the {@link MetricsRecorder}s, that were found with the {@link ServiceLoader} or added
+ * with {@link #addRecorder(MetricsRecorder)}.
+ *
+ * The metrics are registered as MXBean {@value #OBJECT_NAME} with the platform MBeanServer, unless the system property
+ * {@value #JMX_PROPERTY} is false. Besides the counters and timers it reports the depth of the shared queues and the CPU time of
+ * the threads of the watchers.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:50
+ */
+public final class WatcherMetrics implements WatcherMetricsMXBean {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(WatcherMetrics.class);
+	public static final String OBJECT_NAME = "name.finsterwalder.fileutils:type=WatcherMetrics";
+	public static final String JMX_PROPERTY = "fileutils.metrics.jmx";
+	private static final String[] THREAD_NAME_PREFIXES =
+			{"NioFileWatcher", "PollingFileWatcher", "InotifyFileWatcher", "FileChangeListener", "ReloadableResource"};
+	private static final long RATE_SAMPLE_PERIOD_IN_MS = 1000;
+
+	private static final LongAdder[] COUNTERS = new LongAdder[MetricsRecorder.Counter.values().length];
+	private static final LatencyHistogram[] TIMERS = new LatencyHistogram[MetricsRecorder.Timer.values().length];
+	private static final LongAdder QUEUED_NOTIFICATIONS = new LongAdder();
+	private static volatile MetricsRecorder[] recorders = new MetricsRecorder[0];
+	private static final WatcherMetrics INSTANCE;
+
+	static {
+		for (int i = 0; i < COUNTERS.length; i++) {
+			COUNTERS[i] = new LongAdder();
+		}
+		for (int i = 0; i < TIMERS.length; i++) {
+			TIMERS[i] = new LatencyHistogram();
+		}
+		try {
+			for (MetricsRecorder recorder : ServiceLoader.load(MetricsRecorder.class, WatcherMetrics.class.getClassLoader())) {
+				addRecorder(recorder);
+			}
+		} catch (ServiceConfigurationError e) {
+			LOGGER.warn("Could not load MetricsRecorders.", e);
+		}
+		INSTANCE = new WatcherMetrics();
+		if (Boolean.parseBoolean(System.getProperty(JMX_PROPERTY, "true"))) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+			} catch (JMException e) {
+				LOGGER.info("Could not register {} with JMX.", OBJECT_NAME, e);
+			}
+		}
+	}
+
+	// written by the sampling task only
+	private long sampledStatCalls;
+	private long sampledAtNanos;
+	private volatile double statCallsPerSecond;
+	private volatile boolean sampling;
+
+	private WatcherMetrics() {
+	}
+
+	/**
+	 * @return The metrics of all watchers in the JVM
+	 */
+	public static WatcherMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Pass on all further recordings to the given recorder.
+	 * @param recorder Recorder to add
+	 */
+	public static synchronized void addRecorder(final MetricsRecorder recorder) {
+		Ensure.notNull(recorder, "recorder");
+		MetricsRecorder[] current = recorders;
+		MetricsRecorder[] changed = Arrays.copyOf(current, current.length + 1);
+		changed[current.length] = recorder;
+		recorders = changed;
+	}
+
+	/**
+	 * Do not pass on recordings to the given recorder anymore.
+	 * @param recorder Recorder to remove
+	 */
+	public static synchronized void removeRecorder(final MetricsRecorder recorder) {
+		MetricsRecorder[] current = recorders;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i] == recorder) {
+				MetricsRecorder[] changed = new MetricsRecorder[current.length - 1];
+				System.arraycopy(current, 0, changed, 0, i);
+				System.arraycopy(current, i + 1, changed, i, current.length - i - 1);
+				recorders = changed;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @param counter Counter to read
+	 * @return The current count
+	 */
+	public static long count(final MetricsRecorder.Counter counter) {
+		return COUNTERS[counter.ordinal()].sum();
+	}
+
+	/**
+	 * @param timer Timer to read
+	 * @return The histogram of the recorded durations
+	 */
+	public static LatencyHistogram histogram(final MetricsRecorder.Timer timer) {
+		return TIMERS[timer.ordinal()];
+	}
+
+	/*package*/ static void increment(final MetricsRecorder.Counter counter) {
+		COUNTERS[counter.ordinal()].increment();
+		MetricsRecorder[] current = recorders;
+		for (int i = 0; i < current.length; i++) {
+			try {
+				current[i].increment(counter);
+			} catch (RuntimeException e) {
+				LOGGER.debug("MetricsRecorder {} failed.", current[i], e);
+			}
+		}
+	}
+
+	/*package*/ static void record(final MetricsRecorder.Timer timer, final long durationInNanos) {
+		TIMERS[timer.ordinal()].record(durationInNanos);
+		MetricsRecorder[] current = recorders;
+		for (int i = 0; i < current.length; i++) {
+			try {
+				current[i].record(timer, durationInNanos);
+			} catch (RuntimeException e) {
+				LOGGER.debug("MetricsRecorder {} failed.", current[i], e);
+			}
+		}
+	}
+
+	/**
+	 * Record the time passed since the given start.
+	 * @param timer Timer to record the duration for
+	 * @param startNanos Start as returned by {@link System#nanoTime()}
+	 */
+	/*package*/ static void recordSince(final MetricsRecorder.Timer timer, final long startNanos) {
+		record(timer, System.nanoTime() - startNanos);
+	}
+
+	/*package*/ static void notificationQueued() {
+		QUEUED_NOTIFICATIONS.increment();
+	}
+
+	/*package*/ static void notificationDequeued() {
+		QUEUED_NOTIFICATIONS.decrement();
+	}
+
+	@Override
+	public long getEventsReceived() {
+		return count(MetricsRecorder.Counter.EVENTS_RECEIVED);
+	}
+
+	@Override
+	public long getEventsDebounced() {
+		return count(MetricsRecorder.Counter.EVENTS_DEBOUNCED);
+	}
+
+	@Override
+	public long getOverflows() {
+		return count(MetricsRecorder.Counter.OVERFLOWS);
+	}
+
+	@Override
+	public long getPolls() {
+		return count(MetricsRecorder.Counter.POLLS);
+	}
+
+	@Override
+	public long getStatCalls() {
+		return count(MetricsRecorder.Counter.STAT_CALLS);
+	}
+
+	/**
+	 * The rate is sampled once per second on the timer, that the NioFileWatchers share, starting with the first call. Reading it
+	 * does not change it, so all readers see the same rate.
+	 */
+	@Override
+	public double getStatCallsPerSecond() {
+		if (!sampling) {
+			startSampling();
+		}
+		return statCallsPerSecond;
+	}
+
+	private synchronized void startSampling() {
+		if (sampling) {
+			return;
+		}
+		sampledStatCalls = getStatCalls();
+		sampledAtNanos = System.nanoTime();
+		WatchServiceEngine.getInstance().debounceTimer()
+				.scheduleAtFixedRate(this::sampleStatCalls, RATE_SAMPLE_PERIOD_IN_MS, RATE_SAMPLE_PERIOD_IN_MS, TimeUnit.MILLISECONDS);
+		sampling = true;
+	}
+
+	private void sampleStatCalls() {
+		long now = System.nanoTime();
+		long statCalls = getStatCalls();
+		long periodInNanos = now - sampledAtNanos;
+		if (periodInNanos > 0) {
+			statCallsPerSecond = (statCalls - sampledStatCalls) * 1e9 / periodInNanos;
+		}
+		sampledStatCalls = statCalls;
+		sampledAtNanos = now;
+	}
+
+	@Override
+	public long getNotifications() {
+		return count(MetricsRecorder.Counter.NOTIFICATIONS);
+	}
+
+	@Override
+	public long getNotificationsDropped() {
+		return count(MetricsRecorder.Counter.NOTIFICATIONS_DROPPED);
+	}
+
+	@Override
+	public long getQueuedNotifications() {
+		return QUEUED_NOTIFICATIONS.sum();
+	}
+
+	@Override
+	public long getPendingGracePeriods() {
+		return WatchServiceEngine.getInstance().pendingGracePeriods();
+	}
+
+	@Override
+	public long getPollingQueueSize() {
+		return PollingFileWatcher.defaultSchedulerQueueSize();
+	}
+
+	@Override
+	public Map<String, Double> getEventToNotificationLatencyInMs() {
+		return summary(MetricsRecorder.Timer.EVENT_TO_NOTIFICATION);
+	}
+
+	@Override
+	public Map<String, Double> getListenerDurationInMs() {
+		return summary(MetricsRecorder.Timer.LISTENER_DURATION);
+	}
+
+	@Override
+	public Map<String, Double> getPollDurationInMs() {
+		return summary(MetricsRecorder.Timer.POLL_DURATION);
+	}
+
+	private static Map<String, Double> summary(final MetricsRecorder.Timer timer) {
+		LatencyHistogram histogram = histogram(timer);
+		Map<String, Double> summary = new LinkedHashMap<>();
+		summary.put("count", (double)histogram.getCount());
+		summary.put("mean", toMs(histogram.getMeanInNanos()));
+		summary.put("p50", toMs(histogram.getPercentileInNanos(50)));
+		summary.put("p99", toMs(histogram.getPercentileInNanos(99)));
+		summary.put("max", toMs(histogram.getMaxInNanos()));
+		return summary;
+	}
+
+	private static double toMs(final long nanos) {
+		return nanos / 1e6;
+	}
+
+	/**
+	 * The JVM reports the CPU time of platform threads only. Virtual threads are not contained in
+	 * {@link ThreadMXBean#getAllThreadIds()}, so on Java 21 and later, where all threads of the watchers except the inotify loop
+	 * are virtual threads (see {@link name.finsterwalder.utils.Threads}), the result is almost empty. Their CPU time can be
+	 * measured with the JDK Flight Recorder instead.
+	 */
+	@Override
+	public Map<String, Long> getThreadCpuTimeInMs() {
+		Map<String, Long> cpuTimes = new TreeMap<>();
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!threads.isThreadCpuTimeSupported() || !threads.isThreadCpuTimeEnabled()) {
+			return cpuTimes;
+		}
+		for (ThreadInfo thread : threads.getThreadInfo(threads.getAllThreadIds())) {
+			if (thread != null && isWatcherThread(thread.getThreadName())) {
+				long cpuTime = threads.getThreadCpuTime(thread.getThreadId());
+				if (cpuTime >= 0) {
+					cpuTimes.put(thread.getThreadName(), TimeUnit.NANOSECONDS.toMillis(cpuTime));
+				}
+			}
+		}
+		return cpuTimes;
+	}
+
+	private static boolean isWatcherThread(final String threadName) {
+		for (String prefix : THREAD_NAME_PREFIXES) {
+			if (threadName.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
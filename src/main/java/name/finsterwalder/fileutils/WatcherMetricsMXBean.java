@@ -0,0 +1,86 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import java.util.Map;
+
+
+/**
+ * JMX view of the {@link WatcherMetrics}. It is registered as {@value WatcherMetrics#OBJECT_NAME}.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:50
+ */
+public interface WatcherMetricsMXBean {
+
+	long getEventsReceived();
+
+	long getEventsDebounced();
+
+	long getOverflows();
+
+	long getPolls();
+
+	long getStatCalls();
+
+	/**
+	 * @return The stat calls per second during the last second. It is sampled once per second, starting with the first call, so
+	 * the first calls return 0.
+	 */
+	double getStatCallsPerSecond();
+
+	long getNotifications();
+
+	long getNotificationsDropped();
+
+	/**
+	 * @return The number of notifications waiting in the queues of all listeners
+	 */
+	long getQueuedNotifications();
+
+	/**
+	 * @return The number of grace periods, that wait in the shared timer of the NioFileWatchers
+	 */
+	long getPendingGracePeriods();
+
+	/**
+	 * @return The number of tasks waiting in the shared scheduler of the PollingFileWatchers
+	 */
+	long getPollingQueueSize();
+
+	/**
+	 * @return count, mean, p50, p99 and max in ms from the detection of a change to the call of the listener
+	 */
+	Map<String, Double> getEventToNotificationLatencyInMs();
+
+	/**
+	 * @return count, mean, p50, p99 and max in ms of the delivery of a notification to a listener
+	 */
+	Map<String, Double> getListenerDurationInMs();
+
+	/**
+	 * @return count, mean, p50, p99 and max in ms of a single poll
+	 */
+	Map<String, Double> getPollDurationInMs();
+
+	/**
+	 * @return The CPU time in ms of every platform thread of the watchers by the name of the thread. Virtual threads are not
+	 * reported by the JVM, so on Java 21 and later only the thread of the inotify loop is contained.
+	 */
+	Map<String, Long> getThreadCpuTimeInMs();
+}
@@ -0,0 +1,88 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import java.nio.file.Path;
+
+
+/**
+ * Decides, when a changed file is written completely and its change can be notified. The watchers wait {@link #delayInMs()}
+ * after the last change of a file and then ask a {@link Check} of the file. Until the check reports the write as complete,
+ * it is asked again after the delay. Every further change of the file starts the delay again.
+ *
+ * {@link #fixedDelay(long)} only waits for the delay, like the grace period of the watchers. {@link #stableSize(long, int)}
+ * delivers a file, once its size and timestamp did not change in a number of samples, and {@link #unlocked(long)} delivers a
+ * file, once no other process holds a lock on it. Small files are delivered after a short delay and large uploads are not
+ * delivered before they are complete.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:40
+ */
+public interface WriteCompletionDetector {
+
+	/**
+	 * @return The delay in ms after the last change of a file before it is checked and between further checks.
+	 * With 0 every change is notified right away without a check.
+	 */
+	long delayInMs();
+
+	/**
+	 * Start checking the write of a file. A new check is created for every notification.
+	 * @param file Absolute path of the changed file
+	 * @return The check of the file
+	 */
+	Check newCheck(Path file);
+
+	/**
+	 * Checks the write of a single file. A check is never called concurrently.
+	 */
+	interface Check {
+
+		/**
+		 * @return true, when the file is written completely. The file is checked again after the delay otherwise.
+		 */
+		boolean isComplete();
+	}
+
+	/**
+	 * @param delayInMs Delay in ms after the last change, after which the file counts as completely written
+	 * @return A detector, that waits for a fixed delay after the last change. This is the grace period of the watchers.
+	 */
+	static WriteCompletionDetector fixedDelay(final long delayInMs) {
+		return new FixedDelayDetector(delayInMs);
+	}
+
+	/**
+	 * @param sampleIntervalInMs Interval in ms between two samples of the size of the file
+	 * @param samples Number of consecutive samples, that need to read the same size and timestamp
+	 * @return A detector, that delivers a file, once its size and timestamp did not change in the given number of samples
+	 */
+	static WriteCompletionDetector stableSize(final long sampleIntervalInMs, final int samples) {
+		return new StableSizeDetector(sampleIntervalInMs, samples);
+	}
+
+	/**
+	 * Locks are advisory on most Unix systems, so this only works with writers, that lock the files they write. On Windows a file,
+	 * that is still opened exclusively by its writer, can not be opened and counts as incomplete as well.
+	 * @param probeIntervalInMs Interval in ms between two tries to lock the file
+	 * @return A detector, that delivers a file, once a shared lock on it can be acquired without blocking
+	 */
+	static WriteCompletionDetector unlocked(final long probeIntervalInMs) {
+		return new UnlockedFileDetector(probeIntervalInMs);
+	}
+}
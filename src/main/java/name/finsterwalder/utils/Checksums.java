@@ -0,0 +1,70 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+
+/**
+ * Computes checksums of file contents with CRC32, which the JVM implements with intrinsics on common CPUs. The algorithm is the
+ * same on all Java versions, so checksums, that were stored by one JVM, can be compared by another one.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 15:50
+ */
+public final class Checksums {
+
+	/**
+	 * Name of the algorithm, that computes the checksums.
+	 */
+	public static final String ALGORITHM = "CRC32";
+
+	private Checksums() {
+	}
+
+	/**
+	 * Compute the checksum of the content of a file. The file is read with {@link FileChannel#read(ByteBuffer)} into a direct
+	 * buffer of {@link DirectBuffers}, so the content is not copied into the heap. The file is not memory mapped, since the
+	 * access to a mapped region of a file, that another process truncates concurrently, crashes the reading thread.
+	 * When the file is truncated while it is read, the checksum covers the content, that was read.
+	 * A checksum is no cryptographic hash: two different contents of the same size may have the same checksum with a probability
+	 * of about 1 to 4 billion.
+	 * @param file File to read
+	 * @return The checksum of the content of the file
+	 * @throws IOException when the file can not be read
+	 */
+	public static long contentChecksum(final Path file) throws IOException {
+		CRC32 checksum = new CRC32();
+		ByteBuffer buffer = DirectBuffers.take();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				checksum.update(buffer);
+				buffer.clear();
+			}
+		} finally {
+			DirectBuffers.release(buffer);
+		}
+		return checksum.getValue();
+	}
+}
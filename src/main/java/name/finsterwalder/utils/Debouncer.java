@@ -0,0 +1,118 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.utils;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Runs an action once a grace period passed without another trigger. Every trigger moves the deadline to the end of a new
+ * grace period.
+ *
+ * The Debouncer is lock-free: a trigger only writes the deadline and arms the timer, when it is not armed already. There is at
+ * most one pending timer task. When it fires before the deadline, because further triggers moved the deadline, it is scheduled
+ * again for the remaining time. A storm of triggers therefore costs a constant amount of work per trigger and does not fill the
+ * timer with tasks, that have nothing to do. The action is run on the thread of the timer.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 14:50
+ */
+public class Debouncer {
+
+	private final ScheduledExecutor timer;
+	private final long gracePeriodInNanos;
+	private final Runnable action;
+	private final Runnable check = this::check;
+	private final AtomicLong deadline = new AtomicLong();
+	private final AtomicBoolean armed = new AtomicBoolean();
+	private volatile ScheduledFuture<?> future;
+	private volatile boolean cancelled;
+
+	/**
+	 * @param timer ScheduledExecutor to time the grace period
+	 * @param gracePeriodInMs Grace period in ms to wait after the last trigger. With 0 the action runs right away on every trigger.
+	 * @param action Action to run after the grace period
+	 */
+	public Debouncer(final ScheduledExecutor timer, final long gracePeriodInMs, final Runnable action) {
+		Ensure.notNull(timer, "timer");
+		Ensure.notNull(action, "action");
+		Ensure.that(gracePeriodInMs >= 0, "grace period >= 0");
+		this.timer = timer;
+		this.gracePeriodInNanos = TimeUnit.MILLISECONDS.toNanos(gracePeriodInMs);
+		this.action = action;
+	}
+
+	/**
+	 * Start a new grace period. The action runs, when no other trigger follows within the grace period.
+	 */
+	public void trigger() {
+		if (cancelled) {
+			return;
+		}
+		if (gracePeriodInNanos <= 0) {
+			action.run();
+			return;
+		}
+		deadline.set(System.nanoTime() + gracePeriodInNanos);
+		if (!armed.get() && armed.compareAndSet(false, true)) {
+			schedule(gracePeriodInNanos);
+		}
+	}
+
+	private void schedule(final long delayInNanos) {
+		future = timer.schedule(check, delayInNanos, TimeUnit.NANOSECONDS);
+		if (cancelled) {
+			future.cancel(false);
+		}
+	}
+
+	private void check() {
+		if (cancelled) {
+			return;
+		}
+		long currentDeadline = deadline.get();
+		long remaining = currentDeadline - System.nanoTime();
+		if (remaining > 0) {
+			schedule(remaining);
+			return;
+		}
+		armed.set(false);
+		if (deadline.get() != currentDeadline) {
+			// A trigger moved the deadline while disarming. It might have seen the timer armed and not armed it again.
+			if (armed.compareAndSet(false, true)) {
+				schedule(Math.max(0, deadline.get() - System.nanoTime()));
+			}
+			return;
+		}
+		action.run();
+	}
+
+	/**
+	 * Do not run the action anymore. The pending timer is cancelled.
+	 */
+	public void cancel() {
+		cancelled = true;
+		ScheduledFuture<?> currentFuture = future;
+		if (currentFuture != null) {
+			currentFuture.cancel(false);
+		}
+	}
+}
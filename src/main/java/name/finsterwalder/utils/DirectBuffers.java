@@ -0,0 +1,59 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package name.finsterwalder.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+
+/**
+ * A pool of direct ByteBuffers of {@value #BUFFER_SIZE} bytes to read files with {@link java.nio.channels.FileChannel#read(ByteBuffer)}
+ * without copying their content into the heap and without allocating a new direct buffer for every read.
+ * The pool holds at most as many buffers as were taken concurrently.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 19:25
+ */
+public final class DirectBuffers {
+
+	public static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final Queue<ByteBuffer> BUFFERS = new ConcurrentLinkedQueue<>();
+
+	private DirectBuffers() {
+	}
+
+	/**
+	 * @return A cleared buffer, that belongs to the caller until it is released
+	 */
+	public static ByteBuffer take() {
+		ByteBuffer buffer = BUFFERS.poll();
+		return buffer != null ? buffer : ByteBuffer.allocateDirect(BUFFER_SIZE);
+	}
+
+	/**
+	 * Return a buffer to the pool. It must not be used afterwards.
+	 * @param buffer Buffer, that was taken from the pool
+	 */
+	public static void release(final ByteBuffer buffer) {
+		buffer.clear();
+		BUFFERS.offer(buffer);
+	}
+}
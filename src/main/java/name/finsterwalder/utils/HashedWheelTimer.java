@@ -0,0 +1,438 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A ScheduledExecutor based on a hashed timing wheel. Scheduling and cancelling a task are O(1) operations, independent of the
+ * number of pending tasks, so hundreds of thousands of pending timers are cheap. This makes it a good fit for debounce timers,
+ * which are scheduled for every change and cancelled or superseded most of the time.
+ *
+ * The price is precision: tasks are executed on the tick following their deadline, so they run up to one tick duration late.
+ * Tasks are executed on the single worker thread of the wheel, unless an Executor is given. Tasks run on the worker thread
+ * should be short, since they delay all other tasks.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 11:20
+ */
+public class HashedWheelTimer implements ScheduledExecutor {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(HashedWheelTimer.class);
+	public static final long DEFAULT_TICK_DURATION_IN_MS = 10;
+	public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+	private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+	private final long tickDurationInNanos;
+	private final Bucket[] wheel;
+	private final int mask;
+	private final Executor taskExecutor;
+	private final Thread workerThread;
+	private final AtomicBoolean started = new AtomicBoolean();
+	private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+	private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+	private final AtomicLong pendingTimeouts = new AtomicLong();
+	private final long startTimeInNanos = System.nanoTime();
+	private volatile boolean stopped;
+
+	/**
+	 * Create a HashedWheelTimer with a tick duration of 10ms and 512 ticks per wheel, that executes the tasks on its worker thread.
+	 */
+	public HashedWheelTimer() {
+		this(DEFAULT_TICK_DURATION_IN_MS, TimeUnit.MILLISECONDS, DEFAULT_TICKS_PER_WHEEL, "HashedWheelTimer");
+	}
+
+	/**
+	 * Create a HashedWheelTimer, that executes the tasks on its worker thread.
+	 * @param tickDuration Duration of one tick. This is the precision of the timer.
+	 * @param unit Unit of the tick duration
+	 * @param ticksPerWheel Number of buckets of the wheel. Rounded up to the next power of two.
+	 * @param threadName Name of the worker thread
+	 */
+	public HashedWheelTimer(final long tickDuration, final TimeUnit unit, final int ticksPerWheel, final String threadName) {
+		this(tickDuration, unit, ticksPerWheel, threadName, null);
+	}
+
+	/**
+	 * Create a HashedWheelTimer.
+	 * @param tickDuration Duration of one tick. This is the precision of the timer.
+	 * @param unit Unit of the tick duration
+	 * @param ticksPerWheel Number of buckets of the wheel. Rounded up to the next power of two.
+	 * @param threadName Name of the worker thread
+	 * @param taskExecutor Executor to run expired tasks on, or null to run them on the worker thread
+	 */
+	public HashedWheelTimer(final long tickDuration, final TimeUnit unit, final int ticksPerWheel, final String threadName, final Executor taskExecutor) {
+		Ensure.that(tickDuration > 0, "tickDuration > 0");
+		Ensure.notNull(unit, "unit");
+		Ensure.that(ticksPerWheel > 0 && ticksPerWheel <= 1 << 30, "0 < ticksPerWheel <= 2^30");
+		Ensure.notNull(threadName, "threadName");
+		this.tickDurationInNanos = unit.toNanos(tickDuration);
+		this.taskExecutor = taskExecutor;
+		int wheelSize = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+		wheel = new Bucket[Math.max(wheelSize, 1)];
+		for (int i = 0; i < wheel.length; i++) {
+			wheel[i] = new Bucket();
+		}
+		mask = wheel.length - 1;
+		workerThread = Threads.newThread(threadName, new Worker());
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(final Runnable command, final long delay, final TimeUnit unit) {
+		Ensure.notNull(command, "command");
+		Ensure.notNull(unit, "unit");
+		return add(new Timeout(command, deadlineAfter(unit.toNanos(delay)), 0));
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(final Runnable command, final long initialDelay, final long period, final TimeUnit unit) {
+		Ensure.notNull(command, "command");
+		Ensure.notNull(unit, "unit");
+		Ensure.that(period > 0, "period > 0");
+		return add(new Timeout(command, deadlineAfter(unit.toNanos(initialDelay)), unit.toNanos(period)));
+	}
+
+	/**
+	 * @return The number of scheduled tasks, that are neither executed nor cancelled yet
+	 */
+	public long pendingTimeouts() {
+		return pendingTimeouts.get();
+	}
+
+	/**
+	 * Stop the worker thread. Pending tasks are not executed anymore.
+	 */
+	public void stop() {
+		stopped = true;
+		workerThread.interrupt();
+	}
+
+	private long deadlineAfter(final long delayInNanos) {
+		return System.nanoTime() - startTimeInNanos + Math.max(delayInNanos, 0);
+	}
+
+	private Timeout add(final Timeout timeout) {
+		if (stopped) {
+			throw new RejectedExecutionException("HashedWheelTimer is stopped");
+		}
+		if (started.compareAndSet(false, true)) {
+			workerThread.start();
+		}
+		pendingTimeouts.incrementAndGet();
+		newTimeouts.add(timeout);
+		return timeout;
+	}
+
+	private void execute(final Timeout timeout) {
+		if (taskExecutor == null) {
+			timeout.run();
+		} else {
+			try {
+				taskExecutor.execute(timeout);
+			} catch (RejectedExecutionException e) {
+				LOGGER.warn("HashedWheelTimer could not execute task {}.", timeout.task, e);
+			}
+		}
+	}
+
+	private final class Worker implements Runnable {
+		private long tick;
+
+		@Override
+		public void run() {
+			while (!stopped) {
+				long now = waitForNextTick();
+				if (now < 0) {
+					return;
+				}
+				Bucket bucket = wheel[(int)(tick & mask)];
+				removeCancelledTimeouts();
+				transferNewTimeouts();
+				bucket.expire(now);
+				tick++;
+			}
+		}
+
+		/**
+		 * @return the current time relative to the start time, or -1 if interrupted
+		 */
+		private long waitForNextTick() {
+			long deadline = tickDurationInNanos * (tick + 1);
+			while (true) {
+				long now = System.nanoTime() - startTimeInNanos;
+				long sleepTimeInMs = (deadline - now + 999999) / 1000000;
+				if (sleepTimeInMs <= 0) {
+					return now;
+				}
+				try {
+					Thread.sleep(sleepTimeInMs);
+				} catch (InterruptedException e) {
+					if (stopped) {
+						return -1;
+					}
+				}
+			}
+		}
+
+		private void transferNewTimeouts() {
+			for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+				Timeout timeout = newTimeouts.poll();
+				if (timeout == null) {
+					return;
+				}
+				if (timeout.state != Timeout.CANCELLED) {
+					long calculatedTick = timeout.deadline / tickDurationInNanos;
+					timeout.remainingRounds = (calculatedTick - tick) / wheel.length;
+					// Deadlines in the past are expired with the current tick
+					long ticks = Math.max(calculatedTick, tick);
+					wheel[(int)(ticks & mask)].add(timeout);
+				}
+			}
+		}
+
+		private void removeCancelledTimeouts() {
+			while (true) {
+				Timeout timeout = cancelledTimeouts.poll();
+				if (timeout == null) {
+					return;
+				}
+				if (timeout.bucket != null) {
+					timeout.bucket.remove(timeout);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A doubly linked list of timeouts. Only accessed by the worker thread.
+	 */
+	private final class Bucket {
+		private Timeout head;
+		private Timeout tail;
+
+		private void add(final Timeout timeout) {
+			timeout.bucket = this;
+			if (head == null) {
+				head = tail = timeout;
+			} else {
+				tail.next = timeout;
+				timeout.prev = tail;
+				tail = timeout;
+			}
+		}
+
+		private void expire(final long now) {
+			Timeout timeout = head;
+			while (timeout != null) {
+				Timeout next = timeout.next;
+				if (timeout.remainingRounds <= 0) {
+					remove(timeout);
+					if (timeout.deadline <= now) {
+						if (timeout.expire()) {
+							execute(timeout);
+						}
+					} else {
+						// Can not happen, since timeouts are placed in the bucket of their deadline. Retry with the next tick to be safe.
+						newTimeouts.add(timeout);
+					}
+				} else if (timeout.state == Timeout.CANCELLED) {
+					remove(timeout);
+				} else {
+					timeout.remainingRounds--;
+				}
+				timeout = next;
+			}
+		}
+
+		private void remove(final Timeout timeout) {
+			Timeout next = timeout.next;
+			if (timeout.prev != null) {
+				timeout.prev.next = next;
+			}
+			if (timeout.next != null) {
+				timeout.next.prev = timeout.prev;
+			}
+			if (timeout == head) {
+				head = next;
+			}
+			if (timeout == tail) {
+				tail = timeout.prev;
+			}
+			timeout.prev = null;
+			timeout.next = null;
+			timeout.bucket = null;
+		}
+	}
+
+	/**
+	 * A scheduled task. Also the ScheduledFuture returned to the caller.
+	 */
+	private final class Timeout implements ScheduledFuture<Object>, Runnable {
+		private static final int WAITING = 0;
+		private static final int RUNNING = 1;
+		private static final int DONE = 2;
+		private static final int CANCELLED = 3;
+
+		private final Runnable task;
+		private final long periodInNanos;
+		private volatile long deadline;
+		/*package*/ volatile int state;
+		private Throwable failure;
+
+		// Only accessed by the worker thread
+		private long remainingRounds;
+		private Timeout prev;
+		private Timeout next;
+		private Bucket bucket;
+
+		private Timeout(final Runnable task, final long deadline, final long periodInNanos) {
+			this.task = task;
+			this.deadline = deadline;
+			this.periodInNanos = periodInNanos;
+		}
+
+		private boolean expire() {
+			return STATE_UPDATER.compareAndSet(this, WAITING, RUNNING);
+		}
+
+		@Override
+		public void run() {
+			try {
+				task.run();
+			} catch (Throwable e) {
+				// Like ScheduledThreadPoolExecutor, a failed periodic task is not executed again
+				LOGGER.warn("HashedWheelTimer task {} failed.", task, e);
+				failure = e;
+				finish();
+				return;
+			}
+			if (periodInNanos > 0) {
+				if (STATE_UPDATER.compareAndSet(this, RUNNING, WAITING)) {
+					deadline += periodInNanos;
+					newTimeouts.add(this);
+				}
+			} else {
+				finish();
+			}
+		}
+
+		private void finish() {
+			if (STATE_UPDATER.compareAndSet(this, RUNNING, DONE)) {
+				// decremented before waking up get(), so a finished task is no longer counted as pending
+				pendingTimeouts.decrementAndGet();
+				synchronized (this) {
+					notifyAll();
+				}
+			}
+		}
+
+		@Override
+		public boolean cancel(final boolean mayInterruptIfRunning) {
+			while (true) {
+				int currentState = state;
+				// A running periodic task can be cancelled, it is not rescheduled afterwards
+				if (currentState != WAITING && (currentState != RUNNING || periodInNanos == 0)) {
+					return false;
+				}
+				if (STATE_UPDATER.compareAndSet(this, currentState, CANCELLED)) {
+					pendingTimeouts.decrementAndGet();
+					synchronized (this) {
+						notifyAll();
+					}
+					if (currentState == WAITING) {
+						cancelledTimeouts.add(this);
+					}
+					return true;
+				}
+			}
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return state == CANCELLED;
+		}
+
+		@Override
+		public boolean isDone() {
+			return state >= DONE;
+		}
+
+		@Override
+		public Object get() throws InterruptedException, ExecutionException {
+			synchronized (this) {
+				while (!isDone()) {
+					wait();
+				}
+			}
+			return result();
+		}
+
+		@Override
+		public Object get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			long end = System.nanoTime() + unit.toNanos(timeout);
+			synchronized (this) {
+				while (!isDone()) {
+					long remainingInNanos = end - System.nanoTime();
+					if (remainingInNanos <= 0) {
+						throw new TimeoutException();
+					}
+					TimeUnit.NANOSECONDS.timedWait(this, remainingInNanos);
+				}
+			}
+			return result();
+		}
+
+		private Object result() throws ExecutionException {
+			if (isCancelled()) {
+				throw new CancellationException();
+			}
+			if (failure != null) {
+				throw new ExecutionException(failure);
+			}
+			return null;
+		}
+
+		@Override
+		public long getDelay(final TimeUnit unit) {
+			return unit.convert(deadline - (System.nanoTime() - startTimeInNanos), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(final Delayed other) {
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+		}
+	}
+
+	private static final AtomicIntegerFieldUpdater<Timeout> STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+}
@@ -0,0 +1,116 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+
+/**
+ * Direct access to inotify on Linux. This is the Java 8 version, where inotify is not available. The jar contains another
+ * version for Java 22 and later, that calls inotify through the Foreign Function &amp; Memory API (see src/main/java22).
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:10
+ */
+public final class Inotify implements Closeable {
+
+	public static final int IN_MODIFY = 0x00000002;
+	public static final int IN_ATTRIB = 0x00000004;
+	public static final int IN_CLOSE_WRITE = 0x00000008;
+	public static final int IN_MOVED_FROM = 0x00000040;
+	public static final int IN_MOVED_TO = 0x00000080;
+	public static final int IN_CREATE = 0x00000100;
+	public static final int IN_DELETE = 0x00000200;
+	public static final int IN_DELETE_SELF = 0x00000400;
+	public static final int IN_Q_OVERFLOW = 0x00004000;
+	public static final int IN_IGNORED = 0x00008000;
+	public static final int IN_ONLYDIR = 0x01000000;
+
+	private Inotify() {
+	}
+
+	/**
+	 * Callback for the events read from inotify.
+	 */
+	public interface EventHandler {
+		/**
+		 * @param watchDescriptor Watch descriptor of the watched directory or -1 for IN_Q_OVERFLOW
+		 * @param mask Mask of the event
+		 * @param name Name of the file within the watched directory or null, when the event concerns the directory itself
+		 */
+		void event(int watchDescriptor, int mask, String name);
+	}
+
+	/**
+	 * @return true, when inotify can be used
+	 */
+	public static boolean isAvailable() {
+		return false;
+	}
+
+	/**
+	 * Open a new inotify instance.
+	 * @return The inotify instance
+	 * @throws IOException when inotify_init1 failed
+	 */
+	public static Inotify open() throws IOException {
+		throw new UnsupportedOperationException("inotify requires Java 22 or later on Linux");
+	}
+
+	/**
+	 * Watch a directory.
+	 * @param directory Directory to watch
+	 * @param mask Events to watch for
+	 * @return The watch descriptor. Watching the same directory again returns the same descriptor and replaces the mask.
+	 * @throws IOException when inotify_add_watch failed, e.g. because the limit of watches is reached
+	 */
+	public int addWatch(final Path directory, final int mask) throws IOException {
+		throw new UnsupportedOperationException("inotify requires Java 22 or later on Linux");
+	}
+
+	/**
+	 * Stop watching a directory.
+	 * @param watchDescriptor The watch descriptor returned by {@link #addWatch(Path, int)}
+	 * @throws IOException when inotify_rm_watch failed, e.g. because the watch was already removed, since its directory was deleted
+	 */
+	public void removeWatch(final int watchDescriptor) throws IOException {
+		throw new UnsupportedOperationException("inotify requires Java 22 or later on Linux");
+	}
+
+	/**
+	 * Block until events are available and pass all events, that were read with a single call to read, to the handler.
+	 * @param handler Handler to pass the events to
+	 * @return false, when the instance was closed before or while waiting for events
+	 * @throws IOException when reading failed
+	 * @throws IllegalStateException when another thread is reading
+	 */
+	public boolean read(final EventHandler handler) throws IOException {
+		throw new UnsupportedOperationException("inotify requires Java 22 or later on Linux");
+	}
+
+	/**
+	 * Close the inotify instance. When another thread is blocked in {@link #read(EventHandler)}, it is woken up and closes
+	 * the descriptors, when it returns.
+	 * @throws IOException when close or waking up the reader failed
+	 */
+	@Override
+	public void close() throws IOException {
+	}
+}
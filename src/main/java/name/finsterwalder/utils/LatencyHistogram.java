@@ -0,0 +1,114 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A histogram of durations in nanoseconds with power of two buckets. Recording is lock-free and does not allocate, so it can be
+ * used on hot paths. Percentiles are reported as the upper bound of their bucket and are therefore at most a factor of two too
+ * large.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:50
+ */
+public final class LatencyHistogram {
+
+	/** Bucket 0 holds 0, bucket i holds durations from 2^(i-1) to 2^i - 1. */
+	private static final int BUCKETS = 64;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sumInNanos = new LongAdder();
+	private final AtomicLong maxInNanos = new AtomicLong();
+
+	/**
+	 * Record a duration. Negative durations are recorded as 0.
+	 * @param durationInNanos Duration in ns
+	 */
+	public void record(final long durationInNanos) {
+		long duration = Math.max(0, durationInNanos);
+		buckets.incrementAndGet(bucket(duration));
+		count.increment();
+		sumInNanos.add(duration);
+		long max = maxInNanos.get();
+		while (duration > max && !maxInNanos.compareAndSet(max, duration)) {
+			max = maxInNanos.get();
+		}
+	}
+
+	private static int bucket(final long duration) {
+		return Long.SIZE - Long.numberOfLeadingZeros(duration);
+	}
+
+	/**
+	 * @return The number of recorded durations
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * @return The mean of the recorded durations in ns, 0 when nothing was recorded
+	 */
+	public long getMeanInNanos() {
+		long currentCount = count.sum();
+		return currentCount == 0 ? 0 : sumInNanos.sum() / currentCount;
+	}
+
+	/**
+	 * @return The largest recorded duration in ns
+	 */
+	public long getMaxInNanos() {
+		return maxInNanos.get();
+	}
+
+	/**
+	 * @param percentile Percentile between 0 and 100
+	 * @return The upper bound in ns of the bucket, that contains the given percentile of the recorded durations, but at most the
+	 * largest recorded duration. 0 when nothing was recorded.
+	 */
+	public long getPercentileInNanos(final double percentile) {
+		Ensure.that(percentile >= 0 && percentile <= 100, "0 <= percentile <= 100");
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long)Math.ceil(total * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(upperBound(i), getMaxInNanos());
+			}
+		}
+		return getMaxInNanos();
+	}
+
+	private static long upperBound(final int bucket) {
+		return bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+	}
+}
@@ -22,6 +22,9 @@ import java.util.concurrent.TimeUnit;
 
 
 /**
+ * Schedules tasks for delayed or periodic execution. Allows many watchers to share a scheduler and allows to plug in
+ * custom implementations.
+ *
  * @author Malte Finsterwalder
  * @since 2013-09-04 18:18
  */
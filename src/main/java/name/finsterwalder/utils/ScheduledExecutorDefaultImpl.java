@@ -17,18 +17,39 @@
 
 package name.finsterwalder.utils;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 
 /**
+ * ScheduledExecutor backed by a ScheduledThreadPoolExecutor with a fixed number of daemon threads (see {@link Threads}).
+ * Cancelled tasks are removed from the queue immediately, so many short lived tasks do not pile up.
+ *
  * @author mfinsterwalder
  * @since 2013-09-04 18:24
  */
 public class ScheduledExecutorDefaultImpl implements ScheduledExecutor {
-	private ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+	private final ScheduledThreadPoolExecutor executorService;
+
+	/**
+	 * Create a ScheduledExecutor with a single thread.
+	 */
+	public ScheduledExecutorDefaultImpl() {
+		this(1, "ScheduledExecutor");
+	}
+
+	/**
+	 * Create a ScheduledExecutor with the given number of threads.
+	 * @param threadCount Number of threads to execute the scheduled tasks
+	 * @param threadNamePrefix Prefix for the names of the threads
+	 */
+	public ScheduledExecutorDefaultImpl(final int threadCount, final String threadNamePrefix) {
+		Ensure.that(threadCount > 0, "threadCount > 0");
+		Ensure.notNull(threadNamePrefix, "threadNamePrefix");
+		executorService = new ScheduledThreadPoolExecutor(threadCount, Threads.threadFactory(threadNamePrefix));
+		executorService.setRemoveOnCancelPolicy(true);
+	}
 
 	@Override
 	public ScheduledFuture<?> schedule(final Runnable command, final long delay, final TimeUnit unit) {
@@ -39,4 +60,32 @@ public class ScheduledExecutorDefaultImpl implements ScheduledExecutor {
 	public ScheduledFuture<?> scheduleAtFixedRate(final Runnable command, final long initialDelay, final long period, final TimeUnit unit) {
 		return executorService.scheduleAtFixedRate(command, initialDelay, period, unit);
 	}
+
+	/**
+	 * @return The number of threads, that execute the scheduled tasks
+	 */
+	public int getThreadCount() {
+		return executorService.getCorePoolSize();
+	}
+
+	/**
+	 * @return The largest number of threads, that were ever started at the same time. This counts virtual threads as well.
+	 */
+	public int getLargestThreadCount() {
+		return executorService.getLargestPoolSize();
+	}
+
+	/**
+	 * @return The number of scheduled tasks, that wait for their execution
+	 */
+	public int getQueueSize() {
+		return executorService.getQueue().size();
+	}
+
+	/**
+	 * Stop all scheduled tasks and the threads.
+	 */
+	public void shutdown() {
+		executorService.shutdownNow();
+	}
 }
@@ -0,0 +1,86 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.utils;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Creates the threads used by the watchers. This is the Java 8 version, which uses daemon platform threads. Listeners are called
+ * on a fixed number of worker threads ({@value #DEFAULT_LISTENER_THREADS} by default, system property
+ * {@value #LISTENER_THREADS_PROPERTY}), so a slow listener never stalls the timers and schedulers shared by all watchers.
+ * The jar contains another version for Java 21 and later, which uses virtual threads (see src/main/java21).
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 12:10
+ */
+public final class Threads {
+
+	public static final int DEFAULT_LISTENER_THREADS = 4;
+	public static final String LISTENER_THREADS_PROPERTY = "fileutils.listener.threads";
+
+	private Threads() {
+	}
+
+	/**
+	 * @return true, when the threads created by this class are virtual threads
+	 */
+	public static boolean isVirtual() {
+		return false;
+	}
+
+	/**
+	 * Create an unstarted daemon thread for a long running loop.
+	 * @param name Name of the thread
+	 * @param runnable Loop to run
+	 * @return The unstarted thread
+	 */
+	public static Thread newThread(final String name, final Runnable runnable) {
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	/**
+	 * Create a ThreadFactory for daemon threads named with the given prefix and a running number.
+	 * @param namePrefix Prefix for the names of the threads
+	 * @return The ThreadFactory
+	 */
+	public static ThreadFactory threadFactory(final String namePrefix) {
+		final AtomicInteger threadNumber = new AtomicInteger();
+		return runnable -> newThread(namePrefix + "-" + threadNumber.incrementAndGet(), runnable);
+	}
+
+	/**
+	 * @return The Executor to call listeners on. It has a fixed number of daemon worker threads, that are created lazily.
+	 */
+	public static Executor listenerExecutor() {
+		return ListenerExecutor.INSTANCE;
+	}
+
+	/**
+	 * Lazily created workers for the listeners.
+	 */
+	private static final class ListenerExecutor {
+		private static final Executor INSTANCE = Executors.newFixedThreadPool(
+				Math.max(1, Integer.getInteger(LISTENER_THREADS_PROPERTY, DEFAULT_LISTENER_THREADS)), threadFactory("FileChangeListener"));
+	}
+}
@@ -0,0 +1,403 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.SymbolLookup;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+import static java.lang.foreign.ValueLayout.JAVA_SHORT;
+
+
+/**
+ * Direct access to inotify on Linux. This is the Java 22 version from the multi-release jar, that calls inotify_init1,
+ * inotify_add_watch, inotify_rm_watch, poll and read of the C library through the Foreign Function &amp; Memory API.
+ *
+ * Events are read in bulk into a native buffer, that is allocated once per instance and reused for every read. Only a single
+ * thread may call {@link #read(EventHandler)}. It should be a platform thread, since a blocking native call pins the carrier
+ * thread of a virtual thread. The JVM warns about the use of restricted methods, unless it is started with
+ * {@code --enable-native-access=ALL-UNNAMED}.
+ *
+ * The reader waits in poll for the inotify descriptor and an eventfd. {@link #close()} signals the eventfd, when a read is
+ * running, and the reader closes the descriptors, when it returns. So a descriptor is never closed, while another thread is
+ * blocked on it, and its number can not be reused by another file, while it is still read.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:10
+ */
+public final class Inotify implements Closeable {
+
+	public static final int IN_MODIFY = 0x00000002;
+	public static final int IN_ATTRIB = 0x00000004;
+	public static final int IN_CLOSE_WRITE = 0x00000008;
+	public static final int IN_MOVED_FROM = 0x00000040;
+	public static final int IN_MOVED_TO = 0x00000080;
+	public static final int IN_CREATE = 0x00000100;
+	public static final int IN_DELETE = 0x00000200;
+	public static final int IN_DELETE_SELF = 0x00000400;
+	public static final int IN_Q_OVERFLOW = 0x00004000;
+	public static final int IN_IGNORED = 0x00008000;
+	public static final int IN_ONLYDIR = 0x01000000;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(Inotify.class);
+	private static final int IN_CLOEXEC = 0x00080000;
+	private static final int EFD_CLOEXEC = 0x00080000;
+	private static final int EINTR = 4;
+	private static final short POLLIN = 0x0001;
+	private static final int POLL_FD_SIZE = 8;
+	private static final int EVENT_HEADER_SIZE = 16;
+	private static final long BUFFER_SIZE = 64 * 1024;
+
+	private static final int OPEN = 0;
+	private static final int READING = 1;
+	private static final int CLOSE_REQUESTED = 2;
+	private static final int CLOSED = 3;
+
+	private final int fd;
+	private final int wakeUpFd;
+	private final AtomicInteger state = new AtomicInteger(OPEN);
+	private final Arena arena = Arena.ofShared();
+	private final MemorySegment buffer = arena.allocate(BUFFER_SIZE, 8);
+	private final MemorySegment pollFds = arena.allocate(2 * POLL_FD_SIZE, 4);
+	private final MemorySegment readCallState = arena.allocate(Native.CALL_STATE_LAYOUT);
+
+	private Inotify(final int fd, final int wakeUpFd) {
+		this.fd = fd;
+		this.wakeUpFd = wakeUpFd;
+	}
+
+	/**
+	 * Callback for the events read from inotify.
+	 */
+	public interface EventHandler {
+		/**
+		 * @param watchDescriptor Watch descriptor of the watched directory or -1 for IN_Q_OVERFLOW
+		 * @param mask Mask of the event
+		 * @param name Name of the file within the watched directory or null, when the event concerns the directory itself
+		 */
+		void event(int watchDescriptor, int mask, String name);
+	}
+
+	/**
+	 * @return true, when inotify can be used
+	 */
+	public static boolean isAvailable() {
+		return Availability.AVAILABLE;
+	}
+
+	/**
+	 * Open a new inotify instance.
+	 * @return The inotify instance
+	 * @throws IOException when inotify_init1 or eventfd failed
+	 */
+	public static Inotify open() throws IOException {
+		if (!isAvailable()) {
+			throw new UnsupportedOperationException("inotify is only available on Linux");
+		}
+		try (Arena call = Arena.ofConfined()) {
+			MemorySegment callState = call.allocate(Native.CALL_STATE_LAYOUT);
+			int fd = (int)Native.INOTIFY_INIT1.invokeExact(callState, IN_CLOEXEC);
+			if (fd < 0) {
+				throw new IOException("inotify_init1 failed with errno " + errno(callState));
+			}
+			int wakeUpFd = (int)Native.EVENTFD.invokeExact(callState, 0, EFD_CLOEXEC);
+			if (wakeUpFd < 0) {
+				IOException e = new IOException("eventfd failed with errno " + errno(callState));
+				try {
+					closeDescriptor(fd, "inotify");
+				} catch (IOException closeFailed) {
+					e.addSuppressed(closeFailed);
+				}
+				throw e;
+			}
+			return new Inotify(fd, wakeUpFd);
+		} catch (IOException | RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IOException("inotify_init1 failed", t);
+		}
+	}
+
+	/**
+	 * Watch a directory.
+	 * @param directory Directory to watch
+	 * @param mask Events to watch for
+	 * @return The watch descriptor. Watching the same directory again returns the same descriptor and replaces the mask.
+	 * @throws IOException when inotify_add_watch failed, e.g. because the limit of watches is reached
+	 */
+	public int addWatch(final Path directory, final int mask) throws IOException {
+		try (Arena call = Arena.ofConfined()) {
+			MemorySegment callState = call.allocate(Native.CALL_STATE_LAYOUT);
+			MemorySegment pathname = call.allocateFrom(directory.toString());
+			int watchDescriptor = (int)Native.INOTIFY_ADD_WATCH.invokeExact(callState, fd, pathname, mask);
+			if (watchDescriptor < 0) {
+				throw new IOException("inotify_add_watch for " + directory + " failed with errno " + errno(callState));
+			}
+			return watchDescriptor;
+		} catch (IOException | RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IOException("inotify_add_watch for " + directory + " failed", t);
+		}
+	}
+
+	/**
+	 * Stop watching a directory.
+	 * @param watchDescriptor The watch descriptor returned by {@link #addWatch(Path, int)}
+	 * @throws IOException when inotify_rm_watch failed, e.g. because the watch was already removed, since its directory was deleted
+	 */
+	public void removeWatch(final int watchDescriptor) throws IOException {
+		try (Arena call = Arena.ofConfined()) {
+			MemorySegment callState = call.allocate(Native.CALL_STATE_LAYOUT);
+			int result = (int)Native.INOTIFY_RM_WATCH.invokeExact(callState, fd, watchDescriptor);
+			if (result < 0) {
+				throw new IOException("inotify_rm_watch of watch " + watchDescriptor + " failed with errno " + errno(callState));
+			}
+		} catch (IOException | RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IOException("inotify_rm_watch of watch " + watchDescriptor + " failed", t);
+		}
+	}
+
+	/**
+	 * Block until events are available and pass all events, that were read with a single call to read, to the handler.
+	 * @param handler Handler to pass the events to
+	 * @return false, when the instance was closed before or while waiting for events
+	 * @throws IOException when reading failed
+	 * @throws IllegalStateException when another thread is reading
+	 */
+	public boolean read(final EventHandler handler) throws IOException {
+		if (!state.compareAndSet(OPEN, READING)) {
+			if (state.get() == READING) {
+				throw new IllegalStateException("Only a single thread may read inotify events");
+			}
+			return false;
+		}
+		try {
+			if (!awaitEvents()) {
+				return false;
+			}
+			readEvents(handler);
+			return true;
+		} finally {
+			synchronized (this) {
+				if (!state.compareAndSet(READING, OPEN)) {
+					// close was called during the read and woke this thread up
+					try {
+						release();
+					} catch (IOException e) {
+						LOGGER.warn("Closing inotify failed.", e);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true, when events can be read, false, when the instance is closed
+	 */
+	private boolean awaitEvents() throws IOException {
+		pollFds.set(JAVA_INT, 0, fd);
+		pollFds.set(JAVA_SHORT, 4, POLLIN);
+		pollFds.set(JAVA_SHORT, 6, (short)0);
+		pollFds.set(JAVA_INT, POLL_FD_SIZE, wakeUpFd);
+		pollFds.set(JAVA_SHORT, POLL_FD_SIZE + 4, POLLIN);
+		pollFds.set(JAVA_SHORT, POLL_FD_SIZE + 6, (short)0);
+		int ready;
+		try {
+			do {
+				ready = (int)Native.POLL.invokeExact(readCallState, pollFds, 2L, -1);
+			} while (ready < 0 && errno(readCallState) == EINTR && state.get() == READING);
+		} catch (Throwable t) {
+			throw new IOException("poll of inotify failed", t);
+		}
+		if (state.get() != READING || pollFds.get(JAVA_SHORT, POLL_FD_SIZE + 6) != 0) {
+			return false;
+		}
+		if (ready < 0) {
+			throw new IOException("poll of inotify failed with errno " + errno(readCallState));
+		}
+		return true;
+	}
+
+	private void readEvents(final EventHandler handler) throws IOException {
+		long length;
+		try {
+			do {
+				length = (long)Native.READ.invokeExact(readCallState, fd, buffer, BUFFER_SIZE);
+			} while (length < 0 && errno(readCallState) == EINTR);
+		} catch (Throwable t) {
+			throw new IOException("read of inotify events failed", t);
+		}
+		if (length < 0) {
+			throw new IOException("read of inotify events failed with errno " + errno(readCallState));
+		}
+		long offset = 0;
+		while (offset + EVENT_HEADER_SIZE <= length) {
+			int watchDescriptor = buffer.get(JAVA_INT, offset);
+			int mask = buffer.get(JAVA_INT, offset + 4);
+			int nameLength = buffer.get(JAVA_INT, offset + 12);
+			String name = nameLength > 0 ? buffer.getString(offset + EVENT_HEADER_SIZE) : null;
+			handler.event(watchDescriptor, mask, name);
+			offset += EVENT_HEADER_SIZE + nameLength;
+		}
+	}
+
+	/**
+	 * Close the inotify instance. When another thread is blocked in {@link #read(EventHandler)}, it is woken up and closes
+	 * the descriptors, when it returns. Failures to close are logged by the reader then.
+	 * @throws IOException when close or waking up the reader failed
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		while (true) {
+			int current = state.get();
+			if (current == OPEN && state.compareAndSet(OPEN, CLOSED)) {
+				release();
+				return;
+			} else if (current == READING && state.compareAndSet(READING, CLOSE_REQUESTED)) {
+				wakeUpReader();
+				return;
+			} else if (current == CLOSE_REQUESTED || current == CLOSED) {
+				return;
+			}
+		}
+	}
+
+	private void wakeUpReader() throws IOException {
+		try (Arena call = Arena.ofConfined()) {
+			MemorySegment callState = call.allocate(Native.CALL_STATE_LAYOUT);
+			MemorySegment increment = call.allocateFrom(JAVA_LONG, 1L);
+			long written = (long)Native.WRITE.invokeExact(callState, wakeUpFd, increment, 8L);
+			if (written < 0) {
+				throw new IOException("Waking up the reader of inotify failed with errno " + errno(callState));
+			}
+		} catch (IOException | RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IOException("Waking up the reader of inotify failed", t);
+		}
+	}
+
+	/**
+	 * Close the descriptors and free the native memory. Only called once, when no read is running.
+	 */
+	private void release() throws IOException {
+		state.set(CLOSED);
+		try {
+			closeDescriptor(fd, "inotify");
+		} finally {
+			try {
+				closeDescriptor(wakeUpFd, "eventfd");
+			} finally {
+				arena.close();
+			}
+		}
+	}
+
+	private static void closeDescriptor(final int descriptor, final String name) throws IOException {
+		try (Arena call = Arena.ofConfined()) {
+			MemorySegment callState = call.allocate(Native.CALL_STATE_LAYOUT);
+			int result = (int)Native.CLOSE.invokeExact(callState, descriptor);
+			if (result < 0) {
+				throw new IOException("close of " + name + " failed with errno " + errno(callState));
+			}
+		} catch (IOException | RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IOException("close of " + name + " failed", t);
+		}
+	}
+
+	private static int errno(final MemorySegment callState) {
+		return (int)Native.ERRNO.get(callState, 0L);
+	}
+
+	/**
+	 * Lazily checks, whether inotify can be linked.
+	 */
+	private static final class Availability {
+		private static final boolean AVAILABLE = isLinked();
+
+		private static boolean isLinked() {
+			if (!System.getProperty("os.name", "").startsWith("Linux")) {
+				return false;
+			}
+			try {
+				return Native.INOTIFY_INIT1 != null;
+			} catch (Throwable t) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * The downcall handles of the C library.
+	 */
+	private static final class Native {
+		private static final Linker LINKER = Linker.nativeLinker();
+		private static final StructLayout CALL_STATE_LAYOUT = Linker.Option.captureStateLayout();
+		private static final VarHandle ERRNO = CALL_STATE_LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("errno"));
+		private static final MethodHandle INOTIFY_INIT1;
+		private static final MethodHandle INOTIFY_ADD_WATCH;
+		private static final MethodHandle INOTIFY_RM_WATCH;
+		private static final MethodHandle EVENTFD;
+		private static final MethodHandle POLL;
+		private static final MethodHandle READ;
+		private static final MethodHandle WRITE;
+		private static final MethodHandle CLOSE;
+
+		static {
+			SymbolLookup libc = LINKER.defaultLookup();
+			Linker.Option errno = Linker.Option.captureCallState("errno");
+			INOTIFY_INIT1 = LINKER.downcallHandle(libc.find("inotify_init1").orElseThrow(),
+					FunctionDescriptor.of(JAVA_INT, JAVA_INT), errno);
+			INOTIFY_ADD_WATCH = LINKER.downcallHandle(libc.find("inotify_add_watch").orElseThrow(),
+					FunctionDescriptor.of(JAVA_INT, JAVA_INT, ADDRESS, JAVA_INT), errno);
+			INOTIFY_RM_WATCH = LINKER.downcallHandle(libc.find("inotify_rm_watch").orElseThrow(),
+					FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT), errno);
+			EVENTFD = LINKER.downcallHandle(libc.find("eventfd").orElseThrow(),
+					FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT), errno);
+			POLL = LINKER.downcallHandle(libc.find("poll").orElseThrow(),
+					FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_LONG, JAVA_INT), errno);
+			READ = LINKER.downcallHandle(libc.find("read").orElseThrow(),
+					FunctionDescriptor.of(JAVA_LONG, JAVA_INT, ADDRESS, JAVA_LONG), errno);
+			WRITE = LINKER.downcallHandle(libc.find("write").orElseThrow(),
+					FunctionDescriptor.of(JAVA_LONG, JAVA_INT, ADDRESS, JAVA_LONG), errno);
+			CLOSE = LINKER.downcallHandle(libc.find("close").orElseThrow(),
+					FunctionDescriptor.of(JAVA_INT, JAVA_INT), errno);
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 16:10
+ */
+public class ContentChangeFilterTest {
+
+	@TempDir
+	Path directory;
+	Path file;
+	FileChangeEventListener listenerMock = mock(FileChangeEventListener.class);
+	ContentChangeFilter filter = new ContentChangeFilter(listenerMock);
+
+	@BeforeEach
+	public void createFile() throws IOException {
+		file = directory.resolve("file.txt");
+		Files.write(file, "same content".getBytes());
+		filter.remember(file);
+	}
+
+	@Test
+	public void touchingAFileIsNotPassedOn() throws IOException {
+		Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+		FileChangeEvent event = modified();
+		filter.fileChanged(event);
+		verify(listenerMock, never()).fileChanged(event);
+	}
+
+	@Test
+	public void writingTheSameContentAgainIsNotPassedOn() throws IOException {
+		Path replacement = directory.resolve("file.tmp");
+		Files.write(replacement, "same content".getBytes());
+		Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING);
+		FileChangeEvent event = new FileChangeEvent(FileChangeEvent.Kind.CREATED, file, attributes());
+		filter.fileChanged(event);
+		verify(listenerMock, never()).fileChanged(event);
+	}
+
+	@Test
+	public void aChangedContentOfTheSameSizeIsPassedOnOnce() throws IOException {
+		Files.write(file, "some content".getBytes());
+		Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+		FileChangeEvent event = modified();
+		filter.fileChanged(event);
+		filter.fileChanged(event);
+		verify(listenerMock, times(1)).fileChanged(event);
+	}
+
+	@Test
+	public void aChangedSizeAndADeletionArePassedOn() throws IOException {
+		Files.write(file, "longer content".getBytes());
+		FileChangeEvent modified = modified();
+		filter.fileChanged(modified);
+		Files.delete(file);
+		FileChangeEvent deleted = new FileChangeEvent(FileChangeEvent.Kind.DELETED, file, null);
+		filter.fileChanged(deleted);
+		verify(listenerMock).fileChanged(modified);
+		verify(listenerMock).fileChanged(deleted);
+	}
+
+	@Test
+	public void writingTheSameContentAgainAfterTheSizeChangedIsNotPassedOn() throws IOException {
+		Files.write(file, "longer content".getBytes());
+		FileChangeEvent grown = modified();
+		filter.fileChanged(grown);
+		Path replacement = directory.resolve("file.tmp");
+		Files.write(replacement, "longer content".getBytes());
+		Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING);
+		FileChangeEvent rewritten = new FileChangeEvent(FileChangeEvent.Kind.CREATED, file, attributes());
+		filter.fileChanged(rewritten);
+		verify(listenerMock).fileChanged(grown);
+		verify(listenerMock, never()).fileChanged(rewritten);
+	}
+
+	private FileChangeEvent modified() throws IOException {
+		return new FileChangeEvent(FileChangeEvent.Kind.MODIFIED, file, attributes());
+	}
+
+	private BasicFileAttributes attributes() throws IOException {
+		return Files.readAttributes(file, BasicFileAttributes.class);
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 15:40
+ */
+public class DirectorySnapshotTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void aRescanReportsExactlyTheChangesSinceTheLastKnownState() throws IOException {
+		Path unchanged = directory.resolve("unchanged.txt");
+		FileUtils.writeToFile(unchanged, "unchanged");
+		setLastModifiedBeforeGranularity(unchanged);
+		Path modified = directory.resolve("modified.txt");
+		FileUtils.writeToFile(modified, "modified");
+		Path deleted = directory.resolve("deleted.txt");
+		FileUtils.writeToFile(deleted, "deleted");
+		DirectorySnapshot snapshot = new DirectorySnapshot(directory);
+		snapshot.trackWholeDirectory(true);
+		snapshot.takeBaseline();
+
+		Files.write(modified, "more text".getBytes());
+		Files.setLastModifiedTime(modified, FileTime.fromMillis(Files.getLastModifiedTime(modified).toMillis() + 1000));
+		Files.delete(deleted);
+		FileUtils.writeToFile(directory.resolve("created.txt"), "created");
+
+		Map<Path, WatchEvent.Kind<?>> changes = rescan(snapshot);
+		assertEquals(3, changes.size());
+		assertEquals(ENTRY_MODIFY, changes.get(Paths.get("modified.txt")));
+		assertEquals(ENTRY_DELETE, changes.get(Paths.get("deleted.txt")));
+		assertEquals(ENTRY_CREATE, changes.get(Paths.get("created.txt")));
+		assertEquals(0, rescan(snapshot).size());
+	}
+
+	@Test
+	public void aReplacedFileIsReportedAsCreated() throws IOException {
+		Path file = directory.resolve("file.txt");
+		FileUtils.writeToFile(file, "old");
+		DirectorySnapshot snapshot = new DirectorySnapshot(directory);
+		snapshot.track(file.getFileName());
+		snapshot.takeBaseline();
+		Path replacement = directory.resolve("file.tmp");
+		FileUtils.writeToFile(replacement, "new");
+		Files.setLastModifiedTime(replacement, Files.getLastModifiedTime(file));
+		Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING);
+
+		assumeTrue(Files.readAttributes(file, BasicFileAttributes.class).fileKey() != null, "the file system provides file keys");
+		Map<Path, WatchEvent.Kind<?>> changes = rescan(snapshot);
+		assertEquals(1, changes.size());
+		assertEquals(ENTRY_CREATE, changes.get(file.getFileName()));
+	}
+
+	@Test
+	public void changesReportedByTheWatchServiceAreNotReportedAgain() throws IOException {
+		Path file = directory.resolve("file.txt");
+		FileUtils.writeToFile(file, "old");
+		DirectorySnapshot snapshot = new DirectorySnapshot(directory);
+		snapshot.track(file.getFileName());
+		snapshot.takeBaseline();
+		Files.write(file, "some new text".getBytes());
+		setLastModifiedBeforeGranularity(file);
+		snapshot.update(ENTRY_MODIFY, file.getFileName());
+		assertEquals(0, rescan(snapshot).size());
+	}
+
+	@Test
+	public void aDeliveredChangeIsNotReportedAgainByARescanAfterAnOverflow() throws IOException {
+		Path file = directory.resolve("file.txt");
+		FileUtils.writeToFile(file, "old");
+		DirectorySnapshot snapshot = new DirectorySnapshot(directory);
+		snapshot.track(file.getFileName());
+		snapshot.takeBaseline();
+		Files.write(file, "some new text".getBytes());
+		snapshot.update(ENTRY_MODIFY, file.getFileName());
+		snapshot.settle();
+		assertEquals(0, rescan(snapshot).size());
+	}
+
+	@Test
+	public void aChangeAfterASettledChangeIsReportedByTheRescan() throws IOException {
+		Path file = directory.resolve("file.txt");
+		FileUtils.writeToFile(file, "old");
+		DirectorySnapshot snapshot = new DirectorySnapshot(directory);
+		snapshot.track(file.getFileName());
+		snapshot.takeBaseline();
+		Files.write(file, "some new text".getBytes());
+		snapshot.update(ENTRY_MODIFY, file.getFileName());
+		snapshot.settle();
+		Files.write(file, "some more new text".getBytes());
+		Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+
+		Map<Path, WatchEvent.Kind<?>> changes = rescan(snapshot);
+		assertEquals(1, changes.size());
+		assertEquals(ENTRY_MODIFY, changes.get(file.getFileName()));
+	}
+
+	@Test
+	public void aChangeAfterAReportedChangeIsReportedByTheRescan() throws IOException {
+		Path file = directory.resolve("file.txt");
+		FileUtils.writeToFile(file, "old");
+		DirectorySnapshot snapshot = new DirectorySnapshot(directory);
+		snapshot.track(file.getFileName());
+		snapshot.takeBaseline();
+		snapshot.update(ENTRY_MODIFY, file.getFileName());
+		Files.write(file, "some new text".getBytes());
+		Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+
+		Map<Path, WatchEvent.Kind<?>> changes = rescan(snapshot);
+		assertEquals(1, changes.size());
+		assertEquals(ENTRY_MODIFY, changes.get(file.getFileName()));
+	}
+
+	private static void setLastModifiedBeforeGranularity(final Path file) throws IOException {
+		long lastModified = System.currentTimeMillis() - 2 * DirectorySnapshot.TIMESTAMP_GRANULARITY_IN_MS;
+		Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+	}
+
+	private static Map<Path, WatchEvent.Kind<?>> rescan(final DirectorySnapshot snapshot) {
+		Map<Path, WatchEvent.Kind<?>> changes = new HashMap<>();
+		snapshot.rescan((kind, fileName) -> changes.put(fileName, kind));
+		return changes;
+	}
+}
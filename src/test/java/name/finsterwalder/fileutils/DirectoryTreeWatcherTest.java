@@ -0,0 +1,116 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Test the DirectoryTreeWatcher.
+ * The tests rely on timing, since they work with actual file notifications.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 13:05
+ */
+public class DirectoryTreeWatcherTest {
+
+	@TempDir
+	Path root;
+	FileChangeEventListener listenerMock = mock(FileChangeEventListener.class);
+	DirectoryTreeWatcher watcher;
+
+	@AfterEach
+	public void unwatch() {
+		if (watcher != null) {
+			watcher.unwatch();
+		}
+	}
+
+	@Test
+	public void changesInExistingSubdirectoriesAreNotified() throws IOException, InterruptedException {
+		Path subdirectory = Files.createDirectories(root.resolve("a").resolve("b"));
+		watcher = new DirectoryTreeWatcher(root, listenerMock, 20);
+		assertEquals(3, watcher.watchedDirectoryCount());
+		Path file = subdirectory.resolve("file.txt");
+		FileUtils.writeToFile(file, "Some text");
+		Thread.sleep(200);
+		verify(listenerMock).fileChanged(argThat(event -> event.getPath().equals(file)));
+	}
+
+	@Test
+	public void filesInNewSubdirectoriesAreNotified() throws IOException, InterruptedException {
+		watcher = new DirectoryTreeWatcher(root, listenerMock, 20);
+		Path subdirectory = Files.createDirectories(root.resolve("a").resolve("b"));
+		Path file = subdirectory.resolve("file.txt");
+		FileUtils.writeToFile(file, "Some text");
+		Thread.sleep(200);
+		verify(listenerMock).fileChanged(argThat(event -> event.getPath().equals(file) && event.getKind() == FileChangeEvent.Kind.CREATED));
+		assertEquals(3, watcher.watchedDirectoryCount());
+	}
+
+	@Test
+	public void deletedSubdirectoriesAreUnregistered() throws IOException, InterruptedException {
+		Path subdirectory = Files.createDirectories(root.resolve("a"));
+		watcher = new DirectoryTreeWatcher(root, listenerMock, 20);
+		assertEquals(2, watcher.watchedDirectoryCount());
+		Files.delete(subdirectory);
+		Thread.sleep(200);
+		verify(listenerMock).fileChanged(argThat(event -> event.getPath().equals(subdirectory) && event.getKind() == FileChangeEvent.Kind.DELETED));
+		assertEquals(1, watcher.watchedDirectoryCount());
+	}
+
+	@Test
+	public void noChangesAreNotifiedAfterUnwatch() throws IOException, InterruptedException {
+		watcher = new DirectoryTreeWatcher(root, listenerMock, 20);
+		watcher.unwatch();
+		Path file = root.resolve("file.txt");
+		FileUtils.writeToFile(file, "Some text");
+		Thread.sleep(200);
+		verify(listenerMock, never()).fileChanged(argThat(event -> event.getPath().equals(file)));
+		assertEquals(0, watcher.watchedDirectoryCount());
+	}
+
+	@Test
+	public void batchListenersAreNotifiedOnceWithAllChangedFiles() throws IOException, InterruptedException {
+		List<Collection<FileChangeEvent>> batches = new CopyOnWriteArrayList<>();
+		FileChangeBatchListener batchListener = batches::add;
+		watcher = new DirectoryTreeWatcher(root, batchListener, 50);
+		Path subdirectory = Files.createDirectories(root.resolve("a"));
+		for (int i = 0; i < 20; i++) {
+			FileUtils.writeToFile(subdirectory.resolve("file" + i), "Some text");
+			FileUtils.writeToFile(subdirectory.resolve("file" + i), "Some more text");
+		}
+		Thread.sleep(300);
+		assertEquals(1, batches.size());
+		assertEquals(21, batches.get(0).size());
+	}
+}
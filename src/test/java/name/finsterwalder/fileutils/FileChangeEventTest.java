@@ -0,0 +1,72 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package name.finsterwalder.fileutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 19:30
+ */
+public class FileChangeEventTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void theAttributesAreReadWhenTheyAreRequestedForTheFirstTime() throws IOException {
+		Path file = Files.createFile(directory.resolve("file"));
+		FileChangeEvent event = FileChangeEvent.readLazily(file, false);
+		Files.delete(file);
+		assertEquals(FileChangeEvent.Kind.DELETED, event.getKind());
+		assertNull(event.getAttributes());
+		Files.createFile(file);
+		assertEquals(FileChangeEvent.Kind.DELETED, event.getKind());
+	}
+
+	@Test
+	public void theKindOfAnExistingFileIsCreatedOrModified() throws IOException {
+		Path file = Files.createFile(directory.resolve("file"));
+		FileChangeEvent created = FileChangeEvent.readLazily(file, true);
+		assertEquals(FileChangeEvent.Kind.CREATED, created.getKind());
+		assertNotNull(created.getAttributes());
+		assertEquals(FileChangeEvent.Kind.MODIFIED, FileChangeEvent.readLazily(file, false).getKind());
+	}
+
+	@Test
+	public void allKindsMatchWithoutReadingTheAttributes() throws IOException {
+		Path file = Files.createFile(directory.resolve("file"));
+		FileChangeEvent event = FileChangeEvent.readLazily(file, false);
+		assertTrue(event.isOneOf(FileChangeEvent.Kind.all()));
+		Files.delete(file);
+		assertEquals(FileChangeEvent.Kind.DELETED, event.getKind());
+		assertTrue(event.isOneOf(EnumSet.of(FileChangeEvent.Kind.DELETED)));
+	}
+}
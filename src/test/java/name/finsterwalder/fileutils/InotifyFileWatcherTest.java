@@ -0,0 +1,118 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumSet;
+import name.finsterwalder.utils.Inotify;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Test the InotifyFileWatcher. Most tests only run on Java 22 or later on Linux against the multi-release jar, i.e. with
+ * {@code mvn verify}, which runs the tests against the packaged jar again.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:30
+ */
+public class InotifyFileWatcherTest {
+
+	@TempDir
+	Path directory;
+	FileChangeEventListener listenerMock = mock(FileChangeEventListener.class);
+	InotifyFileWatcher watcher;
+
+	@AfterEach
+	public void unwatch() {
+		if (watcher != null) {
+			watcher.unwatch();
+		}
+	}
+
+	@Test
+	public void theWatcherCanNotBeCreatedWithoutInotify() {
+		assumeFalse(InotifyFileWatcher.isSupported());
+		assertThrows(UnsupportedOperationException.class, () -> new InotifyFileWatcher(directory.resolve("file.txt"), listenerMock));
+	}
+
+	@Test
+	public void aChangeIsReportedWhenTheWriterClosesTheFile() throws IOException, InterruptedException {
+		assumeTrue(InotifyFileWatcher.isSupported());
+		Path file = directory.resolve("file.txt");
+		FileUtils.writeToFile(file, "Some text");
+		watcher = new InotifyFileWatcher(file, listenerMock);
+		FileUtils.writeToFile(file, "Other text");
+		Thread.sleep(100);
+		verify(listenerMock).fileChanged(argThat(event -> event.getKind() == FileChangeEvent.Kind.MODIFIED && event.getPath().equals(file)));
+	}
+
+	@Test
+	public void aFileMovedOntoTheWatchedFileIsReportedAsCreated() throws IOException, InterruptedException {
+		assumeTrue(InotifyFileWatcher.isSupported());
+		Path file = directory.resolve("file.txt");
+		Path temp = directory.resolve("file.tmp");
+		watcher = new InotifyFileWatcher(file, listenerMock);
+		FileUtils.writeToFile(temp, "Some text");
+		Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+		Thread.sleep(100);
+		verify(listenerMock).fileChanged(argThat(event -> event.getKind() == FileChangeEvent.Kind.CREATED && event.getPath().equals(file)));
+	}
+
+	@Test
+	public void directoriesAreOnlyWatchedForTheEventsOfTheSubscribedKinds() {
+		assertEquals(Inotify.IN_DELETE | Inotify.IN_MOVED_FROM, InotifyEngine.mask(EnumSet.of(FileChangeEvent.Kind.DELETED)));
+		assertEquals(Inotify.IN_CREATE | Inotify.IN_CLOSE_WRITE, InotifyEngine.mask(EnumSet.of(FileChangeEvent.Kind.MODIFIED)));
+		assertEquals(Inotify.IN_CREATE | Inotify.IN_CLOSE_WRITE | Inotify.IN_MOVED_TO | Inotify.IN_DELETE | Inotify.IN_MOVED_FROM,
+				InotifyEngine.mask(FileChangeEvent.Kind.all()));
+	}
+
+	@Test
+	public void aWatcherIsOnlyNotifiedAboutTheSubscribedKinds() throws IOException, InterruptedException {
+		assumeTrue(InotifyFileWatcher.isSupported());
+		Path file = directory.resolve("file.txt");
+		FileUtils.writeToFile(file, "Some text");
+		FileChangeEventListener modifiedListenerMock = mock(FileChangeEventListener.class);
+		InotifyFileWatcher modifiedWatcher = new InotifyFileWatcher(file, modifiedListenerMock, EnumSet.of(FileChangeEvent.Kind.MODIFIED),
+				ListenerDispatcher.defaultDispatcher());
+		try {
+			watcher = new InotifyFileWatcher(file, listenerMock, EnumSet.of(FileChangeEvent.Kind.DELETED), ListenerDispatcher.defaultDispatcher());
+			FileUtils.writeToFile(file, "Other text");
+			Files.delete(file);
+			Thread.sleep(100);
+			verify(modifiedListenerMock).fileChanged(argThat(event -> event.getKind() == FileChangeEvent.Kind.MODIFIED));
+			verify(listenerMock).fileChanged(argThat(event -> event.getKind() == FileChangeEvent.Kind.DELETED));
+			verifyNoMoreInteractions(listenerMock, modifiedListenerMock);
+		} finally {
+			modifiedWatcher.unwatch();
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 15:30
+ */
+public class ListenerDispatcherTest {
+
+	private final List<Runnable> tasks = new CopyOnWriteArrayList<>();
+	private final List<String> notified = new CopyOnWriteArrayList<>();
+
+	@Test
+	public void theInlineDispatcherCallsTheListenerRightAway() {
+		ListenerDispatcher.Channel channel = ListenerDispatcher.inline().newChannel();
+		channel.dispatch("a", () -> notified.add("a"));
+		assertEquals(Arrays.asList("a"), notified);
+	}
+
+	@Test
+	public void notificationsAreDeliveredInOrderOnTheExecutor() {
+		ListenerDispatcher.Channel channel = new ListenerDispatcher(tasks::add, 10, ListenerDispatcher.OverflowPolicy.BLOCK).newChannel();
+		channel.dispatch("a", () -> notified.add("a1"));
+		channel.dispatch("b", () -> notified.add("b"));
+		channel.dispatch("a", () -> notified.add("a2"));
+		assertTrue(notified.isEmpty());
+		runTasks();
+		assertEquals(Arrays.asList("a1", "b", "a2"), notified);
+	}
+
+	@Test
+	public void coalescingKeepsTheLatestNotificationOfAPath() {
+		ListenerDispatcher.Channel channel = new ListenerDispatcher(tasks::add, 10, ListenerDispatcher.OverflowPolicy.COALESCE).newChannel();
+		channel.dispatch("a", () -> notified.add("a1"));
+		channel.dispatch("b", () -> notified.add("b"));
+		channel.dispatch("a", () -> notified.add("a2"));
+		runTasks();
+		assertEquals(Arrays.asList("a2", "b"), notified);
+	}
+
+	@Test
+	public void aFullQueueDropsTheOldestNotification() {
+		ListenerDispatcher.Channel channel = new ListenerDispatcher(tasks::add, 2, ListenerDispatcher.OverflowPolicy.DROP_OLDEST).newChannel();
+		channel.dispatch("a", () -> notified.add("a"));
+		channel.dispatch("b", () -> notified.add("b"));
+		channel.dispatch("c", () -> notified.add("c"));
+		runTasks();
+		assertEquals(Arrays.asList("b", "c"), notified);
+	}
+
+	@Test
+	public void aFullQueueBlocksUntilTheListenerCatchesUp() throws InterruptedException {
+		ListenerDispatcher.Channel channel = new ListenerDispatcher(tasks::add, 1, ListenerDispatcher.OverflowPolicy.BLOCK).newChannel();
+		channel.dispatch("a", () -> notified.add("a"));
+		Thread dispatcher = new Thread(() -> channel.dispatch("b", () -> notified.add("b")));
+		dispatcher.start();
+		dispatcher.join(50);
+		assertTrue(dispatcher.isAlive());
+		runTasks();
+		dispatcher.join(1000);
+		assertFalse(dispatcher.isAlive());
+		runTasks();
+		assertEquals(Arrays.asList("a", "b"), notified);
+	}
+
+	private void runTasks() {
+		List<Runnable> pending = new ArrayList<>(tasks);
+		tasks.clear();
+		for (Runnable task : pending) {
+			task.run();
+		}
+	}
+}
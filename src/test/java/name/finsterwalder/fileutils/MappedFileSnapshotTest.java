@@ -0,0 +1,73 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 16:50
+ */
+public class MappedFileSnapshotTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void readersKeepTheVersionTheyTookWhenTheFileIsReplaced() throws IOException {
+		Path file = directory.resolve("lookup.dat");
+		replace(file, "old content");
+		MappedFileSnapshot snapshot = new MappedFileSnapshot(file);
+		ByteBuffer old = snapshot.current();
+
+		replace(file, "new content, that is longer");
+		snapshot.fileChanged(new FileChangeEvent(FileChangeEvent.Kind.CREATED, file, Files.readAttributes(file, BasicFileAttributes.class)));
+
+		assertEquals("old content", StandardCharsets.UTF_8.decode(old).toString());
+		assertEquals("new content, that is longer", StandardCharsets.UTF_8.decode(snapshot.current()).toString());
+		assertEquals(1, snapshot.version());
+	}
+
+	@Test
+	public void theLastContentIsKeptWhenTheFileIsDeleted() throws IOException {
+		Path file = directory.resolve("lookup.dat");
+		replace(file, "content");
+		MappedFileSnapshot snapshot = new MappedFileSnapshot(file);
+		Files.delete(file);
+		snapshot.fileChanged(new FileChangeEvent(FileChangeEvent.Kind.DELETED, file, null));
+		assertEquals("content", StandardCharsets.UTF_8.decode(snapshot.current()).toString());
+		assertEquals(0, snapshot.version());
+	}
+
+	private void replace(final Path file, final String content) throws IOException {
+		Path temp = directory.resolve("lookup.tmp");
+		Files.write(temp, content.getBytes(StandardCharsets.UTF_8));
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
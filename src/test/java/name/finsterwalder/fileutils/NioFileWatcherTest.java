@@ -17,17 +17,24 @@
 
 package name.finsterwalder.fileutils;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
-import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import name.finsterwalder.utils.TimeProvider;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -47,6 +54,7 @@ public class NioFileWatcherTest {
 	private static final Path file = Paths.get(FILENAME);
 	FileChangeListener fileChangeListenerMock = mock(FileChangeListener.class);
 	FileWatcher watcher;
+	private static final Path otherFile = Paths.get("otherFileToWatch.txt");
 	private Path dirThatDoesNotExist = Paths.get("DirectoryThatDoesNotExist");
 	private Path fileInDirThatDoesNotExist = Paths.get("DirectoryThatDoesNotExist", "file");
 
@@ -54,6 +62,7 @@ public class NioFileWatcherTest {
 	@AfterEach
 	public void deleteFile() throws IOException {
 		Files.deleteIfExists(file);
+		Files.deleteIfExists(otherFile);
 		if (watcher != null) {
 			watcher.unwatch();
 		}
@@ -121,9 +130,7 @@ public class NioFileWatcherTest {
 	@Test
 	public void obeyGracePeriod() throws IOException, InterruptedException {
 		FileUtils.writeToFile(file, "Some Text");
-		TimeProvider mockTimeProvider = mock(TimeProvider.class);
-		when(mockTimeProvider.getTime()).thenReturn(1L).thenReturn(40L).thenReturn(79L);
-		watcher = new NioFileWatcher(file, fileChangeListenerMock, 40, mockTimeProvider);
+		watcher = new NioFileWatcher(file, fileChangeListenerMock, 40);
 		for (int i = 0; i < 3; i++) {
 			FileUtils.writeToFile(file, "Other Text " + i);
 			Thread.sleep(3);
@@ -131,4 +138,95 @@ public class NioFileWatcherTest {
 		waitForNotify();
 		verify(fileChangeListenerMock).fileChanged();
 	}
+
+	@Test
+	public void watchersOfFilesInTheSameDirectoryShareOneRegistration() throws IOException, InterruptedException {
+		FileChangeListener otherListenerMock = mock(FileChangeListener.class);
+		watcher = new NioFileWatcher(file, fileChangeListenerMock, 10);
+		FileWatcher otherWatcher = new NioFileWatcher(otherFile, otherListenerMock, 10);
+		try {
+			assertEquals(1, WatchServiceEngine.getInstance().registeredDirectoryCount());
+			FileUtils.writeToFile(file, "Some text");
+			FileUtils.writeToFile(otherFile, "Other text");
+			waitForNotify();
+			verify(fileChangeListenerMock).fileChanged();
+			verify(otherListenerMock).fileChanged();
+		} finally {
+			otherWatcher.unwatch();
+		}
+		watcher.unwatch();
+		assertEquals(0, WatchServiceEngine.getInstance().registeredDirectoryCount());
+	}
+
+	@Test
+	public void eventListenersReceiveTheKindOfTheChange() throws IOException, InterruptedException {
+		FileChangeEventListener eventListenerMock = mock(FileChangeEventListener.class);
+		watcher = new NioFileWatcher(file, eventListenerMock, 10, FileChangeEvent.Kind.all());
+		FileUtils.writeToFile(file, "Some text");
+		waitForNotify();
+		verify(eventListenerMock).fileChanged(argThat(event -> event.getKind() == FileChangeEvent.Kind.CREATED
+				&& event.getPath().equals(file.toAbsolutePath()) && event.getAttributes().size() == fileSize(file)));
+		Files.delete(file);
+		waitForNotify();
+		verify(eventListenerMock).fileChanged(argThat(event -> event.getKind() == FileChangeEvent.Kind.DELETED && event.getAttributes() == null));
+	}
+
+	@Test
+	public void onlySubscribedKindsAreNotified() throws IOException, InterruptedException {
+		FileChangeEventListener eventListenerMock = mock(FileChangeEventListener.class);
+		watcher = new NioFileWatcher(file, eventListenerMock, 10, EnumSet.of(FileChangeEvent.Kind.DELETED));
+		FileUtils.writeToFile(file, "Some text");
+		waitForNotify();
+		verifyNoMoreInteractions(eventListenerMock);
+		Files.delete(file);
+		waitForNotify();
+		verify(eventListenerMock).fileChanged(argThat(event -> event.getKind() == FileChangeEvent.Kind.DELETED));
+	}
+
+	@Test
+	public void aFileIsNotifiedOnceTheWriteCompletionCheckReportsItAsComplete() throws IOException, InterruptedException {
+		AtomicInteger checks = new AtomicInteger();
+		Set<String> checkThreads = ConcurrentHashMap.newKeySet();
+		WriteCompletionDetector completeWithTheThirdCheck = new WriteCompletionDetector() {
+			@Override
+			public long delayInMs() {
+				return 10;
+			}
+
+			@Override
+			public Check newCheck(final Path changedFile) {
+				return () -> {
+					checkThreads.add(Thread.currentThread().getName());
+					return checks.incrementAndGet() >= 3;
+				};
+			}
+		};
+		FileChangeEventListener eventListenerMock = mock(FileChangeEventListener.class);
+		watcher = new NioFileWatcher(file, eventListenerMock, completeWithTheThirdCheck, FileChangeEvent.Kind.all());
+		FileUtils.writeToFile(file, "Some text");
+		verify(eventListenerMock, timeout(1000)).fileChanged(argThat(event -> event.getKind() == FileChangeEvent.Kind.CREATED));
+		assertTrue(checks.get() >= 3);
+		assertFalse(checkThreads.stream().anyMatch(name -> name.startsWith("NioFileWatcher-debounce")), checkThreads.toString());
+	}
+
+	@Test
+	public void aWatchedDirectoryThatIsDeletedAndCreatedAgainIsWatchedAgain() throws IOException, InterruptedException {
+		Files.createDirectories(dirThatDoesNotExist);
+		watcher = new NioFileWatcher(fileInDirThatDoesNotExist, fileChangeListenerMock, 10);
+		Files.delete(dirThatDoesNotExist);
+		waitForNotify();
+		Files.createDirectories(dirThatDoesNotExist);
+		Thread.sleep(WatchServiceEngine.REATTACH_INTERVAL_IN_MS + 500);
+		FileUtils.writeToFile(fileInDirThatDoesNotExist, "Some text");
+		verify(fileChangeListenerMock, timeout(1000)).fileChanged();
+		assertEquals(1, WatchServiceEngine.getInstance().registeredDirectoryCount());
+	}
+
+	private static long fileSize(final Path path) {
+		try {
+			return Files.size(path);
+		} catch (IOException e) {
+			return -1;
+		}
+	}
 }
@@ -0,0 +1,96 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Test the PatternDirectoryWatcher.
+ * The tests rely on timing, since they work with actual file notifications.
+ *
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 13:40
+ */
+public class PatternDirectoryWatcherTest {
+
+	@TempDir
+	Path directory;
+	FileChangeEventListener listenerMock = mock(FileChangeEventListener.class);
+	PatternDirectoryWatcher watcher;
+
+	@AfterEach
+	public void unwatch() {
+		if (watcher != null) {
+			watcher.unwatch();
+		}
+	}
+
+	@Test
+	public void plainPatternsAreGlobs() {
+		watcher = new PatternDirectoryWatcher(directory, listenerMock, 20, "*.conf", "regex:.*\\.pem");
+		assertTrue(watcher.matches(Paths.get("app.conf")));
+		assertTrue(watcher.matches(Paths.get("server.pem")));
+		assertFalse(watcher.matches(Paths.get("app.conf.swp")));
+		assertFalse(watcher.matches(Paths.get("server.pem.tmp")));
+	}
+
+	@Test
+	public void onlyMatchingFilesAreNotified() throws IOException, InterruptedException {
+		watcher = new PatternDirectoryWatcher(directory, listenerMock, 20, "*.conf");
+		Path conf = directory.resolve("app.conf");
+		FileUtils.writeToFile(directory.resolve("app.conf.swp"), "Some text");
+		FileUtils.writeToFile(directory.resolve("app.tmp"), "Some text");
+		FileUtils.writeToFile(conf, "Some text");
+		Thread.sleep(200);
+		verify(listenerMock).fileChanged(argThat(event -> event.getPath().equals(conf)));
+		verifyNoMoreInteractions(listenerMock);
+	}
+
+	@Test
+	public void watchersOfTheSameDirectoryOnlyReceiveTheirOwnMatches() throws IOException, InterruptedException {
+		FileChangeEventListener otherListenerMock = mock(FileChangeEventListener.class);
+		watcher = new PatternDirectoryWatcher(directory, listenerMock, 20, "*.conf");
+		PatternDirectoryWatcher otherWatcher = new PatternDirectoryWatcher(directory, otherListenerMock, 20, "*.pem");
+		try {
+			Path conf = directory.resolve("app.conf");
+			Path pem = directory.resolve("server.pem");
+			FileUtils.writeToFile(conf, "Some text");
+			FileUtils.writeToFile(pem, "Some text");
+			Thread.sleep(200);
+			verify(listenerMock).fileChanged(argThat(event -> event.getPath().equals(conf)));
+			verifyNoMoreInteractions(listenerMock);
+			verify(otherListenerMock).fileChanged(argThat(event -> event.getPath().equals(pem)));
+			verifyNoMoreInteractions(otherListenerMock);
+		} finally {
+			otherWatcher.unwatch();
+		}
+	}
+}
@@ -17,20 +17,34 @@
 
 package name.finsterwalder.fileutils;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.FileTime;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import name.finsterwalder.utils.ScheduledExecutor;
+import name.finsterwalder.utils.ScheduledExecutorDefaultImpl;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -67,7 +81,7 @@ public class PollingFileWatcherTest {
 	@Test
 	public void watchingAFileStartsAnExecutorAtAFixedRate() throws FileNotFoundException, InterruptedException {
 		FileChangeListener mockListener = mock(FileChangeListener.class);
-		ScheduledExecutorService executorMock = mock(ScheduledExecutorService.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
 		watcher = new PollingFileWatcher(notExistingFile, mockListener, 1, 6, executorMock);
 		verify(executorMock).scheduleAtFixedRate(any(PollingFileWatcher.ChangeWatcher.class), eq(1L), eq(1L), eq(TimeUnit.MILLISECONDS));
 	}
@@ -75,7 +89,7 @@ public class PollingFileWatcherTest {
 	@Test
 	public void whenAChangeWatcherDetectsAChangeItSchedulesADelayedNotify() throws IOException, InterruptedException {
 		FileChangeListener mockListener = mock(FileChangeListener.class);
-		ScheduledExecutorService executorMock = mock(ScheduledExecutorService.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
 		watcher = new PollingFileWatcher(notExistingFile, mockListener, 1, 6, executorMock);
 		PollingFileWatcher.ChangeWatcher changeWatcher = new PollingFileWatcher.ChangeWatcher(watcher);
 		FileUtils.writeToFile(notExistingFile, "text");
@@ -86,19 +100,19 @@ public class PollingFileWatcherTest {
 	@Test
 	public void whenAChangeWatcherDetectsAChangeAndNoGracePeriodIsGivenItIsNotifiedImmediately() throws IOException, InterruptedException {
 		FileChangeListener mockListener = mock(FileChangeListener.class);
-		ScheduledExecutorService executorMock = mock(ScheduledExecutorService.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
 		watcher = new PollingFileWatcher(notExistingFile, mockListener, 1, 0, executorMock);
 		PollingFileWatcher.ChangeWatcher changeWatcher = new PollingFileWatcher.ChangeWatcher(watcher);
 		FileUtils.writeToFile(notExistingFile, "text");
 		changeWatcher.run();
-		verify(mockListener).fileChanged();
+		verify(mockListener, timeout(1000)).fileChanged();
 		verify(executorMock, never()).schedule(any(PollingFileWatcher.DelayedNotifier.class), eq(6L), eq(TimeUnit.MILLISECONDS));
 	}
 
 	@Test
 	public void whenAChangeWatcherDetectsNoChangeNothingHappens() throws FileNotFoundException, InterruptedException {
 		FileChangeListener mockListener = mock(FileChangeListener.class);
-		ScheduledExecutorService executorMock = mock(ScheduledExecutorService.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
 		watcher = new PollingFileWatcher(existingFile, mockListener, 1, 6, executorMock);
 		PollingFileWatcher.ChangeWatcher changeWatcher = new PollingFileWatcher.ChangeWatcher(watcher);
 		changeWatcher.run();
@@ -108,7 +122,7 @@ public class PollingFileWatcherTest {
 	@Test
 	public void whenADelayedNotifyDetectsAnotherChangeItSchedulesAnotherDelayedNotify() throws IOException {
 		FileChangeListener mockListener = mock(FileChangeListener.class);
-		ScheduledExecutorService executorMock = mock(ScheduledExecutorService.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
 		watcher = new PollingFileWatcher(notExistingFile, mockListener, 1, 6, executorMock);
 		PollingFileWatcher.DelayedNotifier delayedNotifier = new PollingFileWatcher.DelayedNotifier(watcher);
 		FileUtils.writeToFile(notExistingFile, "text");
@@ -120,17 +134,69 @@ public class PollingFileWatcherTest {
 	@Test
 	public void whenADelayedNotifyDetectsNoChangeAnUpdateIsSent() throws FileNotFoundException {
 		FileChangeListener mockListener = mock(FileChangeListener.class);
-		ScheduledExecutorService executorMock = mock(ScheduledExecutorService.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
 		watcher = new PollingFileWatcher(existingFile, mockListener, 1, 6, executorMock);
 		PollingFileWatcher.DelayedNotifier delayedNotifier = new PollingFileWatcher.DelayedNotifier(watcher);
 		delayedNotifier.run();
-		verify(mockListener).fileChanged();
+		verify(mockListener, timeout(1000)).fileChanged();
+	}
+
+	@Test
+	public void whenADelayedNotifyFindsTheWriteIncompleteItSchedulesAnotherDelayedNotify() {
+		FileChangeEventListener mockListener = mock(FileChangeEventListener.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
+		WriteCompletionDetector incomplete = new WriteCompletionDetector() {
+			@Override
+			public long delayInMs() {
+				return 6;
+			}
+
+			@Override
+			public Check newCheck(final Path file) {
+				return () -> false;
+			}
+		};
+		watcher = new PollingFileWatcher(existingFile, mockListener, PollingInterval.fixed(1), incomplete, FileChangeEvent.Kind.all(), executorMock,
+				ListenerDispatcher.inline());
+		PollingFileWatcher.DelayedNotifier delayedNotifier = new PollingFileWatcher.DelayedNotifier(watcher);
+		delayedNotifier.run();
+		verify(executorMock).schedule(any(PollingFileWatcher.DelayedNotifier.class), eq(6L), eq(TimeUnit.MILLISECONDS));
+		verify(mockListener, never()).fileChanged(any(FileChangeEvent.class));
+	}
+
+	@Test
+	public void aFailingWriteCompletionCheckCountsAsCompleteAndTheFileIsWatchedAgain() throws IOException {
+		FileChangeEventListener mockListener = mock(FileChangeEventListener.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
+		WriteCompletionDetector failing = new WriteCompletionDetector() {
+			@Override
+			public long delayInMs() {
+				return 6;
+			}
+
+			@Override
+			public Check newCheck(final Path file) {
+				return () -> {
+					throw new IllegalStateException("check failed");
+				};
+			}
+		};
+		watcher = new PollingFileWatcher(existingFile, mockListener, PollingInterval.fixed(1), failing, FileChangeEvent.Kind.all(), executorMock,
+				ListenerDispatcher.inline());
+		PollingFileWatcher.ChangeWatcher changeWatcher = new PollingFileWatcher.ChangeWatcher(watcher);
+		ensureNewFileWithNewTimestamp(existingFile);
+		changeWatcher.run();
+		new PollingFileWatcher.DelayedNotifier(watcher).run();
+		verify(mockListener).fileChanged(any(FileChangeEvent.class));
+		ensureNewFileWithNewTimestamp(existingFile);
+		changeWatcher.run();
+		verify(executorMock, times(2)).schedule(any(PollingFileWatcher.DelayedNotifier.class), eq(6L), eq(TimeUnit.MILLISECONDS));
 	}
 
 	@Test
 	public void changesInAnExistingFileAreDetected() throws IOException, InterruptedException {
 		FileChangeListener mockListener = mock(FileChangeListener.class);
-		ScheduledExecutorService executorMock = mock(ScheduledExecutorService.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
 		watcher = new PollingFileWatcher(existingFile, mockListener, 1, 6, executorMock);
 		ensureNewFileWithNewTimestamp(existingFile);
 		PollingFileWatcher.ChangeWatcher changeWatcher = new PollingFileWatcher.ChangeWatcher(watcher);
@@ -141,16 +207,18 @@ public class PollingFileWatcherTest {
 	@Test
 	public void unwatchStopsPolling() throws IOException, InterruptedException {
 		FileChangeListener mockListener = mock(FileChangeListener.class);
-		ScheduledExecutorService executorMock = mock(ScheduledExecutorService.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
+		ScheduledFuture<?> futureMock = mock(ScheduledFuture.class);
+		when(executorMock.scheduleAtFixedRate(any(PollingFileWatcher.ChangeWatcher.class), eq(1L), eq(1L), eq(TimeUnit.MILLISECONDS))).thenAnswer(invocation -> futureMock);
 		watcher = new PollingFileWatcher(existingFile, mockListener, 1, 6, executorMock);
 		watcher.unwatch();
-		verify(executorMock).shutdownNow();
+		verify(futureMock).cancel(false);
 	}
 
 	@Test
 	public void removingAFileThatWasPreviouslySeenSchedulesADelayedNotify() throws IOException, InterruptedException {
 		FileChangeListener mockListener = mock(FileChangeListener.class);
-		ScheduledExecutorService executorMock = mock(ScheduledExecutorService.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
 		watcher = new PollingFileWatcher(existingFile, mockListener, 1, 6, executorMock);
 		PollingFileWatcher.ChangeWatcher changeWatcher = new PollingFileWatcher.ChangeWatcher(watcher);
 		Files.delete(existingFile);
@@ -158,16 +226,116 @@ public class PollingFileWatcherTest {
 		verify(executorMock).schedule(any(PollingFileWatcher.DelayedNotifier.class), eq(6L), eq(TimeUnit.MILLISECONDS));
 	}
 
+	@Test
+	public void removingAFileIsNotifiedAsDeleted() throws IOException, InterruptedException {
+		FileChangeEventListener mockListener = mock(FileChangeEventListener.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
+		watcher = new PollingFileWatcher(existingFile, mockListener, 1, 0, FileChangeEvent.Kind.all(), executorMock, ListenerDispatcher.inline());
+		PollingFileWatcher.ChangeWatcher changeWatcher = new PollingFileWatcher.ChangeWatcher(watcher);
+		Files.delete(existingFile);
+		changeWatcher.run();
+		changeWatcher.run();
+		verify(mockListener).fileChanged(argThat(event -> event.getKind() == FileChangeEvent.Kind.DELETED && event.getAttributes() == null));
+	}
+
+	@Test
+	public void anOlderFileRenamedIntoPlaceIsDetected() throws IOException {
+		FileChangeListener mockListener = mock(FileChangeListener.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
+		Path olderFile = Paths.get(NOT_EXISTING_FILENAME);
+		FileUtils.writeToFile(olderFile, "some content");
+		Files.setLastModifiedTime(olderFile, FileTime.fromMillis(Files.getLastModifiedTime(existingFile).toMillis() - 60_000));
+		watcher = new PollingFileWatcher(existingFile, mockListener, 1, 6, executorMock);
+		PollingFileWatcher.ChangeWatcher changeWatcher = new PollingFileWatcher.ChangeWatcher(watcher);
+		Files.move(olderFile, existingFile, StandardCopyOption.REPLACE_EXISTING);
+		changeWatcher.run();
+		verify(executorMock).schedule(any(PollingFileWatcher.DelayedNotifier.class), eq(6L), eq(TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void aChangedSizeWithTheSameTimestampIsDetected() throws IOException {
+		FileChangeListener mockListener = mock(FileChangeListener.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
+		FileTime lastModified = Files.getLastModifiedTime(existingFile);
+		watcher = new PollingFileWatcher(existingFile, mockListener, 1, 6, executorMock);
+		PollingFileWatcher.ChangeWatcher changeWatcher = new PollingFileWatcher.ChangeWatcher(watcher);
+		FileUtils.writeToFile(existingFile, "some more content");
+		Files.setLastModifiedTime(existingFile, lastModified);
+		changeWatcher.run();
+		verify(executorMock).schedule(any(PollingFileWatcher.DelayedNotifier.class), eq(6L), eq(TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void anAdaptiveIntervalBacksOffWhileTheFileDoesNotChangeAndSnapsBackAfterAChange() throws IOException {
+		FileChangeEventListener mockListener = mock(FileChangeEventListener.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
+		watcher = new PollingFileWatcher(existingFile, mockListener, PollingInterval.adaptive(10, 50), 0, FileChangeEvent.Kind.all(), executorMock,
+				ListenerDispatcher.inline());
+		verify(executorMock).schedule(any(PollingFileWatcher.ChangeWatcher.class), eq(10L), eq(TimeUnit.MILLISECONDS));
+		PollingFileWatcher.ChangeWatcher changeWatcher = new PollingFileWatcher.ChangeWatcher(watcher);
+		List<Long> intervals = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			changeWatcher.run();
+			intervals.add(watcher.currentIntervalInMs());
+		}
+		FileUtils.writeToFile(existingFile, "some other content");
+		changeWatcher.run();
+		intervals.add(watcher.currentIntervalInMs());
+		assertEquals(Arrays.asList(20L, 40L, 50L, 10L), intervals);
+		verify(mockListener).fileChanged(argThat(event -> event.getKind() == FileChangeEvent.Kind.MODIFIED));
+	}
+
+	@Test
+	public void anAdaptiveIntervalKeepsPollingAfterAPollFailed() throws IOException {
+		FileChangeEventListener mockListener = mock(FileChangeEventListener.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
+		when(executorMock.schedule(any(PollingFileWatcher.DelayedNotifier.class), anyLong(), any(TimeUnit.class)))
+				.thenThrow(new RejectedExecutionException("full"));
+		watcher = new PollingFileWatcher(existingFile, mockListener, PollingInterval.adaptive(10, 50), 6, FileChangeEvent.Kind.all(), executorMock,
+				ListenerDispatcher.inline());
+		PollingFileWatcher.ChangeWatcher changeWatcher = new PollingFileWatcher.ChangeWatcher(watcher);
+		ensureNewFileWithNewTimestamp(existingFile);
+		changeWatcher.run();
+		verify(executorMock, times(2)).schedule(any(PollingFileWatcher.ChangeWatcher.class), anyLong(), any(TimeUnit.class));
+	}
+
 	@Test
 	public void aFileThatDoesNotExistDoesNothing() throws IOException, InterruptedException {
 		FileChangeListener mockListener = mock(FileChangeListener.class);
-		ScheduledExecutorService executorMock = mock(ScheduledExecutorService.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
 		watcher = new PollingFileWatcher(notExistingFile, mockListener, 1, 6, executorMock);
 		PollingFileWatcher.ChangeWatcher changeWatcher = new PollingFileWatcher.ChangeWatcher(watcher);
 		changeWatcher.run();
 		verify(executorMock, never()).schedule(any(PollingFileWatcher.DelayedNotifier.class), eq(6L), eq(TimeUnit.MILLISECONDS));
 	}
 
+	@Test
+	public void noChangesAreCheckedAfterUnwatch() throws IOException {
+		FileChangeListener mockListener = mock(FileChangeListener.class);
+		ScheduledExecutor executorMock = mock(ScheduledExecutor.class);
+		watcher = new PollingFileWatcher(notExistingFile, mockListener, 1, 0, executorMock);
+		PollingFileWatcher.ChangeWatcher changeWatcher = new PollingFileWatcher.ChangeWatcher(watcher);
+		watcher.unwatch();
+		FileUtils.writeToFile(notExistingFile, "text");
+		changeWatcher.run();
+		verify(mockListener, never()).fileChanged();
+	}
+
+	@Test
+	public void theNumberOfThreadsDoesNotGrowWithTheNumberOfWatchers() throws InterruptedException {
+		List<PollingFileWatcher> watchers = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			watchers.add(new PollingFileWatcher(existingFile, mock(FileChangeListener.class), 1));
+		}
+		Thread.sleep(20);
+		for (PollingFileWatcher pollingFileWatcher : watchers) {
+			pollingFileWatcher.unwatch();
+		}
+		// Thread.getAllStackTraces does not see virtual threads, so the threads started by the pool are counted
+		ScheduledExecutorDefaultImpl scheduler = (ScheduledExecutorDefaultImpl)PollingFileWatcher.defaultScheduler();
+		assertTrue(scheduler.getLargestThreadCount() <= PollingFileWatcher.DEFAULT_POLLING_THREADS);
+	}
+
 	static void ensureNewFileWithNewTimestamp(final Path file) throws IOException {
 		FileTime lastModified = Files.getLastModifiedTime(file);
 		while (lastModified.compareTo(Files.getLastModifiedTime(file)) >= 0) {
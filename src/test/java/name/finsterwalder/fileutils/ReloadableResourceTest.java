@@ -0,0 +1,144 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 17:10
+ */
+public class ReloadableResourceTest {
+
+	@TempDir
+	Path directory;
+	Path file;
+	Queue<Runnable> tasks = new ArrayDeque<>();
+	AtomicInteger parses = new AtomicInteger();
+	FileChangeEvent changed;
+	ReloadableResource<Integer> resource;
+
+	@BeforeEach
+	public void createFile() throws IOException {
+		file = directory.resolve("number.txt");
+		write("1");
+		changed = new FileChangeEvent(FileChangeEvent.Kind.MODIFIED, file, null);
+	}
+
+	@Test
+	public void theFileIsParsedAgainOnTheWorkersAfterAChange() throws IOException {
+		resource = new ReloadableResource<>(file, this::parse, tasks::add);
+		assertEquals(1, resource.get().intValue());
+		write("2");
+		resource.fileChanged(changed);
+		assertEquals(1, resource.get().intValue());
+		runTasks();
+		assertEquals(2, resource.get().intValue());
+	}
+
+	@Test
+	public void theLastGoodValueIsKeptWhenParsingFails() throws IOException {
+		resource = new ReloadableResource<>(file, this::parse, tasks::add);
+		write("not a number");
+		resource.fileChanged(changed);
+		runTasks();
+		assertEquals(1, resource.get().intValue());
+	}
+
+	@Test
+	public void changesDuringAParseAreCoalescedIntoOneParse() throws IOException {
+		resource = new ReloadableResource<>(file, f -> {
+			int result = parse(f);
+			if (parses.get() == 2) {
+				// changes arriving while the file is parsed
+				resource.fileChanged(changed);
+				resource.fileChanged(changed);
+			}
+			return result;
+		}, tasks::add);
+		resource.fileChanged(changed);
+		resource.fileChanged(changed);
+		assertEquals(1, tasks.size());
+		runTasks();
+		assertEquals(3, parses.get());
+	}
+
+	@Test
+	public void aChangeAfterAnErrorOfTheParserIsParsedAgain() throws IOException {
+		resource = new ReloadableResource<>(file, f -> {
+			if (parses.get() == 1) {
+				parses.incrementAndGet();
+				throw new StackOverflowError();
+			}
+			return parse(f);
+		}, tasks::add);
+		resource.fileChanged(changed);
+		assertThrows(StackOverflowError.class, this::runTasks);
+		write("3");
+		resource.fileChanged(changed);
+		runTasks();
+		assertEquals(3, resource.get().intValue());
+	}
+
+	@Test
+	public void aChangeAfterARejectedParseIsParsedAgain() throws IOException {
+		AtomicInteger rejections = new AtomicInteger(1);
+		resource = new ReloadableResource<>(file, this::parse, task -> {
+			if (rejections.getAndDecrement() > 0) {
+				throw new RejectedExecutionException("shut down");
+			}
+			tasks.add(task);
+		});
+		write("4");
+		resource.fileChanged(changed);
+		assertEquals(0, tasks.size());
+		resource.fileChanged(changed);
+		runTasks();
+		assertEquals(4, resource.get().intValue());
+	}
+
+	private int parse(final Path file) throws IOException {
+		parses.incrementAndGet();
+		return Integer.parseInt(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+	}
+
+	private void write(final String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void runTasks() {
+		Runnable task;
+		while ((task = tasks.poll()) != null) {
+			task.run();
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 10:05
+ */
+public class StatCacheTest {
+
+	private static final long ONE_HOUR = TimeUnit.HOURS.toNanos(1);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void filesOfASingleWatcherAreReadEveryTime() throws IOException {
+		StatCache cache = new StatCache();
+		Path file = directory.resolve("file");
+		cache.register(file);
+		assertNull(cache.readAttributes(file, ONE_HOUR));
+		FileUtils.writeToFile(file, "text");
+		assertNotNull(cache.readAttributes(file, ONE_HOUR));
+	}
+
+	@Test
+	public void readsWithinTheMaximumAgeShareOneRead() throws IOException {
+		StatCache cache = new StatCache();
+		Path file = directory.resolve("file");
+		cache.register(file);
+		cache.register(file);
+		assertNull(cache.readAttributes(file, ONE_HOUR));
+		FileUtils.writeToFile(file, "text");
+		assertNull(cache.readAttributes(file, ONE_HOUR), "answered from the last read");
+		assertNotNull(cache.readAttributes(file, 0));
+	}
+
+	@Test
+	public void aFileIsReadEveryTimeAgainWhenOnlyOneWatcherIsLeft() throws IOException {
+		StatCache cache = new StatCache();
+		Path file = directory.resolve("file");
+		cache.register(file);
+		cache.register(file);
+		cache.register(file);
+		assertNull(cache.readAttributes(file, ONE_HOUR));
+		cache.unregister(file);
+		FileUtils.writeToFile(file, "some text");
+		assertNull(cache.readAttributes(file, ONE_HOUR), "still polled by two watchers");
+		cache.unregister(file);
+		assertEquals(Files.size(file), cache.readAttributes(file, ONE_HOUR).size());
+	}
+
+	@Test
+	public void theFilesOfADenselyPolledDirectoryAreReadFromOneListing() throws IOException {
+		StatCache cache = new StatCache(2);
+		Path file = directory.resolve("file");
+		Path otherFile = directory.resolve("otherFile");
+		FileUtils.writeToFile(file, "text");
+		cache.register(file);
+		cache.register(otherFile);
+		long statCalls = WatcherMetrics.count(MetricsRecorder.Counter.STAT_CALLS);
+		assertNotNull(cache.readAttributes(file, ONE_HOUR));
+		assertNull(cache.readAttributes(otherFile, ONE_HOUR));
+		assertEquals(2, WatcherMetrics.count(MetricsRecorder.Counter.STAT_CALLS) - statCalls, "one listing and one existing file");
+		FileUtils.writeToFile(otherFile, "text");
+		assertNull(cache.readAttributes(otherFile, ONE_HOUR), "answered from the last listing");
+		assertNotNull(cache.readAttributes(otherFile, 0));
+	}
+
+	@Test
+	public void aDirectoryBelowTheThresholdIsReadFileByFile() throws IOException {
+		StatCache cache = new StatCache(2);
+		Path file = directory.resolve("file");
+		Path otherFile = directory.resolve("otherFile");
+		cache.register(file);
+		cache.register(otherFile);
+		cache.unregister(otherFile);
+		assertNull(cache.readAttributes(file, ONE_HOUR));
+		FileUtils.writeToFile(file, "text");
+		assertNotNull(cache.readAttributes(file, ONE_HOUR));
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import name.finsterwalder.utils.DirectBuffers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 16:30
+ */
+public class TailFollowerTest {
+
+	@TempDir
+	Path directory;
+	Path file;
+	List<String> received = new ArrayList<>();
+	TailFollower follower = new TailFollower(new TailListener() {
+		@Override
+		public void appended(final Path file, final ByteBuffer appended) {
+			received.add(StandardCharsets.UTF_8.decode(appended).toString());
+		}
+
+		@Override
+		public void rotated(final Path file) {
+			received.add("<rotated>");
+		}
+	});
+
+	@BeforeEach
+	public void createFile() throws IOException {
+		file = directory.resolve("app.log");
+		write("first\n");
+		follower.follow(file);
+	}
+
+	@Test
+	public void onlyTheAppendedDataIsPassedOn() throws IOException {
+		append("second\n");
+		follower.fileChanged(modified());
+		append("third\n");
+		follower.fileChanged(modified());
+		assertEquals(2, received.size());
+		assertEquals("second\n", received.get(0));
+		assertEquals("third\n", received.get(1));
+		assertEquals(Files.size(file), follower.position(file));
+	}
+
+	@Test
+	public void aCopiedAndTruncatedFileIsReadFromItsStart() throws IOException {
+		append("second\n");
+		follower.fileChanged(modified());
+		write("new\n");
+		follower.fileChanged(modified());
+		assertEquals("<rotated>", received.get(1));
+		assertEquals("new\n", received.get(2));
+	}
+
+	@Test
+	public void aRenamedFileIsReadFromItsStart() throws IOException {
+		Files.move(file, directory.resolve("app.log.1"));
+		write("first of new file\n");
+		FileChangeEvent created = new FileChangeEvent(FileChangeEvent.Kind.CREATED, file, attributes());
+		follower.fileChanged(created);
+		assertEquals("<rotated>", received.get(0));
+		assertEquals("first of new file\n", received.get(1));
+	}
+
+	@Test
+	public void aLargeAppendIsPassedOnInChunks() throws IOException {
+		String line = "a line of a large append\n";
+		StringBuilder appended = new StringBuilder();
+		while (appended.length() < 3 * DirectBuffers.BUFFER_SIZE) {
+			appended.append(line);
+		}
+		append(appended.toString());
+		follower.fileChanged(modified());
+		assertEquals(4, received.size());
+		assertEquals(appended.toString(), String.join("", received));
+	}
+
+	@Test
+	public void aFileTruncatedWhileItIsReadIsReadFromItsStartWithTheNextChange() throws IOException {
+		TailFollower truncating = new TailFollower(new TailListener() {
+			@Override
+			public void appended(final Path changedFile, final ByteBuffer data) {
+				received.add(data.remaining() + " bytes");
+				if (received.size() == 1) {
+					try {
+						write("new\n");
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+			}
+
+			@Override
+			public void rotated(final Path changedFile) {
+				received.add("<rotated>");
+			}
+		});
+		truncating.follow(file);
+		StringBuilder appended = new StringBuilder();
+		while (appended.length() < 2 * DirectBuffers.BUFFER_SIZE) {
+			appended.append("a line\n");
+		}
+		append(appended.toString());
+		truncating.fileChanged(new FileChangeEvent(FileChangeEvent.Kind.MODIFIED, file, null));
+		append("more\n");
+		truncating.fileChanged(modified());
+		assertEquals(DirectBuffers.BUFFER_SIZE + " bytes", received.get(0));
+		assertEquals("<rotated>", received.get(1));
+		assertEquals("9 bytes", received.get(2));
+	}
+
+	@Test
+	public void theAppendedDataCanBeTransferredToAChannel() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		TailFollower transferring = new TailFollower(Channels.newChannel(out));
+		transferring.follow(file);
+		append("second\n");
+		transferring.fileChanged(modified());
+		assertEquals("second\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	private void write(final String text) throws IOException {
+		// truncates an existing file and keeps its file key, like copytruncate does
+		Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void append(final String text) throws IOException {
+		Files.write(file, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+	}
+
+	private FileChangeEvent modified() throws IOException {
+		return new FileChangeEvent(FileChangeEvent.Kind.MODIFIED, file, attributes());
+	}
+
+	private BasicFileAttributes attributes() throws IOException {
+		return Files.readAttributes(file, BasicFileAttributes.class);
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:00
+ */
+public class TickAlignmentTest {
+
+	@Test
+	public void alignedPollsHappenOnTheSharedTick() {
+		double phase = TickAlignment.ALIGNED.newPhase();
+		assertEquals(1000, TickAlignment.ALIGNED.delayInMs(1000, phase, 5000));
+		assertEquals(700, TickAlignment.ALIGNED.delayInMs(1000, phase, 5300));
+		assertEquals(1100, TickAlignment.ALIGNED.delayInMs(1000, phase, 5900), "a poll, that is just early, waits for the next tick");
+	}
+
+	@Test
+	public void spreadPollsAreDistributedEvenlyOverTheInterval() {
+		int watchers = 100;
+		long[] offsets = new long[watchers];
+		for (int i = 0; i < watchers; i++) {
+			offsets[i] = TickAlignment.SPREAD.delayInMs(1000, TickAlignment.SPREAD.newPhase(), 0) % 1000;
+		}
+		Arrays.sort(offsets);
+		for (int i = 1; i < watchers; i++) {
+			assertTrue(offsets[i] - offsets[i - 1] <= 30, "no large gaps between the polls");
+		}
+	}
+
+	@Test
+	public void unalignedPollsStartWithTheWatcher() {
+		assertEquals(500, TickAlignment.NONE.delayInMs(500, TickAlignment.NONE.newPhase(), 1234));
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ScheduledFuture;
+import name.finsterwalder.utils.Checksums;
+import name.finsterwalder.utils.ScheduledExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 17:30
+ */
+public class WatchStateStoreTest {
+
+	@TempDir
+	Path directory;
+	Path storeFile;
+	Path file;
+	FileChangeEventListener listenerMock = mock(FileChangeEventListener.class);
+
+	@BeforeEach
+	public void trackFileInAPreviousRun() throws IOException {
+		storeFile = directory.resolve("watch-state.bin");
+		file = directory.resolve("config.txt");
+		write("timeout=10");
+		try (WatchStateStore firstRun = new WatchStateStore(storeFile, true)) {
+			FileChangeEventListener listener = firstRun.track(file, mock(FileChangeEventListener.class));
+			write("timeout=20");
+			listener.fileChanged(new FileChangeEvent(FileChangeEvent.Kind.MODIFIED, file, Files.readAttributes(file, BasicFileAttributes.class)));
+		}
+	}
+
+	@Test
+	public void anUnchangedFileIsNotReportedAtStartup() {
+		new WatchStateStore(storeFile, true).track(file, listenerMock);
+		verify(listenerMock, never()).fileChanged(any());
+	}
+
+	@Test
+	public void aFileChangedWhileNotRunningIsReportedAtStartup() throws IOException {
+		write("timeout=300");
+		new WatchStateStore(storeFile, true).track(file, listenerMock);
+		verify(listenerMock).fileChanged(argThat(event -> event.getKind() == FileChangeEvent.Kind.MODIFIED && event.getPath().equals(file)));
+	}
+
+	@Test
+	public void aTouchedFileIsNotReportedWithChecksums() throws IOException {
+		Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5000));
+		new WatchStateStore(storeFile, true).track(file, listenerMock);
+		verify(listenerMock, never()).fileChanged(any());
+	}
+
+	@Test
+	public void aFileDeletedWhileNotRunningIsReportedAtStartup() throws IOException {
+		Files.delete(file);
+		new WatchStateStore(storeFile, true).track(file, listenerMock);
+		verify(listenerMock).fileChanged(argThat(event -> event.getKind() == FileChangeEvent.Kind.DELETED));
+	}
+
+	@Test
+	public void aBatchOfChangesIsWrittenOnceAfterTheFlushDelay() throws IOException {
+		ScheduledExecutor schedulerMock = mock(ScheduledExecutor.class);
+		ScheduledFuture<?> futureMock = mock(ScheduledFuture.class);
+		when(schedulerMock.schedule(any(), anyLong(), any())).thenAnswer(invocation -> futureMock);
+		Path otherStoreFile = directory.resolve("other-state.bin");
+		WatchStateStore store = new WatchStateStore(otherStoreFile, false, 500, schedulerMock);
+		for (int i = 0; i < 10; i++) {
+			Path other = directory.resolve("file" + i);
+			Files.write(other, new byte[i]);
+			store.track(other, listenerMock);
+		}
+		verify(schedulerMock, times(1)).schedule(any(), anyLong(), any());
+		assertFalse(Files.exists(otherStoreFile));
+		store.flush();
+		assertTrue(Files.exists(otherStoreFile));
+	}
+
+	@Test
+	public void checksumsOfAnotherAlgorithmAreIgnored() throws IOException {
+		byte[] stored = Files.readAllBytes(storeFile);
+		// the name of the algorithm follows the magic number and its length
+		byte[] algorithm = Checksums.ALGORITHM.getBytes(StandardCharsets.UTF_8);
+		stored[6 + algorithm.length - 1] = 'X';
+		Files.write(storeFile, stored);
+		Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5000));
+		new WatchStateStore(storeFile, true).track(file, listenerMock);
+		verify(listenerMock).fileChanged(argThat(event -> event.getKind() == FileChangeEvent.Kind.MODIFIED));
+	}
+
+	private void write(final String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:50
+ */
+public class WatcherMetricsTest {
+
+	@Test
+	public void recordingsArePassedOnToAddedRecorders() {
+		final List<String> recorded = new ArrayList<>();
+		MetricsRecorder recorder = new MetricsRecorder() {
+			@Override
+			public void increment(final Counter counter) {
+				recorded.add(counter.name());
+			}
+
+			@Override
+			public void record(final Timer timer, final long durationInNanos) {
+				recorded.add(timer.name() + "=" + durationInNanos);
+			}
+		};
+		WatcherMetrics.addRecorder(recorder);
+		try {
+			long overflows = WatcherMetrics.count(MetricsRecorder.Counter.OVERFLOWS);
+			WatcherMetrics.increment(MetricsRecorder.Counter.OVERFLOWS);
+			WatcherMetrics.record(MetricsRecorder.Timer.POLL_DURATION, 42);
+			assertEquals(overflows + 1, WatcherMetrics.count(MetricsRecorder.Counter.OVERFLOWS));
+			assertTrue(recorded.contains("OVERFLOWS"));
+			assertTrue(recorded.contains("POLL_DURATION=42"));
+		} finally {
+			WatcherMetrics.removeRecorder(recorder);
+		}
+		WatcherMetrics.increment(MetricsRecorder.Counter.OVERFLOWS);
+		assertEquals(2, recorded.size());
+	}
+
+	@Test
+	public void everyReadOfFileAttributesIsCountedAsStatCall(@TempDir final Path directory) throws IOException {
+		Path file = Files.createFile(directory.resolve("file"));
+		long statCalls = WatcherMetrics.count(MetricsRecorder.Counter.STAT_CALLS);
+		FileState.read(file);
+		FileChangeEvent.readLazily(file, false).getAttributes();
+		new StatCache().readAttributes(file, 0);
+		DirectorySnapshot snapshot = new DirectorySnapshot(directory);
+		snapshot.track(file.getFileName());
+		snapshot.rescan((kind, fileName) -> { });
+		// other tests may read attributes concurrently
+		assertTrue(WatcherMetrics.count(MetricsRecorder.Counter.STAT_CALLS) >= statCalls + 5);
+	}
+
+	@Test
+	public void theMetricsAreRegisteredWithJmx() throws Exception {
+		WatcherMetrics.getInstance();
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(WatcherMetrics.OBJECT_NAME);
+		assertTrue(server.isRegistered(name));
+		assertEquals(WatcherMetrics.count(MetricsRecorder.Counter.POLLS), server.getAttribute(name, "Polls"));
+	}
+}
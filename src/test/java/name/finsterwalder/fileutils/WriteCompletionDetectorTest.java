@@ -0,0 +1,74 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.fileutils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:40
+ */
+public class WriteCompletionDetectorTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void aFixedDelayIsAlwaysComplete() {
+		WriteCompletionDetector detector = WriteCompletionDetector.fixedDelay(100);
+		assertTrue(detector.newCheck(directory.resolve("file.txt")).isComplete());
+	}
+
+	@Test
+	public void aStableSizeIsCompleteAfterTheGivenNumberOfEqualSamples() throws IOException {
+		Path file = directory.resolve("file.txt");
+		FileUtils.writeToFile(file, "Some");
+		WriteCompletionDetector.Check check = WriteCompletionDetector.stableSize(10, 2).newCheck(file);
+		assertFalse(check.isComplete());
+		FileUtils.writeToFile(file, "Some more");
+		assertFalse(check.isComplete());
+		assertTrue(check.isComplete());
+	}
+
+	@Test
+	public void aDeletedFileIsComplete() {
+		assertTrue(WriteCompletionDetector.stableSize(10, 3).newCheck(directory.resolve("missing.txt")).isComplete());
+		assertTrue(WriteCompletionDetector.unlocked(10).newCheck(directory.resolve("missing.txt")).isComplete());
+	}
+
+	@Test
+	public void aLockedFileIsNotComplete() throws IOException {
+		Path file = directory.resolve("file.txt");
+		FileUtils.writeToFile(file, "Some text");
+		WriteCompletionDetector.Check check = WriteCompletionDetector.unlocked(10).newCheck(file);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE); FileLock lock = channel.lock()) {
+			assertFalse(check.isComplete());
+		}
+		assertTrue(check.isComplete());
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package name.finsterwalder.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 19:20
+ */
+public class ChecksumsTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void theChecksumIsTheCrc32OfTheWholeContent() throws IOException {
+		byte[] content = new byte[200 * 1024 + 17];
+		new Random(42).nextBytes(content);
+		Path file = directory.resolve("file");
+		Files.write(file, content);
+		CRC32 expected = new CRC32();
+		expected.update(content);
+		assertEquals(expected.getValue(), Checksums.contentChecksum(file));
+		assertEquals(expected.getValue(), Checksums.contentChecksum(file), "with a reused buffer");
+	}
+
+	@Test
+	public void anEmptyFileHasTheChecksumOfNoBytes() throws IOException {
+		Path file = directory.resolve("empty");
+		Files.write(file, new byte[0]);
+		assertEquals(new CRC32().getValue(), Checksums.contentChecksum(file));
+	}
+}
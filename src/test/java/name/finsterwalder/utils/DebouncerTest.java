@@ -0,0 +1,78 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 15:10
+ */
+public class DebouncerTest {
+
+	private final HashedWheelTimer timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 64, "DebouncerTest");
+
+	@AfterEach
+	public void stopTimer() {
+		timer.stop();
+	}
+
+	@Test
+	public void aStormOfTriggersRunsTheActionOnceWithASinglePendingTimer() throws InterruptedException {
+		AtomicInteger executions = new AtomicInteger();
+		Debouncer debouncer = new Debouncer(timer, 30, executions::incrementAndGet);
+		for (int i = 0; i < 10_000; i++) {
+			debouncer.trigger();
+			assertTrue(timer.pendingTimeouts() <= 1);
+		}
+		Thread.sleep(150);
+		assertEquals(1, executions.get());
+		assertEquals(0, timer.pendingTimeouts());
+	}
+
+	@Test
+	public void triggersDuringTheGracePeriodDelayTheAction() throws InterruptedException {
+		AtomicInteger executions = new AtomicInteger();
+		Debouncer debouncer = new Debouncer(timer, 40, executions::incrementAndGet);
+		for (int i = 0; i < 5; i++) {
+			debouncer.trigger();
+			Thread.sleep(15);
+		}
+		assertEquals(0, executions.get());
+		Thread.sleep(150);
+		assertEquals(1, executions.get());
+	}
+
+	@Test
+	public void aCancelledDebouncerDoesNotRunTheAction() throws InterruptedException {
+		AtomicInteger executions = new AtomicInteger();
+		Debouncer debouncer = new Debouncer(timer, 10, executions::incrementAndGet);
+		debouncer.trigger();
+		debouncer.cancel();
+		debouncer.trigger();
+		Thread.sleep(60);
+		assertEquals(0, executions.get());
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 11:20
+ */
+public class HashedWheelTimerTest {
+
+	private final HashedWheelTimer timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 64, "HashedWheelTimerTest");
+
+	@AfterEach
+	public void stopTimer() {
+		timer.stop();
+	}
+
+	@Test
+	public void aScheduledTaskIsExecutedAfterItsDelay() throws Exception {
+		CountDownLatch executed = new CountDownLatch(1);
+		long start = System.nanoTime();
+		ScheduledFuture<?> future = timer.schedule(executed::countDown, 20, TimeUnit.MILLISECONDS);
+		assertTrue(executed.await(1, TimeUnit.SECONDS));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+		future.get(1, TimeUnit.SECONDS);
+		assertTrue(future.isDone());
+		assertEquals(0, timer.pendingTimeouts());
+	}
+
+	@Test
+	public void aTaskWithADelayOfMoreThanOneRoundIsExecuted() throws InterruptedException {
+		CountDownLatch executed = new CountDownLatch(1);
+		timer.schedule(executed::countDown, 150, TimeUnit.MILLISECONDS);
+		assertFalse(executed.await(100, TimeUnit.MILLISECONDS));
+		assertTrue(executed.await(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void aCancelledTaskIsNotExecuted() throws InterruptedException {
+		AtomicInteger executions = new AtomicInteger();
+		ScheduledFuture<?> future = timer.schedule(executions::incrementAndGet, 10, TimeUnit.MILLISECONDS);
+		assertTrue(future.cancel(false));
+		Thread.sleep(40);
+		assertEquals(0, executions.get());
+		assertTrue(future.isCancelled());
+		assertEquals(0, timer.pendingTimeouts());
+	}
+
+	@Test
+	public void manyPendingTimersCanBeScheduledAndCancelled() throws InterruptedException {
+		AtomicInteger executions = new AtomicInteger();
+		List<ScheduledFuture<?>> futures = new ArrayList<>();
+		for (int i = 0; i < 200000; i++) {
+			futures.add(timer.schedule(executions::incrementAndGet, 1, TimeUnit.HOURS));
+		}
+		assertEquals(200000, timer.pendingTimeouts());
+		for (ScheduledFuture<?> future : futures) {
+			future.cancel(false);
+		}
+		assertEquals(0, timer.pendingTimeouts());
+		assertEquals(0, executions.get());
+	}
+
+	@Test
+	public void aPeriodicTaskIsExecutedUntilItIsCancelled() throws InterruptedException {
+		AtomicInteger executions = new AtomicInteger();
+		CountDownLatch executedThreeTimes = new CountDownLatch(3);
+		ScheduledFuture<?> future = timer.scheduleAtFixedRate(() -> {
+			executions.incrementAndGet();
+			executedThreeTimes.countDown();
+		}, 5, 5, TimeUnit.MILLISECONDS);
+		assertTrue(executedThreeTimes.await(1, TimeUnit.SECONDS));
+		future.cancel(false);
+		Thread.sleep(10);
+		int executionsAfterCancel = executions.get();
+		Thread.sleep(30);
+		assertEquals(executionsAfterCancel, executions.get());
+	}
+
+	@Test
+	public void tasksCanBeExecutedOnAnExecutor() throws InterruptedException {
+		AtomicInteger executorCalls = new AtomicInteger();
+		HashedWheelTimer timerWithExecutor = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 64, "HashedWheelTimerTest-executor", task -> {
+			executorCalls.incrementAndGet();
+			task.run();
+		});
+		try {
+			CountDownLatch executed = new CountDownLatch(1);
+			timerWithExecutor.schedule(executed::countDown, 1, TimeUnit.MILLISECONDS);
+			assertTrue(executed.await(1, TimeUnit.SECONDS));
+			assertEquals(1, executorCalls.get());
+		} finally {
+			timerWithExecutor.stop();
+		}
+	}
+}
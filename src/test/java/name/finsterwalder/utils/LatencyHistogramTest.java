@@ -0,0 +1,53 @@
+/*
+ * fileutils - A simple FileWatcher utility
+ * Copyright (C) 2013 Malte Finsterwalder
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package name.finsterwalder.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * @author Malte Finsterwalder
+ * @since 2026-10-15 18:50
+ */
+public class LatencyHistogramTest {
+
+	@Test
+	public void anEmptyHistogramReportsZero() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMeanInNanos());
+		assertEquals(0, histogram.getPercentileInNanos(99));
+	}
+
+	@Test
+	public void percentilesAreTheUpperBoundOfTheirBucket() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < 99; i++) {
+			histogram.record(100);
+		}
+		histogram.record(5000);
+		assertEquals(100, histogram.getCount());
+		assertEquals(149, histogram.getMeanInNanos());
+		assertEquals(127, histogram.getPercentileInNanos(50));
+		assertEquals(127, histogram.getPercentileInNanos(99));
+		assertEquals(5000, histogram.getPercentileInNanos(100));
+		assertEquals(5000, histogram.getMaxInNanos());
+	}
+}